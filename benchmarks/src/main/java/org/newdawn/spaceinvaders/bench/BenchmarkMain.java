@@ -0,0 +1,29 @@
+package org.newdawn.spaceinvaders.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar: the JMH command line, but writing the
+ * results as JSON (to jmh-result.json unless -rff says otherwise) when no
+ * result format is given, so every run leaves a file to compare against
+ * the last release.
+ */
+public final class BenchmarkMain {
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		List<String> options = new ArrayList<>(Arrays.asList(args));
+		if (!options.contains("-rf")) {
+			options.add("-rf");
+			options.add("json");
+			if (!options.contains("-rff")) {
+				options.add("-rff");
+				options.add("jmh-result.json");
+			}
+		}
+		org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+	}
+}
@@ -0,0 +1,118 @@
+package org.newdawn.spaceinvaders.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.newdawn.spaceinvaders.collision.BruteForceCollisionDetector;
+import org.newdawn.spaceinvaders.collision.CollisionDetector;
+import org.newdawn.spaceinvaders.collision.CollisionLayer;
+import org.newdawn.spaceinvaders.collision.SpatialHashCollisionDetector;
+import org.newdawn.spaceinvaders.entity.Entity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The narrow phase (Entity.collidesWith on one pair) and a whole
+ * collision pass as GameWorld runs it every tick, for both broad phases.
+ * <p>
+ * The entities are {@link Probe}s: real entities with the game's
+ * sprites and layers whose collidedWith() does nothing, so every
+ * invocation sees the same scene.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollisionBenchmark {
+	@Param({"10", "100", "1000"})
+	public int count;
+
+	@Param({"spatialhash", "bruteforce"})
+	public String detector;
+
+	private List<Entity> entities;
+	private CollisionDetector collisionDetector;
+	private Probe a;
+	private Probe b;
+
+	/** An entity that only counts its collisions */
+	static final class Probe extends Entity {
+		private final CollisionLayer layer;
+		int hits;
+
+		Probe(String ref, int x, int y, CollisionLayer layer) {
+			super(ref, x, y);
+			this.layer = layer;
+		}
+
+		@Override
+		public CollisionLayer getCollisionLayer() {
+			return layer;
+		}
+
+		@Override
+		public void collidedWith(Entity other) {
+			hits++;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		entities = new ArrayList<>(count);
+		// roughly the game's mix: mostly aliens and shots, a couple of ships
+		for (int i = 0; i < count; i++) {
+			int x = random.nextInt(800);
+			int y = random.nextInt(600);
+			switch (i % 10) {
+				case 0:
+					entities.add(new Probe("sprites/ship.gif", x, y, CollisionLayer.SHIP));
+					break;
+				case 1:
+				case 2:
+				case 3:
+					entities.add(new Probe("sprites/shot.gif", x, y, CollisionLayer.PLAYER_SHOT));
+					break;
+				case 4:
+				case 5:
+					entities.add(new Probe("sprites/shot.gif", x, y, CollisionLayer.ENEMY_SHOT));
+					break;
+				default:
+					entities.add(new Probe("sprites/alien.gif", x, y, CollisionLayer.ALIEN));
+					break;
+			}
+		}
+		collisionDetector = "bruteforce".equals(detector)
+				? new BruteForceCollisionDetector()
+				: new SpatialHashCollisionDetector();
+
+		a = new Probe("sprites/alien.gif", 100, 100, CollisionLayer.ALIEN);
+		b = new Probe("sprites/shot.gif", 110, 105, CollisionLayer.PLAYER_SHOT);
+	}
+
+	@Benchmark
+	public boolean collidesWith() {
+		return a.collidesWith(b);
+	}
+
+	/** What GameWorld does for the entity list every tick */
+	@Benchmark
+	public int detectCollisions() {
+		collisionDetector.detectCollisions(entities);
+		return ((Probe) entities.get(0)).hits;
+	}
+}
@@ -0,0 +1,97 @@
+package org.newdawn.spaceinvaders.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.newdawn.spaceinvaders.collision.CollisionDetector;
+import org.newdawn.spaceinvaders.engine.GameWorld;
+import org.newdawn.spaceinvaders.engine.StageLayout;
+import org.newdawn.spaceinvaders.engine.WorldListener;
+import org.newdawn.spaceinvaders.entity.AlienEntity.AlienType;
+import org.newdawn.spaceinvaders.entity.Entity;
+import org.newdawn.spaceinvaders.entity.EntityStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One GameWorld tick over real entities - a formation of aliens and the
+ * shots of a player firing all the time - with the state kept in the
+ * entities themselves and in an attached EntityStore.
+ * <p>
+ * Collisions are left out (see CollisionBenchmark), so the tick is the
+ * previous position bookkeeping, the per-entity move and afterMove calls,
+ * the integration, the removal of shots that left the screen and the
+ * alien logic at the screen edges. Both layouts run the same seed and so
+ * the same simulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EntityLayoutBenchmark {
+	private static final long TICK_MILLIS = 10;
+	private static final int COLUMNS = 20;
+
+	/** The number of aliens */
+	@Param({"100", "1000"})
+	public int count;
+
+	@Param({"false", "true"})
+	public boolean entityStore;
+
+	private GameWorld world;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		world = new GameWorld(new WorldListener() {
+			@Override
+			public void playerDied(GameWorld world) {
+			}
+
+			@Override
+			public void stageCleared(GameWorld world, boolean finalStage) {
+			}
+		});
+		if (entityStore) {
+			world.setEntityStore(new EntityStore(count + 64));
+		}
+		world.setCollisionDetector(new CollisionDetector() {
+			@Override
+			public void detectCollisions(List<Entity> entities) {
+			}
+
+			@Override
+			public String getName() {
+				return "none";
+			}
+		});
+		world.setStageLayout(1, new StageLayout(count / COLUMNS, COLUMNS, 100, 50, 25, 4, false)
+				.withRowTypes(AlienType.BASIC, AlienType.FAST));
+	}
+
+	/** Start over so the formation doesn't end up far below the screen */
+	@Setup(Level.Iteration)
+	public void startStage() {
+		world.setSeed(42);
+		world.startStage(1, false);
+		world.setInput(0, false, false, true);
+	}
+
+	@Benchmark
+	public int tick() {
+		world.tick(TICK_MILLIS);
+		return world.getEntities().size();
+	}
+}
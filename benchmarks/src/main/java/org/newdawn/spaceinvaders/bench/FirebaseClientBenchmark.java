@@ -0,0 +1,83 @@
+package org.newdawn.spaceinvaders.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.newdawn.spaceinvaders.firebase.FirebaseManager;
+import org.newdawn.spaceinvaders.firebase.FirestoreEmulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FirebaseManager round trips against the in-process FirestoreEmulator,
+ * on loopback and behind a simulated slow network, so client changes can
+ * be measured without a Firebase project.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FirebaseClientBenchmark {
+	/** "0" for loopback, otherwise the median and p99 milliseconds of a log-normal delay */
+	@Param({"0", "20/150"})
+	public String latency;
+
+	private FirestoreEmulator emulator;
+	private FirebaseManager firebase;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		emulator = new FirestoreEmulator(42);
+		if (!"0".equals(latency)) {
+			String[] ms = latency.split("/");
+			emulator.setLatency(FirestoreEmulator.logNormal(Long.parseLong(ms[0]), Long.parseLong(ms[1])));
+		}
+		emulator.start();
+
+		firebase = FirebaseManager.getInstance();
+		firebase.setConfig("bench-key", "bench");
+		firebase.setEndpoints(emulator.getBaseUrl(), emulator.getBaseUrl());
+		if (!firebase.signUpWithEmailPassword("bench@example.com", "benchmark")) {
+			throw new IllegalStateException("Sign up against the emulator failed");
+		}
+		// enough to spend one point per invocation for the whole run
+		firebase.addPoints(1_000_000_000);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		firebase.signOut();
+		firebase.setEndpoints(null, null);
+		emulator.close();
+	}
+
+	@Benchmark
+	public int readPoints() {
+		return firebase.getUserPoints();
+	}
+
+	/** One increment transform, no read */
+	@Benchmark
+	public boolean addPoint() {
+		return firebase.addPoints(1);
+	}
+
+	/** A read for the balance and a commit with an updateTime precondition */
+	@Benchmark
+	public boolean spendPoint() {
+		return firebase.spendPoints(1);
+	}
+}
@@ -0,0 +1,35 @@
+package org.newdawn.spaceinvaders.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.newdawn.spaceinvaders.items.ItemManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ItemManager.normalizeId() for each way an item gets named: a plain id,
+ * an icon file name, a shop display name and something unknown.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemIdBenchmark {
+	@Param({"ammo", "item_double_score.png", "Shield Generator", "mystery box"})
+	public String raw;
+
+	@Benchmark
+	public String normalizeId() {
+		return ItemManager.normalizeId(raw);
+	}
+}
@@ -0,0 +1,107 @@
+package org.newdawn.spaceinvaders.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.newdawn.spaceinvaders.engine.GameWorld;
+import org.newdawn.spaceinvaders.engine.WorldListener;
+import org.newdawn.spaceinvaders.entity.AlienEntity;
+import org.newdawn.spaceinvaders.entity.AlienEntity.AlienType;
+import org.newdawn.spaceinvaders.entity.movement.BossMovement;
+import org.newdawn.spaceinvaders.entity.movement.MovementStrategy;
+import org.newdawn.spaceinvaders.entity.movement.NormalMovement;
+import org.newdawn.spaceinvaders.entity.movement.TeleportMovement;
+import org.newdawn.spaceinvaders.entity.movement.WaveMovement;
+import org.newdawn.spaceinvaders.entity.movement.ZigzagMovement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One 10 ms step of each MovementStrategy on its own, and of
+ * AlienEntity.move(), which adds the frame animation, the edge checks and
+ * the position update on top of the strategy of its type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MovementBenchmark {
+	private static final long TICK_MILLIS = 10;
+
+	@Param({"normal", "zigzag", "wave", "teleport", "boss"})
+	public String movement;
+
+	private GameWorld world;
+	private AlienEntity alien;
+	private MovementStrategy strategy;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		world = new GameWorld(new WorldListener() {
+			@Override
+			public void playerDied(GameWorld world) {
+			}
+
+			@Override
+			public void stageCleared(GameWorld world, boolean finalStage) {
+			}
+		});
+		world.setSeed(42);
+
+		switch (movement) {
+			case "zigzag":
+				alien = new AlienEntity(world, 400, 200, AlienType.FAST);
+				strategy = new ZigzagMovement();
+				break;
+			case "wave":
+				// no alien type waves by itself (the boss has its own variant)
+				alien = new AlienEntity(world, 400, 200, AlienType.BASIC);
+				alien.setMovementStrategy(new WaveMovement());
+				strategy = new WaveMovement();
+				break;
+			case "teleport":
+				alien = new AlienEntity(world, 400, 200, AlienType.SPECIAL);
+				strategy = new TeleportMovement(new SplittableRandom(42));
+				break;
+			case "boss":
+				alien = new AlienEntity(world, 400, 200, AlienType.BOSS);
+				strategy = new BossMovement();
+				break;
+			default:
+				alien = new AlienEntity(world, 400, 200, AlienType.BASIC);
+				strategy = new NormalMovement();
+				break;
+		}
+	}
+
+	/** Aliens are not bounced by doLogic() here, so put them back before they drift far off */
+	@Setup(Level.Iteration)
+	public void resetPosition() {
+		alien.setX(400);
+		alien.setY(200);
+	}
+
+	@Benchmark
+	public double strategyMove() {
+		strategy.move(alien, TICK_MILLIS);
+		return alien.getVerticalMovement();
+	}
+
+	@Benchmark
+	public double alienMove() {
+		alien.move(TICK_MILLIS);
+		return alien.getXDouble();
+	}
+}
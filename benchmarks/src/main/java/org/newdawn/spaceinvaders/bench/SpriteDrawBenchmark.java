@@ -0,0 +1,77 @@
+package org.newdawn.spaceinvaders.bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.newdawn.spaceinvaders.Sprite;
+import org.newdawn.spaceinvaders.SpriteAtlas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sprite.draw() of an alien into an offscreen image: plain, with the tint
+ * the coloured alien types use, and as a region of the sprite atlas. Headless, so this measures the
+ * software loops rather than whatever pipeline the display would pick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SpriteDrawBenchmark {
+	private BufferedImage target;
+	private Graphics2D g;
+	private Sprite plain;
+	private Sprite tinted;
+	private Sprite region;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		BufferedImage alien = ImageIO.read(getClass().getClassLoader().getResource("sprites/alien.gif"));
+		plain = new Sprite(alien);
+		tinted = plain.createTintedSprite(new Color(255, 100, 100));
+		region = SpriteAtlas.load(SpriteAtlas.MANIFEST).get("sprites/alien.gif");
+
+		target = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+		g = target.createGraphics();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		g.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage drawPlain() {
+		plain.draw(g, 100, 100);
+		return target;
+	}
+
+	@Benchmark
+	public BufferedImage drawTinted() {
+		tinted.draw(g, 100, 100);
+		return target;
+	}
+
+	@Benchmark
+	public BufferedImage drawRegion() {
+		region.draw(g, 100, 100);
+		return target;
+	}
+}
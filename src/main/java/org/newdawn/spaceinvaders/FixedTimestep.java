@@ -0,0 +1,127 @@
+package org.newdawn.spaceinvaders;
+
+/**
+ * Fixed-rate update stepper with an accumulator ("fix your timestep").
+ * <p>
+ * Real elapsed time is fed in once per rendered frame and converted into a
+ * whole number of simulation ticks; whatever is left over becomes the
+ * interpolation factor for rendering between the last two states.
+ * <p>
+ * Entity.move() works in whole milliseconds, so tick lengths are spread
+ * over integer milliseconds (e.g. 8, 8, 9 ms at 120 Hz). The sequence only
+ * depends on the tick rate, which keeps runs reproducible.
+ */
+public final class FixedTimestep {
+	/** 기존 10ms 프레임과 같은 기본 틱 속도 */
+	public static final int DEFAULT_TICK_RATE = 100;
+	/** Spiral-of-death cap: at most this many ticks are run per rendered frame */
+	public static final int DEFAULT_MAX_TICKS_PER_FRAME = 5;
+
+	private final int tickRate;
+	private final long tickNanos;
+	private final int maxTicksPerFrame;
+
+	/** Real time not yet consumed by a tick (ns) */
+	private long accumulator;
+	/** Time of the previous advance() call, or -1 before the first one */
+	private long lastTime = -1;
+	/** Number of ticks handed out so far, used to spread milliseconds */
+	private long tickCount;
+	/** Real time thrown away by the spiral-of-death cap (ns) */
+	private long droppedNanos;
+
+	/**
+	 * @param tickRate Simulation ticks per second
+	 * @param maxTicksPerFrame Maximum ticks run to catch up in a single frame
+	 */
+	public FixedTimestep(int tickRate, int maxTicksPerFrame) {
+		if (tickRate <= 0 || tickRate > 1000) {
+			throw new IllegalArgumentException("tickRate must be between 1 and 1000: " + tickRate);
+		}
+		this.tickRate = tickRate;
+		this.tickNanos = 1_000_000_000L / tickRate;
+		this.maxTicksPerFrame = Math.max(1, maxTicksPerFrame);
+	}
+
+	public FixedTimestep(int tickRate) {
+		this(tickRate, DEFAULT_MAX_TICKS_PER_FRAME);
+	}
+
+	/**
+	 * Start measuring from the given time, discarding any pending time
+	 *
+	 * @param nowNanos The current System.nanoTime()
+	 */
+	public void reset(long nowNanos) {
+		lastTime = nowNanos;
+		accumulator = 0;
+	}
+
+	/**
+	 * Feed in the real time that passed since the last call
+	 *
+	 * @param nowNanos The current System.nanoTime()
+	 * @return The number of ticks the caller should run now
+	 */
+	public int advance(long nowNanos) {
+		if (lastTime < 0) {
+			lastTime = nowNanos;
+		}
+		accumulator += Math.max(0, nowNanos - lastTime);
+		lastTime = nowNanos;
+
+		long budget = tickNanos * maxTicksPerFrame;
+		if (accumulator > budget) {
+			// 너무 뒤처졌으면 따라잡지 않고 버린다 (spiral of death 방지)
+			droppedNanos += accumulator - budget;
+			accumulator = budget;
+		}
+
+		int ticks = (int) (accumulator / tickNanos);
+		accumulator -= ticks * tickNanos;
+		return ticks;
+	}
+
+	/**
+	 * Get the length of the next tick and count it as run
+	 *
+	 * @return The tick length in whole milliseconds
+	 */
+	public long nextTickMillis() {
+		long start = tickCount * 1000 / tickRate;
+		tickCount++;
+		return tickCount * 1000 / tickRate - start;
+	}
+
+	/**
+	 * @return How far the real time is into the next tick, 0 (last state) to 1 (next state)
+	 */
+	public double getAlpha() {
+		return (double) accumulator / tickNanos;
+	}
+
+	/**
+	 * @return The number of ticks handed out by nextTickMillis() so far
+	 */
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	public int getTickRate() {
+		return tickRate;
+	}
+
+	/**
+	 * @return The length of one tick in nanoseconds
+	 */
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	/**
+	 * @return The total real time (ms) skipped because the simulation fell too far behind
+	 */
+	public long getDroppedMillis() {
+		return droppedNanos / 1_000_000L;
+	}
+}
@@ -2,9 +2,11 @@ package org.newdawn.spaceinvaders;
 
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.Color;
 import java.awt.AlphaComposite;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 
 /**
@@ -17,10 +19,17 @@ import java.awt.image.BufferedImage;
  * @author Kevin Glass
  */
 public class Sprite {
-	/** The image to be drawn for this sprite */
+	/** The image to be drawn for this sprite, null in headless mode */
 	private Image image;
-	/** Color tint for the sprite */
-	private Color tintColor = null;
+	/** The sheet the sprite is part of, null if it has an image of its own */
+	private SpriteSurface surface;
+	/** Where the sprite starts in the sheet */
+	private int sourceX;
+	private int sourceY;
+	/** The width in pixels of this sprite */
+	private int width;
+	/** The height in pixels of this sprite */
+	private int height;
 
 	/**
 	 * Create a new sprite based on an image
@@ -29,17 +38,37 @@ public class Sprite {
 	 */
 	public Sprite(Image image) {
 		this.image = image;
+		this.width = image.getWidth(null);
+		this.height = image.getHeight(null);
 	}
 
 	/**
-	 * Create a new sprite with color tinting
+	 * Create a sprite from part of a sprite sheet, see SpriteAtlas
 	 *
-	 * @param image The image that is this sprite
-	 * @param tintColor The color to tint this sprite
+	 * @param surface The sheet the sprite is part of
+	 * @param sourceX The left edge of the sprite in the sheet
+	 * @param sourceY The top edge of the sprite in the sheet
+	 * @param width The width in pixels
+	 * @param height The height in pixels
 	 */
-	public Sprite(Image image, Color tintColor) {
-		this.image = image;
-		this.tintColor = tintColor;
+	public Sprite(SpriteSurface surface, int sourceX, int sourceY, int width, int height) {
+		this.surface = surface;
+		this.sourceX = sourceX;
+		this.sourceY = sourceY;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Create a sprite that only has a size and draws nothing, used when
+	 * running without a display
+	 *
+	 * @param width The width in pixels
+	 * @param height The height in pixels
+	 */
+	public Sprite(int width, int height) {
+		this.width = width;
+		this.height = height;
 	}
 
 	/**
@@ -48,7 +77,7 @@ public class Sprite {
 	 * @return The width in pixels of this sprite
 	 */
 	public int getWidth() {
-		return image.getWidth(null);
+		return width;
 	}
 
 	/**
@@ -57,9 +86,16 @@ public class Sprite {
 	 * @return The height in pixels of this sprite
 	 */
 	public int getHeight() {
-		return image.getHeight(null);
+		return height;
 	}
 	
+	/**
+	 * @return The image drawn from, the whole sheet for a region, null in headless mode
+	 */
+	Image getImage() {
+		return surface != null ? surface.getImage() : image;
+	}
+
 	/**
 	 * Draw the sprite onto the graphics context provided
 	 *
@@ -68,30 +104,69 @@ public class Sprite {
 	 * @param y The y location at which to draw the sprite
 	 */
 	public void draw(Graphics g,int x,int y) {
-		if (tintColor == null) {
-			// Draw normally without tint
+		if (surface != null) {
+			g.drawImage(surface.getImage(),x,y,x+width,y+height,sourceX,sourceY,sourceX+width,sourceY+height,null);
+		} else if (image != null) {
 			g.drawImage(image,x,y,null);
-		} else {
-			// Draw with color tint
-			Graphics2D g2d = (Graphics2D) g.create();
-			g2d.drawImage(image,x,y,null);
-
-			// Apply color tint with multiply blend
-			g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_ATOP, 0.7f));
-			g2d.setColor(tintColor);
-			g2d.fillRect(x, y, getWidth(), getHeight());
+		}
+	}
 
-			g2d.dispose();
+	/**
+	 * Draw the sprite scaled to the given size
+	 *
+	 * @param g The graphics context on which to draw the sprite
+	 * @param x The x location at which to draw the sprite
+	 * @param y The y location at which to draw the sprite
+	 * @param w The width to draw it at
+	 * @param h The height to draw it at
+	 */
+	public void draw(Graphics g,int x,int y,int w,int h) {
+		Image from = getImage();
+		if (from == null) {
+			return;
 		}
+		g.drawImage(from,x,y,x+w,y+h,sourceX,sourceY,sourceX+width,sourceY+height,null);
 	}
 
 	/**
-	 * Create a tinted version of this sprite
+	 * Create a tinted version of this sprite. The tint is baked into a new
+	 * image once here, so drawing the result costs the same as drawing the
+	 * original. Use SpriteStore.getSprite(ref, tint) to share the result.
 	 *
 	 * @param tintColor The color to tint the sprite
 	 * @return A new sprite with the specified tint
 	 */
 	public Sprite createTintedSprite(Color tintColor) {
-		return new Sprite(this.image, tintColor);
+		// a sheet is read from its source pixels, never from video memory
+		Image from = surface != null ? surface.getSource() : image;
+		if (from == null) {
+			return this;
+		}
+
+		Image tinted = createImage(width, height);
+		Graphics2D g2d = (Graphics2D) tinted.getGraphics();
+		g2d.drawImage(from,0,0,width,height,sourceX,sourceY,sourceX+width,sourceY+height,null);
+
+		// drawn per frame onto the opaque back buffer the tint used to
+		// cover the whole rectangle, so it is baked over the transparent
+		// pixels too to look exactly the same
+		g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f));
+		g2d.setColor(tintColor);
+		g2d.fillRect(0, 0, width, height);
+		g2d.dispose();
+
+		return new Sprite(tinted);
+	}
+
+	/**
+	 * Create a translucent image in the format the screen draws fastest,
+	 * or a plain ARGB image when there is no screen (e.g. benchmarks)
+	 */
+	private static Image createImage(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package org.newdawn.spaceinvaders;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * All sprites packed into one accelerated image. Every sprite handed out
+ * is a region of it, so a frame's worth of drawImage calls all read from
+ * the same source surface and the pipeline never has to switch textures
+ * between entities.
+ * <p>
+ * The sprites to pack are listed in sprites/manifest.txt (a classpath
+ * directory cannot be listed from inside a jar). They are packed onto
+ * shelves, tallest first, and the room left over is used for sprites
+ * derived at runtime such as the tinted alien frames.
+ */
+public class SpriteAtlas {
+	/** The classpath reference of the list of sprites to pack */
+	public static final String MANIFEST = "sprites/manifest.txt";
+	/** Width of the atlas, the height grows to fit the manifest */
+	private static final int WIDTH = 512;
+	/** Minimum height, leaving room for the sprites added later */
+	private static final int MIN_HEIGHT = 256;
+	private static final int MAX_HEIGHT = 4096;
+	/** Transparent pixels between regions so filtering never bleeds */
+	private static final int PADDING = 1;
+
+	/** The single surface all regions are drawn from */
+	private final SpriteSurface surface;
+	private final int height;
+	/** The regions, from reference to sprite */
+	private final Map<String, Sprite> regions = new HashMap<>();
+
+	/** Where the next region goes */
+	private int shelfX;
+	private int shelfY;
+	private int shelfHeight;
+
+	private SpriteAtlas(SpriteSurface surface, int height) {
+		this.surface = surface;
+		this.height = height;
+	}
+
+	/**
+	 * Decode and pack every sprite in a manifest, one after the other.
+	 * SpriteStore.preload() does the decoding in parallel instead.
+	 *
+	 * @param manifest Classpath reference of the manifest
+	 * @return The atlas, or null if there is no manifest
+	 * @throws IOException If a listed sprite can't be read
+	 */
+	public static SpriteAtlas load(String manifest) throws IOException {
+		List<String> refs = readManifest(manifest);
+		if (refs == null) {
+			return null;
+		}
+
+		Map<String, BufferedImage> images = new HashMap<>();
+		for (String ref : refs) {
+			URL url = SpriteAtlas.class.getClassLoader().getResource(ref);
+			BufferedImage image = url == null ? null : ImageIO.read(url);
+			if (image == null) {
+				throw new IOException("Can't read " + ref + " listed in " + manifest);
+			}
+			images.put(ref, image);
+		}
+		return pack(images);
+	}
+
+	/**
+	 * Pack decoded sprites into a new atlas
+	 *
+	 * @param images The sprites, by reference
+	 * @return The atlas holding all of them
+	 * @throws IOException If they don't fit the largest atlas size
+	 */
+	public static SpriteAtlas pack(Map<String, BufferedImage> images) throws IOException {
+		// tallest first keeps the shelves tight
+		List<String> refs = new ArrayList<>(images.keySet());
+		refs.sort((a, b) -> images.get(b).getHeight() - images.get(a).getHeight());
+
+		int totalHeight = 0;
+		for (BufferedImage image : images.values()) {
+			totalHeight += image.getHeight() + PADDING;
+		}
+		int height = MIN_HEIGHT;
+		while (height < totalHeight && height < MAX_HEIGHT && !fits(refs, images, height)) {
+			height *= 2;
+		}
+
+		SpriteAtlas atlas = new SpriteAtlas(new SpriteSurface(createImage(WIDTH, height)), height);
+		for (String ref : refs) {
+			if (atlas.add(ref, images.get(ref)) == null) {
+				throw new IOException(images.size() + " sprites don't fit a " + WIDTH + "x" + height + " atlas");
+			}
+		}
+		return atlas;
+	}
+
+	/**
+	 * @param ref The reference the sprite was added under
+	 * @return The region sprite, or null if it is not in the atlas
+	 */
+	public synchronized Sprite get(String ref) {
+		return regions.get(ref);
+	}
+
+	/**
+	 * Copy an image into the free space of the atlas
+	 *
+	 * @param ref The reference to add it under
+	 * @param source The pixels to copy
+	 * @return The region sprite, or null if the atlas is full
+	 */
+	public synchronized Sprite add(String ref, Image source) {
+		int w = source.getWidth(null);
+		int h = source.getHeight(null);
+		int[] at = place(w, h);
+		if (at == null) {
+			return null;
+		}
+
+		Graphics2D g = surface.edit();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(source, at[0], at[1], null);
+		g.dispose();
+
+		Sprite sprite = new Sprite(surface, at[0], at[1], w, h);
+		regions.put(ref, sprite);
+		return sprite;
+	}
+
+	/**
+	 * @return The surface the regions are drawn from, validate it once per frame
+	 */
+	public SpriteSurface getSurface() {
+		return surface;
+	}
+
+	/**
+	 * Find a spot on the current or a new shelf
+	 *
+	 * @return x and y of the spot, or null if there is no room
+	 */
+	private int[] place(int w, int h) {
+		if (w + PADDING > WIDTH) {
+			return null;
+		}
+		if (shelfX + w + PADDING > WIDTH) {
+			shelfY += shelfHeight;
+			shelfX = 0;
+			shelfHeight = 0;
+		}
+		if (shelfY + h + PADDING > height) {
+			return null;
+		}
+
+		int[] at = { shelfX, shelfY };
+		shelfX += w + PADDING;
+		shelfHeight = Math.max(shelfHeight, h + PADDING);
+		return at;
+	}
+
+	private static boolean fits(List<String> refs, Map<String, BufferedImage> images, int height) {
+		SpriteAtlas trial = new SpriteAtlas(null, height);
+		for (String ref : refs) {
+			BufferedImage image = images.get(ref);
+			if (trial.place(image.getWidth(), image.getHeight()) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read the sprite references listed in a manifest
+	 *
+	 * @param manifest Classpath reference of the manifest
+	 * @return The references in order, or null if there is no manifest
+	 * @throws IOException If the manifest can't be read
+	 */
+	public static List<String> readManifest(String manifest) throws IOException {
+		URL url = SpriteAtlas.class.getClassLoader().getResource(manifest);
+		if (url == null) {
+			return null;
+		}
+
+		List<String> refs = new ArrayList<>();
+		try (InputStream in = url.openStream();
+				BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					refs.add(line);
+				}
+			}
+		}
+		return refs;
+	}
+
+	private static BufferedImage createImage(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+}
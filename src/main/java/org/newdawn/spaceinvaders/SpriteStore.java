@@ -1,5 +1,7 @@
 package org.newdawn.spaceinvaders;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsEnvironment;
 import java.awt.Image;
@@ -7,9 +9,22 @@ import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 /**
  * A resource manager for sprites in the game. Its often quite important
@@ -17,6 +32,12 @@ import javax.imageio.ImageIO;
  * it makes sense to have a central resource loader that goes away, gets
  * your resources and caches them for future use.
  * <p>
+ * The sprites of the manifest are decoded in parallel by preload() and
+ * packed into the SpriteAtlas. Call it at startup so that no image is
+ * decoded on the game thread in the middle of a stage; if nobody does,
+ * the first getSprite() runs it and waits. Safe to use from any thread,
+ * the batch simulator creates entities on several at once.
+ * <p>
  * [singleton]
  * <p>
  * @author Kevin Glass
@@ -24,76 +45,398 @@ import javax.imageio.ImageIO;
 public class SpriteStore {
 	/** The single instance of this class */
 	private static SpriteStore single = new SpriteStore();
-	
+	/** The most threads preload() decodes on */
+	private static final int MAX_DECODE_THREADS = 4;
+	/** Size of the stand-in for a sprite that can't be loaded */
+	private static final int FALLBACK_SIZE = 32;
+
 	/**
-	 * Get the single instance of this class 
-	 * 
+	 * Get the single instance of this class
+	 *
 	 * @return The single instance of this class
 	 */
 	public static SpriteStore get() {
 		return single;
 	}
-	
+
 	/** The cached sprite map, from reference to sprite instance */
-	private HashMap sprites = new HashMap();
-	
+	private final Map<String, Sprite> sprites = new ConcurrentHashMap<>();
+	/** The sprites preload() was asked for, completed once they are packed */
+	private final Map<String, CompletableFuture<Sprite>> pending = new ConcurrentHashMap<>();
+	/** How long decoding each sprite took, in nanoseconds */
+	private final Map<String, Long> loadNanos = new ConcurrentHashMap<>();
+	/** True once a preload has been started, by hand or by the first getSprite() */
+	private boolean preloadStarted;
+	/** The sprites of the manifest packed into one image, null until packed or if there is none */
+	private volatile SpriteAtlas atlas;
+
 	/**
 	 * Retrieve a sprite from the store
-	 * 
+	 *
 	 * @param ref The reference to the image to use for the sprite
-	 * @return A sprite instance containing an accelerate image of the request reference
+	 * @return A sprite instance containing an accelerate image of the request reference,
+	 * or a placeholder if the image can't be loaded
 	 */
 	public Sprite getSprite(String ref) {
 		// if we've already got the sprite in the cache
 		// then just return the existing version
-		if (sprites.get(ref) != null) {
-			return (Sprite) sprites.get(ref);
-		}
-		
-		// otherwise, go away and grab the sprite from the resource
-		// loader
-		BufferedImage sourceImage = null;
-		
+		Sprite sprite = sprites.get(ref);
+		if (sprite != null) {
+			return sprite;
+		}
+
+		// a sprite of the manifest is being decoded already, wait for it
+		if (!GraphicsEnvironment.isHeadless()) {
+			ensurePreloaded();
+			CompletableFuture<Sprite> loading = pending.get(ref);
+			if (loading != null) {
+				return loading.join();
+			}
+		}
+
+		// without a display only the size is needed, otherwise go away
+		// and grab the sprite from the resource loader
+		sprite = GraphicsEnvironment.isHeadless() ? loadSize(ref) : loadImage(ref);
+		Sprite existing = sprites.putIfAbsent(ref, sprite);
+		return existing != null ? existing : sprite;
+	}
+
+	/**
+	 * Retrieve a sprite with a colour tint baked in. Each (ref, tint) pair
+	 * is baked once and shared by every entity that asks for it.
+	 *
+	 * @param ref The reference to the image to use for the sprite
+	 * @param tint The tint to apply, null for the plain sprite
+	 * @return The tinted sprite
+	 */
+	public Sprite getSprite(String ref, Color tint) {
+		if (tint == null) {
+			return getSprite(ref);
+		}
+
+		String key = ref + "#" + Integer.toHexString(tint.getRGB());
+		Sprite sprite = sprites.get(key);
+		if (sprite != null) {
+			return sprite;
+		}
+
+		Sprite base = getSprite(ref);
+		// baked under the lock so two threads never pack the same tint twice
+		synchronized (this) {
+			sprite = sprites.get(key);
+			if (sprite == null) {
+				sprite = base.createTintedSprite(tint);
+
+				// keep drawing from the atlas while it has room
+				SpriteAtlas packedInto = atlas;
+				Sprite packed = packedInto == null || GraphicsEnvironment.isHeadless() ? null : packedInto.add(key, sprite.getImage());
+				if (packed != null) {
+					sprite = packed;
+				}
+				sprites.put(key, sprite);
+			}
+		}
+		return sprite;
+	}
+
+	/**
+	 * Retrieve a sprite only if it is packed in the atlas, for callers
+	 * that have their own way of loading images that aren't
+	 *
+	 * @param ref The reference to the image
+	 * @return The atlas region, or null if the sprite isn't in the atlas
+	 */
+	public Sprite getPackedSprite(String ref) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return null;
+		}
+		getSprite(ref);
+		SpriteAtlas packedInto = atlas;
+		return packedInto == null ? null : packedInto.get(ref);
+	}
+
+	/**
+	 * Make sure the sprite sheets in video memory are usable, redrawing
+	 * them if they lost their contents. Call once per frame, on the
+	 * thread that draws, before drawing any sprite.
+	 *
+	 * @param gc The configuration of the surface being drawn onto
+	 */
+	public void validateSurfaces(GraphicsConfiguration gc) {
+		SpriteAtlas packedInto = atlas;
+		if (packedInto != null) {
+			packedInto.getSurface().validate(gc);
+		}
+	}
+
+	/**
+	 * Decode every sprite of a manifest in parallel and pack them into
+	 * the atlas, without waiting for it. The decoding runs on at most
+	 * MAX_DECODE_THREADS daemon threads which go away once done.
+	 *
+	 * @param manifest Classpath reference of the manifest, see SpriteAtlas
+	 * @return A future for each sprite of the manifest, completed once it
+	 * is packed, with a placeholder if it couldn't be loaded. Never
+	 * completed exceptionally.
+	 */
+	public synchronized Map<String, CompletableFuture<Sprite>> preload(String manifest) {
+		preloadStarted = true;
+		List<String> refs;
+		try {
+			refs = SpriteAtlas.readManifest(manifest);
+		} catch (IOException e) {
+			System.err.println("[WARN] Can't read sprite manifest " + manifest + ": " + e.getMessage());
+			refs = null;
+		}
+		if (refs == null || refs.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		Map<String, CompletableFuture<Sprite>> result = new LinkedHashMap<>();
+		if (GraphicsEnvironment.isHeadless()) {
+			for (String ref : refs) {
+				result.put(ref, CompletableFuture.completedFuture(getSprite(ref)));
+			}
+			return Collections.unmodifiableMap(result);
+		}
+
+		// sprites an earlier preload has already taken on are not decoded again
+		List<String> fresh = new ArrayList<>();
+		for (String ref : refs) {
+			CompletableFuture<Sprite> future = new CompletableFuture<>();
+			CompletableFuture<Sprite> earlier = pending.putIfAbsent(ref, future);
+			result.put(ref, earlier != null ? earlier : future);
+			if (earlier == null) {
+				fresh.add(ref);
+			}
+		}
+		if (fresh.isEmpty()) {
+			return Collections.unmodifiableMap(result);
+		}
+
+		long start = System.nanoTime();
+		int threads = Math.min(fresh.size(), Math.min(MAX_DECODE_THREADS, Runtime.getRuntime().availableProcessors()));
+		ExecutorService decoder = Executors.newFixedThreadPool(Math.max(1, threads), new DecodeThreadFactory());
+
+		Map<String, CompletableFuture<BufferedImage>> decoding = new LinkedHashMap<>();
+		for (String ref : fresh) {
+			decoding.put(ref, CompletableFuture.supplyAsync(() -> decode(ref), decoder));
+		}
+
+		CompletableFuture.allOf(decoding.values().toArray(new CompletableFuture<?>[0]))
+				.thenRunAsync(() -> packDecoded(decoding, start), decoder)
+				.whenComplete((done, error) -> {
+					decoder.shutdown();
+					if (error != null) {
+						System.err.println("[WARN] Sprite preload failed: " + error);
+					}
+					// anything not packed by now gets its own image or a placeholder
+					for (Map.Entry<String, CompletableFuture<BufferedImage>> entry : decoding.entrySet()) {
+						CompletableFuture<Sprite> future = pending.get(entry.getKey());
+						if (!future.isDone()) {
+							BufferedImage image = entry.getValue().isCompletedExceptionally() ? null : entry.getValue().getNow(null);
+							future.complete(standalone(entry.getKey(), image));
+						}
+					}
+				});
+
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Preload the default manifest unless some preload has been started.
+	 * Holding the lock until its futures are registered means nobody
+	 * decodes a manifest sprite a second time meanwhile.
+	 */
+	private synchronized void ensurePreloaded() {
+		if (!preloadStarted) {
+			preload(SpriteAtlas.MANIFEST);
+		}
+	}
+
+	/**
+	 * @return How long decoding each sprite took in nanoseconds, by reference
+	 */
+	public Map<String, Long> getLoadTimes() {
+		return Collections.unmodifiableMap(new HashMap<>(loadNanos));
+	}
+
+	/**
+	 * Pack what preload() decoded and hand out the regions
+	 */
+	private void packDecoded(Map<String, CompletableFuture<BufferedImage>> decoding, long start) {
+		Map<String, BufferedImage> images = new LinkedHashMap<>();
+		for (Map.Entry<String, CompletableFuture<BufferedImage>> entry : decoding.entrySet()) {
+			BufferedImage image = entry.getValue().join();
+			if (image != null) {
+				images.put(entry.getKey(), image);
+			}
+		}
+
+		synchronized (this) {
+			if (atlas == null) {
+				try {
+					atlas = SpriteAtlas.pack(images);
+				} catch (IOException e) {
+					System.err.println("[WARN] Sprite atlas not used: " + e.getMessage());
+				}
+			} else {
+				for (Map.Entry<String, BufferedImage> entry : images.entrySet()) {
+					atlas.add(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+
+		for (String ref : images.keySet()) {
+			Sprite packed = atlas == null ? null : atlas.get(ref);
+			if (packed != null) {
+				sprites.putIfAbsent(ref, packed);
+				pending.get(ref).complete(sprites.get(ref));
+			}
+		}
+
+		long slowest = 0;
+		String slowestRef = null;
+		for (String ref : decoding.keySet()) {
+			Long nanos = loadNanos.get(ref);
+			if (nanos != null && nanos > slowest) {
+				slowest = nanos;
+				slowestRef = ref;
+			}
+		}
+		System.out.println(String.format("[INFO] Preloaded %d sprites in %.1f ms (slowest %s, %.1f ms)",
+				images.size(), (System.nanoTime() - start) / 1e6, slowestRef, slowest / 1e6));
+	}
+
+	/**
+	 * Decode one sprite, timing it
+	 *
+	 * @return The image, or null if it can't be read
+	 */
+	private BufferedImage decode(String ref) {
+		long start = System.nanoTime();
 		try {
-			// The ClassLoader.getResource() ensures we get the sprite
-			// from the appropriate place, this helps with deploying the game
-			// with things like webstart. You could equally do a file look
-			// up here.
 			URL url = this.getClass().getClassLoader().getResource(ref);
-			
 			if (url == null) {
-				fail("Can't find ref: "+ref);
+				System.err.println("[WARN] Can't find ref: " + ref);
+				return null;
 			}
-			
-			// use ImageIO to read the image in
-			sourceImage = ImageIO.read(url);
+			BufferedImage image = ImageIO.read(url);
+			if (image == null) {
+				System.err.println("[WARN] No reader for: " + ref);
+			}
+			return image;
 		} catch (IOException e) {
-			fail("Failed to load: "+ref);
+			System.err.println("[WARN] Failed to load: " + ref + " (" + e.getMessage() + ")");
+			return null;
+		} finally {
+			loadNanos.put(ref, System.nanoTime() - start);
 		}
-		
-		// create an accelerated image of the right size to store our sprite in
+	}
+
+	/**
+	 * A sprite of its own image for one that didn't make it into the atlas
+	 *
+	 * @param image The decoded image, null if it couldn't be
+	 */
+	private Sprite standalone(String ref, BufferedImage image) {
+		Sprite sprite = image == null ? fallback(ref) : new Sprite(accelerate(image));
+		Sprite existing = sprites.putIfAbsent(ref, sprite);
+		return existing != null ? existing : sprite;
+	}
+
+	/**
+	 * Load a sprite that isn't in any manifest
+	 */
+	private Sprite loadImage(String ref) {
+		BufferedImage sourceImage = decode(ref);
+		if (sourceImage == null) {
+			return fallback(ref);
+		}
+		return new Sprite(accelerate(sourceImage));
+	}
+
+	/**
+	 * Copy an image into an accelerated image of the right size
+	 */
+	private static Image accelerate(BufferedImage sourceImage) {
 		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
 		Image image = gc.createCompatibleImage(sourceImage.getWidth(),sourceImage.getHeight(),Transparency.BITMASK);
-		
+
 		// draw our source image into the accelerated image
-		image.getGraphics().drawImage(sourceImage,0,0,null);
-		
-		// create a sprite, add it the cache then return it
-		Sprite sprite = new Sprite(image);
-		sprites.put(ref,sprite);
-		
-		return sprite;
+		Graphics2D g = (Graphics2D) image.getGraphics();
+		g.drawImage(sourceImage,0,0,null);
+		g.dispose();
+		return image;
+	}
+
+	/**
+	 * Create a sprite holding only the dimensions of an image
+	 *
+	 * @param ref The reference to the image
+	 * @return A sprite that draws nothing
+	 */
+	private Sprite loadSize(String ref) {
+		URL url = this.getClass().getClassLoader().getResource(ref);
+		if (url == null) {
+			System.err.println("[WARN] Can't find ref: " + ref);
+			return fallback(ref);
+		}
+
+		try (ImageInputStream in = ImageIO.createImageInputStream(url.openStream())) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext()) {
+				System.err.println("[WARN] No reader for: " + ref);
+				return fallback(ref);
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in);
+				return new Sprite(reader.getWidth(0),reader.getHeight(0));
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException e) {
+			System.err.println("[WARN] Failed to load: " + ref + " (" + e.getMessage() + ")");
+			return fallback(ref);
+		}
+	}
+
+	/**
+	 * A placeholder for a sprite that can't be loaded, so a missing file
+	 * shows up as a magenta square instead of ending the game
+	 *
+	 * @param ref The reference that failed, for the log
+	 * @return The placeholder
+	 */
+	private static Sprite fallback(String ref) {
+		System.err.println("[WARN] Using a placeholder for " + ref);
+		if (GraphicsEnvironment.isHeadless()) {
+			return new Sprite(FALLBACK_SIZE, FALLBACK_SIZE);
+		}
+
+		BufferedImage image = new BufferedImage(FALLBACK_SIZE, FALLBACK_SIZE, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.MAGENTA);
+		g.fillRect(0, 0, FALLBACK_SIZE, FALLBACK_SIZE);
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, FALLBACK_SIZE / 2, FALLBACK_SIZE / 2);
+		g.fillRect(FALLBACK_SIZE / 2, FALLBACK_SIZE / 2, FALLBACK_SIZE / 2, FALLBACK_SIZE / 2);
+		g.dispose();
+		return new Sprite(accelerate(image));
 	}
-	
+
 	/**
-	 * Utility method to handle resource loading failure
-	 * 
-	 * @param message The message to display on failure
+	 * Daemon threads, so a preload never keeps the JVM alive
 	 */
-	private void fail(String message) {
-		// we're pretty dramatic here, if a resource isn't available
-		// we dump the message and exit the game
-		System.err.println(message);
-		System.exit(0);
+	private static class DecodeThreadFactory implements java.util.concurrent.ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Sprite-Decode-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
 	}
-}
\ No newline at end of file
+}
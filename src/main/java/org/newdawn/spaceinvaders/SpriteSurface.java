@@ -0,0 +1,159 @@
+package org.newdawn.spaceinvaders;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pixels of a sprite sheet kept in video memory as a VolatileImage
+ * where the pipeline supports it. A volatile image can lose its contents
+ * at any time (mode switch, screen lock, another full screen app), so
+ * the source pixels are kept and validate() - called once per frame on
+ * the drawing thread - redraws them whenever that happens.
+ * <p>
+ * Where no accelerated volatile image can be had, or with
+ * -Dspaceinvaders.volatileSprites=false, the managed source image is
+ * drawn instead and Java2D decides whether to cache it. The static
+ * counters tell which of the two a machine actually ends up using.
+ */
+public class SpriteSurface {
+	/** System property turning the VolatileImage path off */
+	public static final String PROP_VOLATILE = "spaceinvaders.volatileSprites";
+	private static final boolean VOLATILE_ENABLED =
+			Boolean.parseBoolean(System.getProperty(PROP_VOLATILE, "true"));
+
+	/** Frames a surface was drawn from an accelerated volatile image */
+	private static final AtomicLong acceleratedFrames = new AtomicLong();
+	/** Frames a surface was drawn from the managed image instead */
+	private static final AtomicLong softwareFrames = new AtomicLong();
+	/** Times a volatile image had to be redrawn after losing its contents */
+	private static final AtomicLong restores = new AtomicLong();
+
+	/** The pixels, also what is drawn when there is no volatile image */
+	private final BufferedImage source;
+	/** The copy in video memory, null until validated or if unavailable */
+	private VolatileImage surface;
+	/** True if the source changed since the volatile copy was drawn */
+	private boolean dirty = true;
+	/** True once creating an accelerated volatile image has failed */
+	private boolean unavailable = !VOLATILE_ENABLED || GraphicsEnvironment.isHeadless();
+	/** What sprites draw from right now */
+	private volatile Image current;
+
+	/**
+	 * @param source The pixels of the surface, later changes must be
+	 * made through edit()
+	 */
+	public SpriteSurface(BufferedImage source) {
+		this.source = source;
+		this.current = source;
+	}
+
+	/**
+	 * @return The image to draw from until the next validate()
+	 */
+	public Image getImage() {
+		return current;
+	}
+
+	/**
+	 * @return The source pixels, locked with edit()
+	 */
+	BufferedImage getSource() {
+		return source;
+	}
+
+	/**
+	 * Start changing the source pixels. The volatile copy is redrawn at
+	 * the next validate().
+	 *
+	 * @return A graphics context onto the source, dispose it when done
+	 */
+	public synchronized Graphics2D edit() {
+		dirty = true;
+		return source.createGraphics();
+	}
+
+	/**
+	 * Make sure the volatile copy is usable for drawing with the given
+	 * configuration, (re)creating or redrawing it as needed. Call it
+	 * once per frame before drawing any sprite of this surface.
+	 *
+	 * @param gc The configuration of the surface being drawn onto
+	 */
+	public synchronized void validate(GraphicsConfiguration gc) {
+		if (unavailable || gc == null) {
+			softwareFrames.incrementAndGet();
+			return;
+		}
+
+		int state = surface == null ? VolatileImage.IMAGE_INCOMPATIBLE : surface.validate(gc);
+		if (state == VolatileImage.IMAGE_INCOMPATIBLE) {
+			if (surface != null) {
+				surface.flush();
+			}
+			surface = gc.createCompatibleVolatileImage(source.getWidth(), source.getHeight(), Transparency.TRANSLUCENT);
+			if (surface == null || !surface.getCapabilities().isAccelerated()) {
+				fallBack();
+				return;
+			}
+			dirty = true;
+		} else if (state == VolatileImage.IMAGE_RESTORED) {
+			restores.incrementAndGet();
+			dirty = true;
+		}
+
+		if (dirty) {
+			render();
+			// lost again while drawing, try again next frame
+			if (surface.contentsLost()) {
+				restores.incrementAndGet();
+				current = source;
+				softwareFrames.incrementAndGet();
+				return;
+			}
+			dirty = false;
+		}
+		current = surface;
+		acceleratedFrames.incrementAndGet();
+	}
+
+	private void render() {
+		Graphics2D g = surface.createGraphics();
+		try {
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(source, 0, 0, null);
+		} finally {
+			g.dispose();
+		}
+	}
+
+	private void fallBack() {
+		if (surface != null) {
+			surface.flush();
+			surface = null;
+		}
+		unavailable = true;
+		current = source;
+		softwareFrames.incrementAndGet();
+		System.out.println("[INFO] No accelerated VolatileImage, sprites are drawn from managed images");
+	}
+
+	public static long getAcceleratedFrames() {
+		return acceleratedFrames.get();
+	}
+
+	public static long getSoftwareFrames() {
+		return softwareFrames.get();
+	}
+
+	public static long getRestores() {
+		return restores.get();
+	}
+}
@@ -0,0 +1,34 @@
+package org.newdawn.spaceinvaders.collision;
+
+import java.util.List;
+
+import org.newdawn.spaceinvaders.entity.Entity;
+
+/**
+ * The original O(n²) pair scan - every entity is checked against every
+ * other one the layer matrix allows. Kept as the reference implementation
+ * for comparisons.
+ */
+public class BruteForceCollisionDetector implements CollisionDetector {
+    @Override
+    public void detectCollisions(List<Entity> entities) {
+        for (int p = 0; p < entities.size(); p++) {
+            for (int s = p + 1; s < entities.size(); s++) {
+                Entity me = entities.get(p);
+                Entity him = entities.get(s);
+                if (!me.getCollisionLayer().canCollideWith(him.getCollisionLayer())) {
+                    continue;
+                }
+                if (me.collidesWith(him)) {
+                    me.collidedWith(him);
+                    him.collidedWith(me);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "bruteforce";
+    }
+}
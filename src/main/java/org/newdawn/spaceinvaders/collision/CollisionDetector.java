@@ -0,0 +1,25 @@
+package org.newdawn.spaceinvaders.collision;
+
+import java.util.List;
+
+import org.newdawn.spaceinvaders.entity.Entity;
+
+/**
+ * Strategy Pattern 적용 - 충돌 검사 방식(전수 비교 / 공간 해시)을 교체 가능하게 분리
+ *
+ * Implementations must keep the Entity contract: every pair that
+ * collidesWith() is reported exactly once, to both entities, with the
+ * entity that appears first in the list acting as "me".
+ */
+public interface CollisionDetector {
+    /**
+     * Find every colliding pair in the list and notify both entities
+     * @param entities 현재 게임의 엔티티 목록
+     */
+    void detectCollisions(List<Entity> entities);
+
+    /**
+     * 충돌 검사 방식 이름
+     */
+    String getName();
+}
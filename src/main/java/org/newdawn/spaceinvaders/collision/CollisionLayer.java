@@ -0,0 +1,65 @@
+package org.newdawn.spaceinvaders.collision;
+
+/**
+ * Collision layers and the matrix of layers that may interact.
+ * <p>
+ * Each entity class reports its layer through Entity.getCollisionLayer();
+ * the detectors drop any pair whose layers are not allowed below before
+ * doing the rectangle test. A new entity type only needs to return one of
+ * these layers (or add a layer and a line to the matrix) - Game does not
+ * change.
+ */
+public enum CollisionLayer {
+    /** Unclassified entities are tested against everything, as before layers existed */
+    DEFAULT,
+    /** A player's ship */
+    SHIP,
+    /** A shot fired by a player */
+    PLAYER_SHOT,
+    /** A shot fired by an alien */
+    ENEMY_SHOT,
+    /** Any alien, including the boss */
+    ALIEN;
+
+    /** Bits of the layers this layer collides with */
+    private int mask;
+
+    static {
+        // 충돌 매트릭스 - 여기에 선언된 쌍만 검사한다
+        allow(SHIP, ALIEN);
+        allow(SHIP, ENEMY_SHOT);
+        allow(PLAYER_SHOT, ALIEN);
+        for (CollisionLayer layer : values()) {
+            allow(DEFAULT, layer);
+        }
+    }
+
+    private static void allow(CollisionLayer a, CollisionLayer b) {
+        a.mask |= b.bit();
+        b.mask |= a.bit();
+    }
+
+    /**
+     * @return The single bit identifying this layer
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @return The bits of every layer this layer may collide with
+     */
+    public int mask() {
+        return mask;
+    }
+
+    /**
+     * Check the matrix for a pair of layers. The matrix is symmetric.
+     *
+     * @param other The layer of the other entity
+     * @return True if entities on these layers need a collision test
+     */
+    public boolean canCollideWith(CollisionLayer other) {
+        return (mask & other.bit()) != 0;
+    }
+}
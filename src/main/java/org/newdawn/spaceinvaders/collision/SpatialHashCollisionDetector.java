@@ -0,0 +1,97 @@
+package org.newdawn.spaceinvaders.collision;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.newdawn.spaceinvaders.entity.Entity;
+
+/**
+ * Broad phase backed by a {@link SpatialHashGrid}. The grid is rebuilt from
+ * the entity bounds on every call and only entities sharing a cell whose
+ * collision layers may interact are handed to the usual
+ * collidesWith/collidedWith narrow phase.
+ */
+public class SpatialHashCollisionDetector implements CollisionDetector {
+    /** Roughly two alien sprites wide */
+    public static final int DEFAULT_CELL_SIZE = 64;
+
+    private final SpatialHashGrid grid;
+    private Entity[] items = new Entity[0];
+    private int[] boundsX = new int[0];
+    private int[] boundsY = new int[0];
+    private int[] boundsW = new int[0];
+    private int[] boundsH = new int[0];
+    private int[] layerBit = new int[0];
+    private int[] layerMask = new int[0];
+    private int[] candidates = new int[0];
+
+    public SpatialHashCollisionDetector() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public SpatialHashCollisionDetector(int cellSize) {
+        this.grid = new SpatialHashGrid(cellSize);
+    }
+
+    @Override
+    public void detectCollisions(List<Entity> entities) {
+        int count = entities.size();
+        ensureCapacity(count);
+
+        for (int i = 0; i < count; i++) {
+            Entity entity = entities.get(i);
+            items[i] = entity;
+            boundsX[i] = entity.getX();
+            boundsY[i] = entity.getY();
+            boundsW[i] = entity.getWidth();
+            boundsH[i] = entity.getHeight();
+            CollisionLayer layer = entity.getCollisionLayer();
+            layerBit[i] = layer.bit();
+            layerMask[i] = layer.mask();
+        }
+        grid.build(boundsX, boundsY, boundsW, boundsH, count);
+
+        try {
+            for (int p = 0; p < count; p++) {
+                if (layerMask[p] == 0) continue;
+                int found = grid.candidatesFor(p, candidates);
+                for (int k = 0; k < found; k++) {
+                    int s = candidates[k];
+                    if ((layerMask[p] & layerBit[s]) == 0) continue;
+
+                    // a collision can end the stage and clear the list,
+                    // in which case the remaining pairs are stale
+                    if (entities.size() != count) {
+                        return;
+                    }
+                    Entity me = items[p];
+                    Entity him = items[s];
+                    if (me.collidesWith(him)) {
+                        me.collidedWith(him);
+                        him.collidedWith(me);
+                    }
+                }
+            }
+        } finally {
+            Arrays.fill(items, 0, count, null);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "spatialhash";
+    }
+
+    private void ensureCapacity(int count) {
+        if (items.length >= count) return;
+        int size = Math.max(count, items.length * 2);
+        items = new Entity[size];
+        boundsX = new int[size];
+        boundsY = new int[size];
+        boundsW = new int[size];
+        boundsH = new int[size];
+        layerBit = new int[size];
+        layerMask = new int[size];
+        candidates = new int[size];
+    }
+}
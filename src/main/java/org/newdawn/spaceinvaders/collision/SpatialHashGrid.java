@@ -0,0 +1,172 @@
+package org.newdawn.spaceinvaders.collision;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid hashed into a flat bucket table. Items are identified by
+ * their index in the bounds arrays passed to {@link #build}; the grid is
+ * rebuilt from scratch every tick, which for a few hundred moving items is
+ * cheaper than tracking cell changes.
+ * <p>
+ * Buckets are filled with a counting sort, so after warm-up a rebuild does
+ * not allocate. Two different cells may hash into the same bucket; that only
+ * produces extra candidates, the narrow phase still decides the real overlap.
+ */
+public final class SpatialHashGrid {
+    private static final int MIN_BUCKETS = 16;
+
+    private final int cellSize;
+
+    /** Cell range covered by each item (inclusive) */
+    private int[] cellMinX = new int[0];
+    private int[] cellMinY = new int[0];
+    private int[] cellMaxX = new int[0];
+    private int[] cellMaxY = new int[0];
+    /** Visit stamp per item, used to de-duplicate candidates */
+    private int[] mark = new int[0];
+    private int stamp;
+    private int itemCount;
+
+    /** bucketStart[b]..bucketStart[b+1] indexes the items of bucket b in bucketItems */
+    private int[] bucketStart = new int[MIN_BUCKETS + 1];
+    private int[] bucketCursor = new int[MIN_BUCKETS];
+    private int[] bucketItems = new int[0];
+    private int[] entryBucket = new int[0];
+    private int[] entryItem = new int[0];
+    private int bucketMask = MIN_BUCKETS - 1;
+
+    /**
+     * @param cellSize The edge length of a grid cell in pixels
+     */
+    public SpatialHashGrid(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Rebuild the grid from the given bounds. Items are inserted in index
+     * order, so every bucket lists its items in ascending order.
+     *
+     * @param x The left edge of each item
+     * @param y The top edge of each item
+     * @param w The width of each item
+     * @param h The height of each item
+     * @param count The number of items to take from the arrays
+     */
+    public void build(int[] x, int[] y, int[] w, int[] h, int count) {
+        ensureItemCapacity(count);
+        itemCount = count;
+
+        int entries = 0;
+        for (int i = 0; i < count; i++) {
+            cellMinX[i] = Math.floorDiv(x[i], cellSize);
+            cellMinY[i] = Math.floorDiv(y[i], cellSize);
+            cellMaxX[i] = Math.floorDiv(x[i] + Math.max(1, w[i]) - 1, cellSize);
+            cellMaxY[i] = Math.floorDiv(y[i] + Math.max(1, h[i]) - 1, cellSize);
+            entries += (cellMaxX[i] - cellMinX[i] + 1) * (cellMaxY[i] - cellMinY[i] + 1);
+        }
+
+        resizeBuckets(entries);
+        ensureEntryCapacity(entries);
+        Arrays.fill(bucketStart, 0);
+
+        int e = 0;
+        for (int i = 0; i < count; i++) {
+            for (int cy = cellMinY[i]; cy <= cellMaxY[i]; cy++) {
+                for (int cx = cellMinX[i]; cx <= cellMaxX[i]; cx++) {
+                    int b = bucketOf(cx, cy);
+                    entryBucket[e] = b;
+                    entryItem[e] = i;
+                    bucketStart[b + 1]++;
+                    e++;
+                }
+            }
+        }
+
+        int buckets = bucketMask + 1;
+        for (int b = 0; b < buckets; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        System.arraycopy(bucketStart, 0, bucketCursor, 0, buckets);
+        for (int i = 0; i < entries; i++) {
+            bucketItems[bucketCursor[entryBucket[i]]++] = entryItem[i];
+        }
+    }
+
+    /**
+     * Collect the items that share at least one cell with the given item and
+     * come after it in index order. Each candidate is reported once and the
+     * result is sorted ascending.
+     *
+     * @param item The item to find neighbours for
+     * @param out Receives the candidate indices, must hold at least {@code count} entries
+     * @return The number of candidates written to {@code out}
+     */
+    public int candidatesFor(int item, int[] out) {
+        if (++stamp == 0) {
+            Arrays.fill(mark, 0, itemCount, 0);
+            stamp = 1;
+        }
+        mark[item] = stamp;
+
+        int found = 0;
+        for (int cy = cellMinY[item]; cy <= cellMaxY[item]; cy++) {
+            for (int cx = cellMinX[item]; cx <= cellMaxX[item]; cx++) {
+                int b = bucketOf(cx, cy);
+                for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+                    int other = bucketItems[k];
+                    if (other > item && mark[other] != stamp) {
+                        mark[other] = stamp;
+                        out[found++] = other;
+                    }
+                }
+            }
+        }
+
+        if (found > 1) {
+            Arrays.sort(out, 0, found);
+        }
+        return found;
+    }
+
+    private int bucketOf(int cx, int cy) {
+        return ((cx * 73856093) ^ (cy * 19349663)) & bucketMask;
+    }
+
+    private void resizeBuckets(int entries) {
+        int wanted = MIN_BUCKETS;
+        while (wanted < entries * 2 && wanted < (1 << 30)) {
+            wanted <<= 1;
+        }
+        if (wanted > bucketMask + 1) {
+            bucketMask = wanted - 1;
+            bucketStart = new int[wanted + 1];
+            bucketCursor = new int[wanted];
+        }
+    }
+
+    private void ensureItemCapacity(int count) {
+        if (cellMinX.length >= count) return;
+        int size = Math.max(count, cellMinX.length * 2);
+        cellMinX = new int[size];
+        cellMinY = new int[size];
+        cellMaxX = new int[size];
+        cellMaxY = new int[size];
+        mark = new int[size];
+        stamp = 0;
+    }
+
+    private void ensureEntryCapacity(int entries) {
+        if (entryItem.length >= entries) return;
+        int size = Math.max(entries, entryItem.length * 2);
+        entryBucket = new int[size];
+        entryItem = new int[size];
+        bucketItems = new int[size];
+    }
+}
@@ -0,0 +1,149 @@
+package org.newdawn.spaceinvaders.engine;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.newdawn.spaceinvaders.entity.AlienEntity.AlienType;
+
+/**
+ * The outcome of a batch of simulated games of one stage
+ */
+public class BatchResult {
+	/**
+	 * The outcome of a single game
+	 */
+	public static class Run {
+		private final long seed;
+		private final boolean cleared;
+		private final boolean died;
+		private final int score;
+		private final long timeMillis;
+		private final AlienType killedBy;
+
+		Run(long seed, boolean cleared, boolean died, int score, long timeMillis, AlienType killedBy) {
+			this.seed = seed;
+			this.cleared = cleared;
+			this.died = died;
+			this.score = score;
+			this.timeMillis = timeMillis;
+			this.killedBy = killedBy;
+		}
+
+		/** @return The seed the game was played with, to replay it */
+		public long getSeed() {
+			return seed;
+		}
+
+		public boolean isCleared() {
+			return cleared;
+		}
+
+		public boolean isDied() {
+			return died;
+		}
+
+		/** @return The score when the stage ended */
+		public int getScore() {
+			return score;
+		}
+
+		/** @return Simulation time until the stage ended or the time limit (ms) */
+		public long getTimeMillis() {
+			return timeMillis;
+		}
+
+		/** @return The alien type that killed the player, null if the player survived */
+		public AlienType getKilledBy() {
+			return killedBy;
+		}
+	}
+
+	private final List<Run> runs;
+	private final int clears;
+	private final int deaths;
+	private final double averageScore;
+	private final double averageTimeToClear;
+	private final Map<AlienType, Integer> deathsByType = new EnumMap<>(AlienType.class);
+	private final long wallNanos;
+
+	BatchResult(List<Run> runs, long wallNanos) {
+		this.runs = Collections.unmodifiableList(runs);
+		this.wallNanos = wallNanos;
+
+		int cleared = 0;
+		int died = 0;
+		long scoreSum = 0;
+		long clearTimeSum = 0;
+		for (Run run : runs) {
+			scoreSum += run.score;
+			if (run.cleared) {
+				cleared++;
+				clearTimeSum += run.timeMillis;
+			}
+			if (run.died) {
+				died++;
+				if (run.killedBy != null) {
+					deathsByType.merge(run.killedBy, 1, Integer::sum);
+				}
+			}
+		}
+		this.clears = cleared;
+		this.deaths = died;
+		this.averageScore = runs.isEmpty() ? 0 : (double) scoreSum / runs.size();
+		this.averageTimeToClear = cleared == 0 ? 0 : (double) clearTimeSum / cleared;
+	}
+
+	/** @return Every game in seed order */
+	public List<Run> getRuns() {
+		return runs;
+	}
+
+	public int getGames() {
+		return runs.size();
+	}
+
+	public int getClears() {
+		return clears;
+	}
+
+	public int getDeaths() {
+		return deaths;
+	}
+
+	/** @return Games that neither cleared the stage nor died within the time limit */
+	public int getTimeouts() {
+		return runs.size() - clears - deaths;
+	}
+
+	/** @return Share of the games that cleared the stage, 0 to 1 */
+	public double getClearRate() {
+		return runs.isEmpty() ? 0 : (double) clears / runs.size();
+	}
+
+	public double getAverageScore() {
+		return averageScore;
+	}
+
+	/** @return Average simulation time of the cleared games (ms) */
+	public double getAverageTimeToClear() {
+		return averageTimeToClear;
+	}
+
+	/** @return The number of deaths caused by each alien type, read-only */
+	public Map<AlienType, Integer> getDeathsByType() {
+		return Collections.unmodifiableMap(deathsByType);
+	}
+
+	/** @return Real time the batch took (ms) */
+	public long getWallMillis() {
+		return wallNanos / 1_000_000L;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("games=%d clearRate=%.3f avgScore=%.1f avgTimeToClear=%.0fms deaths=%d %s timeouts=%d wall=%dms",
+				getGames(), getClearRate(), averageScore, averageTimeToClear, deaths, deathsByType, getTimeouts(), getWallMillis());
+	}
+}
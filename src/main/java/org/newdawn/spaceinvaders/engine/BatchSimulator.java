@@ -0,0 +1,179 @@
+package org.newdawn.spaceinvaders.engine;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.newdawn.spaceinvaders.entity.AlienEntity.AlienType;
+
+/**
+ * Plays many seeded games of one stage in parallel, as fast as the CPU
+ * allows, and aggregates the outcome. Meant for tuning stage layouts and
+ * the enemy fire rate, e.g.
+ * <pre>
+ * java -Djava.awt.headless=true -cp ... org.newdawn.spaceinvaders.engine.BatchSimulator 4 10000 42 900
+ * </pre>
+ * Every game gets its own world and bot. The seed of each game is drawn
+ * from the batch seed up front, so the results do not depend on the
+ * number of threads.
+ */
+public class BatchSimulator {
+	private final int stage;
+	private final Supplier<? extends BotPolicy> bots;
+	/** Simulation tick length (ms), the same as the default 100 Hz game loop */
+	private long tickMillis = 10;
+	/** Games still running after this much simulation time count as timeouts (ms) */
+	private long timeLimitMillis = 10 * 60 * 1000;
+	private long enemyFiringInterval = GameWorld.DEFAULT_ENEMY_FIRING_INTERVAL;
+	private StageLayout layout;
+	private boolean twoPlayer;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * @param stage The stage every game is played on
+	 * @param bots Creates a fresh bot for each player of each game
+	 */
+	public BatchSimulator(int stage, Supplier<? extends BotPolicy> bots) {
+		this.stage = stage;
+		this.bots = bots;
+	}
+
+	public void setTickMillis(long tickMillis) {
+		this.tickMillis = tickMillis;
+	}
+
+	public void setTimeLimitMillis(long timeLimitMillis) {
+		this.timeLimitMillis = timeLimitMillis;
+	}
+
+	public void setEnemyFiringInterval(long enemyFiringInterval) {
+		this.enemyFiringInterval = enemyFiringInterval;
+	}
+
+	/**
+	 * @param layout The formation to play instead of the default one, null for the default
+	 */
+	public void setStageLayout(StageLayout layout) {
+		this.layout = layout;
+	}
+
+	public void setTwoPlayer(boolean twoPlayer) {
+		this.twoPlayer = twoPlayer;
+	}
+
+	/**
+	 * @param parallelism The number of games played at once
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Play a batch of games
+	 *
+	 * @param games The number of games
+	 * @param seed The batch seed, the same seed gives the same results
+	 * @return The aggregated outcome
+	 */
+	public BatchResult run(int games, long seed) {
+		SplittableRandom seeds = new SplittableRandom(seed);
+		long[] runSeeds = LongStream.generate(seeds::nextLong).limit(games).toArray();
+
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<BatchResult.Run> runs = pool.submit(() -> LongStream.of(runSeeds)
+					.parallel()
+					.mapToObj(this::play)
+					.collect(Collectors.toList())).get();
+			return new BatchResult(runs, System.nanoTime() - start);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("batch interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("simulated game failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Play a single game until the stage is cleared, the players die or
+	 * the time limit is reached
+	 *
+	 * @param seed The seed of the game
+	 * @return The outcome
+	 */
+	public BatchResult.Run play(long seed) {
+		Outcome outcome = new Outcome();
+		GameWorld world = new GameWorld(outcome);
+		world.setSeed(seed);
+		world.setEnemyFiringInterval(enemyFiringInterval);
+		world.setStageLayout(stage, layout);
+		world.startStage(stage, twoPlayer);
+
+		BotPolicy bot = bots.get();
+		BotPolicy bot2 = twoPlayer ? bots.get() : null;
+		while (!outcome.over && world.getTime() < timeLimitMillis) {
+			bot.control(world, 0);
+			if (bot2 != null) {
+				bot2.control(world, 1);
+			}
+			world.tick(tickMillis);
+		}
+
+		return new BatchResult.Run(seed, outcome.cleared, outcome.died, outcome.score, world.getTime(), outcome.killedBy);
+	}
+
+	/**
+	 * Records how a game ended, the world resets its score right after
+	 */
+	private static class Outcome implements WorldListener {
+		private boolean over;
+		private boolean cleared;
+		private boolean died;
+		private int score;
+		private AlienType killedBy;
+
+		@Override
+		public void playerDied(GameWorld world) {
+			if (over) return;
+			over = true;
+			died = true;
+			score = world.getScore();
+			killedBy = world.getKilledBy();
+		}
+
+		@Override
+		public void stageCleared(GameWorld world, boolean finalStage) {
+			if (over) return;
+			over = true;
+			cleared = true;
+			score = world.getScore();
+		}
+	}
+
+	/**
+	 * Run a batch from the command line
+	 *
+	 * @param argv stage, games, [seed], [enemy firing interval ms]
+	 */
+	public static void main(String[] argv) {
+		if (argv.length < 2) {
+			System.err.println("usage: BatchSimulator <stage> <games> [seed] [enemyFiringIntervalMs]");
+			System.exit(1);
+		}
+		System.setProperty("java.awt.headless", "true");
+
+		BatchSimulator simulator = new BatchSimulator(Integer.parseInt(argv[0]), TrackingBot::new);
+		if (argv.length > 3) {
+			simulator.setEnemyFiringInterval(Long.parseLong(argv[3]));
+		}
+		BatchResult result = simulator.run(Integer.parseInt(argv[1]), argv.length > 2 ? Long.parseLong(argv[2]) : 0L);
+		System.out.println(result);
+	}
+}
@@ -0,0 +1,15 @@
+package org.newdawn.spaceinvaders.engine;
+
+/**
+ * Plays a ship in a headless world. Called once before every tick, the
+ * policy looks at the world and sets the input of its player.
+ */
+public interface BotPolicy {
+	/**
+	 * Decide the input for the next tick
+	 *
+	 * @param world The world being played
+	 * @param player 0 for P1, 1 for P2
+	 */
+	void control(GameWorld world, int player);
+}
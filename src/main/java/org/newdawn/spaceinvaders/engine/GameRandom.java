@@ -0,0 +1,71 @@
+package org.newdawn.spaceinvaders.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * All the random draws of one game, derived from a single seed. Every
+ * subsystem gets its own stream split off the seed, so adding a draw in
+ * one place does not shift the numbers seen anywhere else and the seed
+ * alone is enough to replay a game.
+ * <p>
+ * Like the rest of a world this is meant for one thread; parallel games
+ * each have their own.
+ */
+public final class GameRandom {
+	private final long seed;
+	/** Picks the aliens that fire */
+	private final SplittableRandom shooters;
+	/** Picks the alien types of random formations */
+	private final SplittableRandom alienTypes;
+	/** Parent of the per-alien movement streams */
+	private final SplittableRandom movement;
+
+	/**
+	 * @param seed The seed of the game
+	 */
+	public GameRandom(long seed) {
+		this.seed = seed;
+		SplittableRandom root = new SplittableRandom(seed);
+		shooters = root.split();
+		alienTypes = root.split();
+		movement = root.split();
+	}
+
+	/**
+	 * @return A game with a fresh, unpredictable seed
+	 */
+	public static GameRandom unseeded() {
+		return new GameRandom(new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * @return The seed this game was created from
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return The stream used to pick the aliens that fire
+	 */
+	public SplittableRandom shooters() {
+		return shooters;
+	}
+
+	/**
+	 * @return The stream used to pick alien types
+	 */
+	public SplittableRandom alienTypes() {
+		return alienTypes;
+	}
+
+	/**
+	 * Split off a stream for the movement of one alien. The streams are
+	 * handed out in alien creation order.
+	 *
+	 * @return A new independent stream
+	 */
+	public SplittableRandom newMovementStream() {
+		return movement.split();
+	}
+}
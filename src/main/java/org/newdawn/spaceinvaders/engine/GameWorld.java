@@ -0,0 +1,988 @@
+package org.newdawn.spaceinvaders.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.newdawn.spaceinvaders.collision.CollisionDetector;
+import org.newdawn.spaceinvaders.collision.SpatialHashCollisionDetector;
+import org.newdawn.spaceinvaders.entity.AlienEntity;
+import org.newdawn.spaceinvaders.entity.AlienEntity.AlienType;
+import org.newdawn.spaceinvaders.entity.AlienFactory;
+import org.newdawn.spaceinvaders.entity.EnemyShotEntity;
+import org.newdawn.spaceinvaders.entity.Entity;
+import org.newdawn.spaceinvaders.entity.EntityPool;
+import org.newdawn.spaceinvaders.entity.EntityStore;
+import org.newdawn.spaceinvaders.entity.ShipEntity;
+import org.newdawn.spaceinvaders.entity.ShotEntity;
+import org.newdawn.spaceinvaders.items.ItemManager;
+import org.newdawn.spaceinvaders.metrics.FrameProfiler;
+import org.newdawn.spaceinvaders.metrics.FrameProfiler.Phase;
+
+/**
+ * The game simulation without any display: the entity list, stage setup,
+ * scoring, firing and the notifications the entities raise.
+ * <p>
+ * Time only moves through {@link #tick(long)}, so a world can be stepped
+ * as fast as the CPU allows. Entities only need sprite dimensions, which
+ * SpriteStore provides without images under -Djava.awt.headless=true.
+ * Anything outside the simulation (Firebase, screens) is reported to a
+ * {@link WorldListener}.
+ */
+public class GameWorld {
+	/** The last stage of the game */
+	public static final int FINAL_STAGE = 5;
+	/** Base time between enemy volleys (ms) */
+	public static final long DEFAULT_ENEMY_FIRING_INTERVAL = 1200;
+
+	/** Told about deaths and cleared stages */
+	private final WorldListener listener;
+	/** The list of all the entities that exist in our game */
+	private final ArrayList<Entity> entities = new ArrayList<>();
+	/** Read-only view of the entities */
+	private final List<Entity> entityView = Collections.unmodifiableList(entities);
+	/** The entities with logic of their own each tick (Entity.hasTickLogic()), in list order */
+	private final ArrayList<Entity> actors = new ArrayList<>();
+	/** The number of entities flagged dead since the list was last compacted */
+	private int deadCount;
+	/** Primitive array storage for the entity state, null to keep it in the entities themselves */
+	private EntityStore entityStore;
+	/** Recycled player shots */
+	private final EntityPool<ShotEntity> shotPool = new EntityPool<>(() -> new ShotEntity(this, "sprites/shot.gif", 0, 0));
+	/** Recycled enemy shots */
+	private final EntityPool<EnemyShotEntity> enemyShotPool = new EntityPool<>(() -> new EnemyShotEntity(this));
+	/** Finds the colliding entity pairs */
+	private CollisionDetector collisionDetector = new SpatialHashCollisionDetector();
+	/** Times the phases of each tick, null when nobody is looking */
+	private FrameProfiler profiler;
+	/** Creates the aliens of a stage */
+	private final AlienFactory alienFactory = new AlienFactory(this);
+	/** Formations replacing the default ones, by stage */
+	private final Map<Integer, StageLayout> layouts = new HashMap<>();
+	/** Every random draw of the game */
+	private GameRandom random = GameRandom.unseeded();
+	/** The alien type that dealt the last blow to a player, null if none */
+	private AlienType killedBy;
+	/** Item buffs (score multiplier, invincibility), may be null */
+	private ItemManager itemManager;
+
+	// [2P 수정] 플레이어 변수를 P1, P2로 명확히 구분
+	private ShipEntity ship;
+	private ShipEntity ship2;
+	private boolean twoPlayer;
+	/** Per player input: left, right, fire */
+	private final boolean[][] input = new boolean[2][3];
+
+	/** The permanent upgrade levels last applied: attack, health, speed */
+	private final int[] upgradeLevels = new int[3];
+	/** The speed at which the player's ship should move (pixels/sec) */
+	private double moveSpeed = 300;
+	// [2P 수정] 발사 시간과 간격을 플레이어별로 관리하기 위한 배열
+	private final long[] fireStamps = new long[]{Long.MIN_VALUE / 2, Long.MIN_VALUE / 2};
+	/** The interval between our players shot (ms) */
+	private long firingInterval = 500;
+	/** Player health */
+	private int playerMaxHealth = 3;
+	private int playerHealth = playerMaxHealth;
+	private int player2MaxHealth = 3;
+	private int player2Health = player2MaxHealth;
+
+	/** Enemy firing control */
+	private long enemyLastFire = 0;
+	private long enemyFiringInterval = DEFAULT_ENEMY_FIRING_INTERVAL;
+	/** Simulation time since the enemies last considered firing (ms) */
+	private long enemyFireCheckTime;
+	/** The number of aliens left on the screen */
+	private int alienCount;
+	/** Current stage/level (1-5) */
+	private int currentStage = 1;
+	/** Total score */
+	private int score = 0;
+	/** The score of the last finished run or stage */
+	private int finalScore = 0;
+	/** Points per alien kill */
+	private int alienKillPoints = 10;
+
+	/** True if game logic needs to be applied this tick, normally as a result of a game event */
+	private boolean logicRequiredThisLoop = false;
+	/** True while nothing should move (menus, prompts, game over) */
+	private boolean paused;
+	/** Simulation time in milliseconds, the sum of all tick lengths */
+	private long time;
+
+	/**
+	 * @param listener Told about deaths and cleared stages
+	 */
+	public GameWorld(WorldListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Keep the entity state in a structure-of-arrays store. Must be set
+	 * before the first stage is started.
+	 */
+	public void setEntityStore(EntityStore entityStore) {
+		this.entityStore = entityStore;
+	}
+
+	public void setCollisionDetector(CollisionDetector collisionDetector) {
+		this.collisionDetector = collisionDetector;
+	}
+
+	/**
+	 * @param profiler Told how long each phase of a tick took, null for no timing
+	 */
+	public void setProfiler(FrameProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	public void setItemManager(ItemManager itemManager) {
+		this.itemManager = itemManager;
+	}
+
+	/**
+	 * Seed the random choices of the simulation so a run can be repeated.
+	 * Set it before starting a stage.
+	 */
+	public void setSeed(long seed) {
+		random = new GameRandom(seed);
+	}
+
+	/**
+	 * @return The random streams of this game, for entities and factories
+	 */
+	public GameRandom getRandom() {
+		return random;
+	}
+
+	/**
+	 * @return The seed that reproduces this game
+	 */
+	public long getSeed() {
+		return random.getSeed();
+	}
+
+	/**
+	 * @param enemyFiringInterval The base time between enemy volleys (ms), before stage and alien count scaling
+	 */
+	public void setEnemyFiringInterval(long enemyFiringInterval) {
+		this.enemyFiringInterval = enemyFiringInterval;
+	}
+
+	/**
+	 * Replace the formation of a stage, taking effect the next time the stage starts
+	 *
+	 * @param stage The stage to change
+	 * @param layout The new formation, null for the default one
+	 */
+	public void setStageLayout(int stage, StageLayout layout) {
+		if (layout == null) {
+			layouts.remove(stage);
+		} else {
+			layouts.put(stage, layout);
+		}
+	}
+
+	/**
+	 * Apply the permanent shop upgrades to the player stats, resetting
+	 * the players to full health
+	 *
+	 * @param attackLevel Each level shoots 15% faster
+	 * @param healthLevel Each level adds 1 HP
+	 * @param speedLevel Each level moves 12% faster
+	 */
+	public void applyUpgrades(int attackLevel, int healthLevel, int speedLevel) {
+		upgradeLevels[0] = attackLevel;
+		upgradeLevels[1] = healthLevel;
+		upgradeLevels[2] = speedLevel;
+
+		// Apply attack upgrade (연사속도 증가)
+		firingInterval = (long)(500 * Math.pow(0.85, attackLevel));
+
+		// Apply health upgrade (최대 HP 증가)
+		playerMaxHealth = 3 + healthLevel;
+		playerHealth = playerMaxHealth;
+		player2MaxHealth = 3 + healthLevel;
+		player2Health = player2MaxHealth;
+
+		// Apply speed upgrade (이동속도 증가)
+		moveSpeed = 300 * Math.pow(1.12, speedLevel);
+	}
+
+	/**
+	 * Start a fresh stage, this should clear out any old entities and
+	 * create a new set. Stage and score carry over from the last run;
+	 * cooldowns and item buffs do not, so a stage plays the same from
+	 * its seed whenever it is started.
+	 *
+	 * @param stage The stage to play (1-5)
+	 * @param twoPlayer True to add a second ship
+	 */
+	public void startStage(int stage, boolean twoPlayer) {
+		this.currentStage = stage;
+		this.twoPlayer = twoPlayer;
+		enemyLastFire = time;
+		enemyFireCheckTime = 0;
+		Arrays.fill(fireStamps, Long.MIN_VALUE / 2);
+		killedBy = null;
+		if (itemManager != null) {
+			itemManager.clearBuffs();
+		}
+
+		clearEntities();
+		initEntities();
+
+		// blank out any input we might currently have
+		for (boolean[] player : input) {
+			Arrays.fill(player, false);
+		}
+	}
+
+	/**
+	 * Initialise the starting state of the entities (ship and aliens). Each
+	 * entitiy will be added to the overall list of entities in the game.
+	 */
+	private void initEntities() {
+		// 1P
+		ship = new ShipEntity(this,"sprites/ship.gif",370,550);
+		addEntity(ship);
+
+		// 2P(옵션)
+		if (twoPlayer) {
+			// 1P와 약간 떨어뜨려 배치
+			ship2 = new ShipEntity(this,"sprites/ship.gif",370 + 80, 550);
+			addEntity(ship2);
+		} else {
+			ship2 = null; // 안전
+		}
+
+		// 적 생성
+		initAliensForStage(currentStage);
+	}
+
+	/**
+	 * Initialize aliens based on the current stage
+	 * @param stage The current stage (1-5)
+	 */
+	private void initAliensForStage(int stage) {
+		alienCount = 0;
+
+		StageLayout layout = layouts.get(stage);
+		if (layout == null) {
+			layout = StageLayout.defaultFor(stage);
+		}
+		createAlienFormation(layout);
+		if (layout.boss) {
+			// Boss will be added separately
+			createBossAlien();
+		}
+	}
+
+	/**
+	 * Create a formation of aliens
+	 * @param layout The rows, columns and spacing of the formation
+	 */
+	private void createAlienFormation(StageLayout layout) {
+		for (int row = 0; row < layout.rows; row++) {
+			for (int col = 0; col < layout.cols; col++) {
+				int x = layout.startX + (col * layout.spacingX);
+				int y = layout.startY + (row * layout.spacingY);
+
+				// Use AlienFactory to create aliens (Factory Pattern - OCP compliance)
+				AlienEntity alien = layout.rowTypes == null
+						? alienFactory.createAlien(currentStage, row, col, x, y)
+						: alienFactory.createAlien(layout.rowType(row), currentStage, x, y);
+				addEntity(alien);
+				alienCount++;
+			}
+		}
+	}
+
+	/**
+	 * Create boss alien for stage 5
+	 */
+	private void createBossAlien() {
+		// Use AlienFactory to create boss (Factory Pattern - OCP compliance)
+		AlienEntity boss = alienFactory.createBoss(350, 100, currentStage);
+		addEntity(boss);
+		alienCount++;
+	}
+
+	/**
+	 * Set the input of one player for the following ticks
+	 *
+	 * @param player 0 for P1, 1 for P2
+	 */
+	public void setInput(int player, boolean left, boolean right, boolean fire) {
+		input[player][0] = left;
+		input[player][1] = right;
+		input[player][2] = fire;
+	}
+
+	/**
+	 * @param paused True to freeze movement, input and enemy fire
+	 */
+	public void setPaused(boolean paused) {
+		this.paused = paused;
+	}
+
+	/**
+	 * Advance the simulation by one tick
+	 *
+	 * @param delta The tick length in milliseconds
+	 */
+	public void tick(long delta) {
+		long start = profiler == null ? 0 : System.nanoTime();
+		time += delta;
+		handlePlayerInput();
+		updateEnemyFiring(delta);
+		updateEntities(delta, start);
+	}
+
+	/**
+	 * Update and process all game entities
+	 *
+	 * @param start When the tick started, for the profiler
+	 */
+	private void updateEntities(long delta, long start) {
+		if (entityStore != null) {
+			entityStore.storePreviousPositions();
+		} else {
+			for (int i = 0; i < entities.size(); i++) {
+				entities.get(i).storePreviousPosition();
+			}
+		}
+		moveEntitiesIfActive(delta);
+		long t = lap(Phase.MOVE, start);
+		collisionDetector.detectCollisions(entities);
+		t = lap(Phase.COLLISIONS, t);
+		removeDeadEntities();
+		t = lap(Phase.REMOVAL, t);
+		processEntityLogic();
+		lap(Phase.LOGIC, t);
+	}
+
+	private long lap(Phase phase, long start) {
+		return profiler == null ? 0 : profiler.lap(phase, start);
+	}
+
+	private void moveEntitiesIfActive(long delta) {
+		if (paused) return;
+
+		if (entityStore != null) {
+			// only the entities with logic of their own are called, the
+			// store then moves every attached entity in one pass over
+			// its arrays
+			moveAll(actors, delta);
+			entityStore.integrateAll(delta);
+		} else {
+			moveAll(entities, delta);
+		}
+
+		int count = actors.size();
+		for (int i = 0; i < count && i < actors.size(); i++) {
+			actors.get(i).afterMove();
+		}
+	}
+
+	private static void moveAll(List<Entity> list, long delta) {
+		// entities added while moving start moving next tick
+		int count = list.size();
+		for (int i = 0; i < count && i < list.size(); i++) {
+			list.get(i).move(delta);
+		}
+	}
+
+	/**
+	 * Drop the entities flagged dead this tick in a single pass that keeps
+	 * the order of the rest (collision pairs and drawing depend on it)
+	 */
+	private void removeDeadEntities() {
+		if (deadCount == 0) return;
+
+		int kept = 0;
+		for (int i = 0; i < entities.size(); i++) {
+			Entity entity = entities.get(i);
+			if (entity.isDead()) {
+				retireEntity(entity);
+			} else {
+				if (kept != i) {
+					entities.set(kept, entity);
+				}
+				kept++;
+			}
+		}
+		entities.subList(kept, entities.size()).clear();
+
+		kept = 0;
+		for (int i = 0; i < actors.size(); i++) {
+			Entity actor = actors.get(i);
+			if (!actor.isDead()) {
+				actors.set(kept++, actor);
+			}
+		}
+		actors.subList(kept, actors.size()).clear();
+		deadCount = 0;
+	}
+
+	private void processEntityLogic() {
+		if (!logicRequiredThisLoop) return;
+
+		// entities added by the logic itself are left for the next pass
+		int count = entities.size();
+		for (int i = 0; i < count && i < entities.size(); i++) {
+			entities.get(i).doLogic();
+		}
+		logicRequiredThisLoop = false;
+	}
+
+	/**
+	 * Add an entity to the game, keeping its state in the entity store if
+	 * one is in use
+	 */
+	private void addEntity(Entity entity) {
+		if (entityStore != null) {
+			entity.attach(entityStore);
+		}
+		entities.add(entity);
+		if (entity.hasTickLogic()) {
+			actors.add(entity);
+		}
+	}
+
+	/**
+	 * Remove every entity, handing the pooled ones back to their pools
+	 */
+	public void clearEntities() {
+		for (Entity entity : entities) {
+			retireEntity(entity);
+		}
+		entities.clear();
+		actors.clear();
+		deadCount = 0;
+	}
+
+	/**
+	 * Let go of a removed entity: move its state back out of the entity
+	 * store and give shots back to their pool, other entities are left to
+	 * the GC
+	 */
+	private void retireEntity(Entity entity) {
+		entity.detach();
+		if (entity instanceof ShotEntity) {
+			shotPool.release((ShotEntity) entity);
+		} else if (entity instanceof EnemyShotEntity) {
+			enemyShotPool.release((EnemyShotEntity) entity);
+		}
+	}
+
+	/**
+	 * Notification from a game entity that the logic of the game
+	 * should be run at the next opportunity (normally as a result of some
+	 * game event)
+	 */
+	public void updateLogic() {
+		logicRequiredThisLoop = true;
+	}
+
+	/**
+	 * Remove an entity from the game. The entity removed will
+	 * no longer move or be drawn. Removal is deferred to the end of the
+	 * tick and removing the same entity twice has no effect.
+	 *
+	 * @param entity The entity that should be removed
+	 */
+	public void removeEntity(Entity entity) {
+		if (entity.markDead()) {
+			deadCount++;
+		}
+	}
+
+	/**
+	 * Notification that the player is dead (alien reached the bottom or
+	 * ran into a ship, or every ship was shot down)
+	 */
+	public void notifyDeath() {
+		notifyDeath(null);
+	}
+
+	/**
+	 * Notification that the player is dead
+	 *
+	 * @param cause The type of the alien responsible, null if not known
+	 */
+	public void notifyDeath(AlienType cause) {
+		if (cause != null) {
+			killedBy = cause;
+		}
+		finalScore = score;
+		listener.playerDied(this);
+
+		// 점수/체력 초기화
+		score = 0;
+		playerHealth = playerMaxHealth;
+		if (twoPlayer) {
+			player2Health = player2MaxHealth;
+		}
+	}
+
+	/**
+	 * Notification that the last alien of the stage has been killed
+	 */
+	public void notifyWin() {
+		finalScore = score;
+		boolean finalStage = currentStage >= FINAL_STAGE;
+		listener.stageCleared(this, finalStage);
+
+		if (finalStage) {
+			score = 0;
+			currentStage = 1;
+		} else {
+			clearEntities();
+		}
+	}
+
+	/**
+	 * Notification that an alien has been killed
+	 */
+	public void notifyAlienKilled() {
+		notifyAlienKilled(alienKillPoints);
+	}
+
+	/**
+	 * Notification that an alien has been killed with specific score value
+	 * @param alienScore The score value of the killed alien
+	 */
+	public void notifyAlienKilled(int alienScore) {
+		// Add score based on alien type and current stage multiplier
+		double mult = (itemManager != null) ? itemManager.currentScoreMultiplier() : 1.0;
+		score += (int)Math.round(alienScore * currentStage * mult);
+
+		// reduce the alien count, if there are none left, the player has won!
+		alienCount--;
+
+		if (alienCount == 0) {
+			notifyWin();
+		}
+
+		// if there are still some aliens left then they all need to get faster, so
+		// speed up all the existing aliens
+		for (int i=0;i<entities.size();i++) {
+			Entity entity = entities.get(i);
+
+			if (entity instanceof AlienEntity) {
+				// speed up by 2% (more aggressive on higher stages)
+				double speedIncrease = 1.02 + (currentStage * 0.005);
+				entity.setHorizontalMovement(entity.getHorizontalMovement() * speedIncrease);
+			}
+		}
+	}
+
+	/**
+	 * Notification that a boss alien has been killed (worth more points)
+	 */
+	public void notifyBossKilled() {
+		// Boss is worth 10x regular alien points
+		double mult = (itemManager != null) ? itemManager.currentScoreMultiplier() : 1.0;
+		score += (int)Math.round(alienKillPoints * currentStage * 10 * mult);
+		alienCount--;
+
+		if (alienCount == 0) {
+			notifyWin();
+		}
+	}
+
+	/** Notification that a specific player has been hit */
+	public void notifyPlayerHit(ShipEntity player, int damage) {
+		notifyPlayerHit(player, damage, null);
+	}
+
+	/**
+	 * Notification that a specific player has been hit
+	 *
+	 * @param source The type of the alien that fired, null if not known
+	 */
+	public void notifyPlayerHit(ShipEntity player, int damage, AlienType source) {
+		if (shouldIgnoreHit()) {
+			return;
+		}
+		if (source != null) {
+			killedBy = source;
+		}
+
+		applyDamageToPlayer(player, damage);
+		checkGameOverCondition();
+	}
+
+	private boolean shouldIgnoreHit() {
+		return paused || (itemManager != null && itemManager.isInvincible());
+	}
+
+	private void applyDamageToPlayer(ShipEntity player, int damage) {
+		if (player == ship) {
+			applyDamageToPlayer1(damage);
+		} else if (player == ship2) {
+			applyDamageToPlayer2(damage);
+		}
+	}
+
+	private void applyDamageToPlayer1(int damage) {
+		if (playerHealth <= 0) return;
+
+		playerHealth -= Math.max(1, damage);
+		if (playerHealth <= 0) {
+			playerHealth = 0;
+			removeEntity(ship);
+		}
+	}
+
+	private void applyDamageToPlayer2(int damage) {
+		if (player2Health <= 0) return;
+
+		player2Health -= Math.max(1, damage);
+		if (player2Health <= 0) {
+			player2Health = 0;
+			removeEntity(ship2);
+		}
+	}
+
+	private void checkGameOverCondition() {
+		if (twoPlayer) {
+			checkTwoPlayerGameOver();
+		} else {
+			checkSinglePlayerGameOver();
+		}
+	}
+
+	private void checkTwoPlayerGameOver() {
+		if (playerHealth <= 0 && player2Health <= 0) {
+			notifyDeath();
+		}
+	}
+
+	private void checkSinglePlayerGameOver() {
+		if (playerHealth <= 0) {
+			notifyDeath();
+		}
+	}
+
+	/**
+	 * Apply the effect of an item whose use has already been paid for
+	 *
+	 * @param itemId One of the ItemManager ID_* constants
+	 */
+	public void activateItem(String itemId) {
+		if (itemManager == null) {
+			return;
+		}
+		if (itemManager.activate(itemId) == ItemManager.Effect.PLUS_LIFE) {
+			healPlayers(1);
+		}
+	}
+
+	/**
+	 * Give every living player one HP back (the plus-life item)
+	 */
+	public void healPlayers(int amount) {
+		if (playerHealth > 0) {
+			playerHealth = Math.min(playerMaxHealth, playerHealth + amount);
+		}
+
+		if (twoPlayer && player2Health > 0) {
+			player2Health = Math.min(player2MaxHealth, player2Health + amount);
+		}
+	}
+
+	/**
+	 * Handle player input during gameplay
+	 */
+	private void handlePlayerInput() {
+		handlePlayer1Input();
+		handlePlayer2Input();
+	}
+
+	/**
+	 * Handle player 1 input (movement and firing)
+	 */
+	private void handlePlayer1Input() {
+		if (!canPlayerControlShip(ship, playerHealth)) {
+			return;
+		}
+
+		updateShipMovement(ship, input[0][0], input[0][1]);
+
+		if (input[0][2]) {
+			tryToFireFrom(ship, 0);
+		}
+	}
+
+	/**
+	 * Handle player 2 input (movement and firing)
+	 */
+	private void handlePlayer2Input() {
+		if (!canPlayerControlShip(ship2, player2Health)) {
+			return;
+		}
+
+		updateShipMovement(ship2, input[1][0], input[1][1]);
+
+		if (input[1][2]) {
+			tryToFireFrom(ship2, 1);
+		}
+	}
+
+	/**
+	 * Check if player can control the ship
+	 */
+	private boolean canPlayerControlShip(ShipEntity ship, int health) {
+		return ship != null && health > 0 && !paused;
+	}
+
+	/**
+	 * Update ship movement based on key presses
+	 */
+	private void updateShipMovement(ShipEntity ship, boolean leftPressed, boolean rightPressed) {
+		ship.setHorizontalMovement(0);
+		if (leftPressed && !rightPressed) {
+			ship.setHorizontalMovement(-moveSpeed);
+		} else if (rightPressed && !leftPressed) {
+			ship.setHorizontalMovement(moveSpeed);
+		}
+	}
+
+	// 특정 플레이어로부터 사격시도
+	private void tryToFireFrom(Entity shooter, int index) {
+		if (time - fireStamps[index] < firingInterval) return;
+		fireStamps[index] = time;
+
+		ShotEntity shot = shotPool.acquire();
+		shot.reset(shooter.getX() + 10, shooter.getY() - 30);
+		addEntity(shot);
+	}
+
+	/**
+	 * Give the enemies a chance to fire once every second of simulation time
+	 */
+	private void updateEnemyFiring(long delta) {
+		enemyFireCheckTime += delta;
+
+		if (enemyFireCheckTime >= 1000) {
+			enemyFireCheckTime = 0;
+			if (!paused) {
+				handleEnemyFiring();
+			}
+		}
+	}
+
+	/**
+	 * Handle enemy firing with type-specific behaviors and difficulty scaling
+	 */
+	private void handleEnemyFiring() {
+		long adjustedInterval = calculateEnemyFiringInterval();
+
+		if (!canEnemiesFire(adjustedInterval)) {
+			return;
+		}
+
+		List<AlienEntity> shooters = collectAliveAliens();
+		if (shooters.isEmpty()) return;
+
+		List<AlienEntity> selectedShooters = selectShooters(shooters);
+		fireFromSelectedShooters(selectedShooters);
+
+		enemyLastFire = time;
+	}
+
+	private long calculateEnemyFiringInterval() {
+		double stageDifficultyMultiplier = 1.0 - (currentStage * 0.1);
+		double alienCountMultiplier = Math.max(0.5, alienCount / 10.0);
+		long adjustedInterval = (long) (enemyFiringInterval * stageDifficultyMultiplier * alienCountMultiplier);
+		return Math.max(400, adjustedInterval);
+	}
+
+	private boolean canEnemiesFire(long adjustedInterval) {
+		return time - enemyLastFire >= adjustedInterval;
+	}
+
+	private List<AlienEntity> collectAliveAliens() {
+		List<AlienEntity> shooters = new ArrayList<>();
+		for (int i = 0; i < entities.size(); i++) {
+			Entity e = entities.get(i);
+			if (e instanceof AlienEntity) {
+				shooters.add((AlienEntity) e);
+			}
+		}
+		return shooters;
+	}
+
+	private List<AlienEntity> selectShooters(List<AlienEntity> shooters) {
+		SplittableRandom random = this.random.shooters();
+		List<AlienEntity> selectedShooters = new ArrayList<>();
+		for (AlienEntity alien : shooters) {
+			if (random.nextDouble() < (alien.getFiringProbability() / shooters.size())) {
+				selectedShooters.add(alien);
+			}
+		}
+
+		if (selectedShooters.isEmpty()) {
+			selectedShooters.add(shooters.get(random.nextInt(shooters.size())));
+		}
+		return selectedShooters;
+	}
+
+	private void fireFromSelectedShooters(List<AlienEntity> selectedShooters) {
+		for (AlienEntity shooter : selectedShooters) {
+			fireAlienShots(shooter);
+		}
+	}
+
+	/**
+	 * Fire shots from a specific alien based on its type
+	 */
+	private void fireAlienShots(AlienEntity shooter) {
+		AlienType source = shooter.getAlienType();
+		int shotCount = shooter.getShotCount();
+		double spreadAngle = shooter.getShotSpreadAngle();
+		double baseX = shooter.getX() + 10;
+		double baseY = shooter.getY() + 20;
+
+		if (shotCount == 1) {
+			// Single shot straight down
+			fireEnemyShot((int) baseX, (int) baseY, 0, 250, source);
+		} else {
+			// Multi-shot with spread
+			for (int i = 0; i < shotCount; i++) {
+				// Spread shots evenly across the spread angle
+				double startAngle = -spreadAngle / 2;
+				double angleStep = spreadAngle / (shotCount - 1);
+				double angle = startAngle + (angleStep * i);
+
+				// Calculate velocity components
+				double speed = 250;
+				double vx = speed * Math.sin(angle);
+				double vy = speed * Math.cos(angle);
+
+				fireEnemyShot((int) baseX, (int) baseY, vx, vy, source);
+			}
+		}
+	}
+
+	private void fireEnemyShot(int x, int y, double vx, double vy, AlienType source) {
+		EnemyShotEntity shot = enemyShotPool.acquire();
+		shot.reset(x, y, vx, vy, source);
+		addEntity(shot);
+	}
+
+	/**
+	 * @return The entities in drawing order, read-only
+	 */
+	public List<Entity> getEntities() {
+		return entityView;
+	}
+
+	/**
+	 * @return The player shot pool, for checking its hit rate and size
+	 */
+	public EntityPool<ShotEntity> getShotPool() {
+		return shotPool;
+	}
+
+	/**
+	 * @return The enemy shot pool, for checking its hit rate and size
+	 */
+	public EntityPool<EnemyShotEntity> getEnemyShotPool() {
+		return enemyShotPool;
+	}
+
+	public ShipEntity getShip() {
+		return ship;
+	}
+
+	public ShipEntity getShip2() {
+		return ship2;
+	}
+
+	public boolean isTwoPlayer() {
+		return twoPlayer;
+	}
+
+	public int getCurrentStage() {
+		return currentStage;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @param score The score to carry into the next stage
+	 */
+	public void setScore(int score) {
+		this.score = score;
+	}
+
+	public int getFinalScore() {
+		return finalScore;
+	}
+
+	public int getAlienCount() {
+		return alienCount;
+	}
+
+	public int getPlayerHealth() {
+		return playerHealth;
+	}
+
+	public int getPlayerMaxHealth() {
+		return playerMaxHealth;
+	}
+
+	public int getPlayer2Health() {
+		return player2Health;
+	}
+
+	public int getPlayer2MaxHealth() {
+		return player2MaxHealth;
+	}
+
+	/**
+	 * @return The permanent upgrade levels last applied: attack, health, speed
+	 */
+	public int[] getUpgradeLevels() {
+		return upgradeLevels.clone();
+	}
+
+	public CollisionDetector getCollisionDetector() {
+		return collisionDetector;
+	}
+
+	public long getFiringInterval() {
+		return firingInterval;
+	}
+
+	public double getMoveSpeed() {
+		return moveSpeed;
+	}
+
+	/**
+	 * @return Simulation time in milliseconds since the world was created
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * @return The type of the alien that last hurt or killed a player this stage, null if none did
+	 */
+	public AlienType getKilledBy() {
+		return killedBy;
+	}
+}
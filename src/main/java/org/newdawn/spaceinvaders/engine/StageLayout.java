@@ -0,0 +1,94 @@
+package org.newdawn.spaceinvaders.engine;
+
+import org.newdawn.spaceinvaders.entity.AlienEntity.AlienType;
+
+/**
+ * The alien formation of one stage: a grid of aliens, optionally with a
+ * boss. The alien types come from AlienFactory unless the layout names
+ * one type per row.
+ */
+public final class StageLayout {
+	final int rows;
+	final int cols;
+	final int startX;
+	final int startY;
+	final int spacingX;
+	final int spacingY;
+	final boolean boss;
+	/** The type of each row, null to let AlienFactory decide */
+	final AlienType[] rowTypes;
+
+	/**
+	 * @param rows Number of rows
+	 * @param cols Number of columns
+	 * @param startX Starting X position
+	 * @param startY Starting Y position
+	 * @param spacingX Horizontal spacing
+	 * @param spacingY Vertical spacing
+	 * @param boss True to add a boss above the formation
+	 */
+	public StageLayout(int rows, int cols, int startX, int startY, int spacingX, int spacingY, boolean boss) {
+		this(rows, cols, startX, startY, spacingX, spacingY, boss, null);
+	}
+
+	private StageLayout(int rows, int cols, int startX, int startY, int spacingX, int spacingY, boolean boss, AlienType[] rowTypes) {
+		this.rows = rows;
+		this.cols = cols;
+		this.startX = startX;
+		this.startY = startY;
+		this.spacingX = spacingX;
+		this.spacingY = spacingY;
+		this.boss = boss;
+		this.rowTypes = rowTypes;
+	}
+
+	/**
+	 * Get a copy of this layout with a fixed alien type per row
+	 *
+	 * @param types One type per row, the last one is repeated for any further rows
+	 * @return The new layout
+	 */
+	public StageLayout withRowTypes(AlienType... types) {
+		if (types.length == 0) {
+			throw new IllegalArgumentException("at least one row type is needed");
+		}
+		return new StageLayout(rows, cols, startX, startY, spacingX, spacingY, boss, types.clone());
+	}
+
+	AlienType rowType(int row) {
+		return rowTypes[Math.min(row, rowTypes.length - 1)];
+	}
+
+	/**
+	 * @return The number of aliens including the boss
+	 */
+	public int getAlienCount() {
+		return rows * cols + (boss ? 1 : 0);
+	}
+
+	/**
+	 * Get the formation the game ships with
+	 *
+	 * @param stage The stage (1-5), anything else gets the stage 1 formation
+	 * @return The layout of the stage
+	 */
+	public static StageLayout defaultFor(int stage) {
+		switch (stage) {
+			case 2:
+				// Stage 2: 1 BASIC + 1 FAST alien for testing
+				return new StageLayout(1, 2, 300, 100, 100, 30, false);
+			case 3:
+				// Stage 3: 3 different types for testing
+				return new StageLayout(2, 2, 250, 80, 150, 40, false);
+			case 4:
+				// Stage 4: All 4 types for testing (includes SPECIAL teleport)
+				return new StageLayout(2, 2, 250, 80, 150, 40, false);
+			case 5:
+				// Stage 5: 2 random aliens + boss for testing
+				return new StageLayout(1, 2, 200, 120, 200, 35, true);
+			default:
+				// Stage 1: Basic formation - 1 BASIC alien for testing
+				return new StageLayout(1, 1, 350, 100, 50, 30, false);
+		}
+	}
+}
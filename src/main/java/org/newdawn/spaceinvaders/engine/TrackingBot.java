@@ -0,0 +1,59 @@
+package org.newdawn.spaceinvaders.engine;
+
+import java.util.List;
+
+import org.newdawn.spaceinvaders.entity.AlienEntity;
+import org.newdawn.spaceinvaders.entity.Entity;
+import org.newdawn.spaceinvaders.entity.ShipEntity;
+
+/**
+ * A simple bot that keeps its ship under the lowest alien and fires
+ * whenever it is roughly lined up. It does not dodge.
+ */
+public class TrackingBot implements BotPolicy {
+	/** Horizontal distance (pixels) within which the ship counts as lined up */
+	private final int tolerance;
+
+	public TrackingBot() {
+		this(8);
+	}
+
+	/**
+	 * @param tolerance Horizontal distance (pixels) within which the ship counts as lined up
+	 */
+	public TrackingBot(int tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	@Override
+	public void control(GameWorld world, int player) {
+		ShipEntity ship = player == 0 ? world.getShip() : world.getShip2();
+		if (ship == null) {
+			return;
+		}
+
+		AlienEntity target = lowestAlien(world.getEntities());
+		if (target == null) {
+			world.setInput(player, false, false, false);
+			return;
+		}
+
+		// shots leave the ship 10 pixels in from its left edge
+		int shotX = ship.getX() + 10;
+		int targetX = target.getX() + target.getWidth() / 2;
+		boolean left = shotX > targetX + tolerance;
+		boolean right = shotX < targetX - tolerance;
+		world.setInput(player, left, right, !left && !right);
+	}
+
+	private AlienEntity lowestAlien(List<Entity> entities) {
+		AlienEntity lowest = null;
+		for (int i = 0; i < entities.size(); i++) {
+			Entity entity = entities.get(i);
+			if (entity instanceof AlienEntity && (lowest == null || entity.getY() > lowest.getY())) {
+				lowest = (AlienEntity) entity;
+			}
+		}
+		return lowest;
+	}
+}
@@ -0,0 +1,26 @@
+package org.newdawn.spaceinvaders.engine;
+
+/**
+ * Hooks for the parts of a game that live outside the simulation -
+ * saving to Firebase, switching screens, messages. A headless run can
+ * simply ignore them.
+ */
+public interface WorldListener {
+	/**
+	 * Every player is dead. The score is still the score of the run and is
+	 * reset to 0 after this returns.
+	 *
+	 * @param world The world the game was played in
+	 */
+	void playerDied(GameWorld world);
+
+	/**
+	 * The last alien of the stage was killed. The score still includes the
+	 * stage; on the final stage it is reset after this returns, otherwise
+	 * the entities are cleared.
+	 *
+	 * @param world The world the game was played in
+	 * @param finalStage True if this was the last stage of the game
+	 */
+	void stageCleared(GameWorld world, boolean finalStage);
+}
@@ -2,10 +2,12 @@ package org.newdawn.spaceinvaders.entity;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
-import org.newdawn.spaceinvaders.Game;
 import org.newdawn.spaceinvaders.Sprite;
 import org.newdawn.spaceinvaders.SpriteStore;
+import org.newdawn.spaceinvaders.collision.CollisionLayer;
+import org.newdawn.spaceinvaders.engine.GameWorld;
+import org.newdawn.spaceinvaders.render.FrameSnapshot;
+import org.newdawn.spaceinvaders.render.HealthBars;
 import org.newdawn.spaceinvaders.entity.movement.*;
 
 /**
@@ -25,10 +27,21 @@ public class AlienEntity extends Entity {
 	private static final String MOVEMENT_WAVE = "wave";
 	private static final String MOVEMENT_TELEPORT = "teleport";
 
+	/** Blue tint */
+	private static final Color FAST_TINT = new Color(0, 100, 255, 180);
+	/** Red tint */
+	private static final Color HEAVY_TINT = new Color(255, 50, 50, 180);
+	/** Purple tint */
+	private static final Color SPECIAL_TINT = new Color(200, 0, 255, 180);
+	/** Gold tint */
+	private static final Color BOSS_TINT = new Color(255, 215, 0, 200);
+	/** How long the health bar flashes after a hit (ms) */
+	private static final long FLASH_MILLIS = 200;
+
 	/** The speed at which the alient moves horizontally */
 	private double moveSpeed = 75;
 	/** The game in which the entity exists */
-	private Game game;
+	private GameWorld game;
 	/** The animation frames */
 	private Sprite[] frames = new Sprite[4];
 	/** The time since the last frame change took place */
@@ -55,7 +68,7 @@ public class AlienEntity extends Entity {
 	private double firingProbability = 1.0; // 발사 확률 배수 (1.0 = 기본)
 	private int shotCount = 1; // 한 번에 발사하는 탄환 수
 	private double shotSpreadAngle = 0; // 발사 각도 (라디안, 0 = 직선)
-	/** Health bar animation */
+	/** Health bar animation, the game time of the last hit (ms) */
 	private long lastHitTime = 0;
 	private boolean showDamageEffect = false;
 
@@ -66,7 +79,7 @@ public class AlienEntity extends Entity {
 	 * @param x The intial x location of this alien
 	 * @param y The intial y location of this alient
 	 */
-	public AlienEntity(Game game,int x,int y) {
+	public AlienEntity(GameWorld game,int x,int y) {
 		this(game, x, y, AlienType.BASIC);
 	}
 
@@ -78,7 +91,7 @@ public class AlienEntity extends Entity {
 	 * @param y The intial y location of this alien
 	 * @param type The type of alien to create
 	 */
-	public AlienEntity(Game game,int x,int y, AlienType type) {
+	public AlienEntity(GameWorld game,int x,int y, AlienType type) {
 		super("sprites/alien.gif",x,y);
 
 		this.game = game;
@@ -94,7 +107,7 @@ public class AlienEntity extends Entity {
 		// Setup movement strategy based on type (Strategy Pattern)
 		setupMovementStrategy();
 
-		dx = -moveSpeed;
+		setHorizontalMovement(-moveSpeed);
 	}
 
 	/**
@@ -170,7 +183,7 @@ public class AlienEntity extends Entity {
 				movementStrategy = new WaveMovement();
 				break;
 			case MOVEMENT_TELEPORT:
-				movementStrategy = new TeleportMovement();
+				movementStrategy = new TeleportMovement(game.getRandom().newMovementStream());
 				break;
 			case MOVEMENT_NORMAL:
 			default:
@@ -188,27 +201,14 @@ public class AlienEntity extends Entity {
 	 * Setup animation frames with type-specific colors
 	 */
 	private void setupAnimationFrames() {
-		// Get base sprites
-		Sprite baseSprite = SpriteStore.get().getSprite("sprites/alien.gif");
-		Sprite baseSprite2 = SpriteStore.get().getSprite("sprites/alien2.gif");
-		Sprite baseSprite3 = SpriteStore.get().getSprite("sprites/alien3.gif");
-
-		// Apply color tinting based on alien type
+		// the tinted frames are baked once per type and shared by all
+		// aliens of it, BASIC (null tint) gets the plain sprites
 		Color tintColor = getTintColor();
-		if (tintColor != null) {
-			frames[0] = baseSprite.createTintedSprite(tintColor);
-			frames[1] = baseSprite2.createTintedSprite(tintColor);
-			frames[2] = frames[0];
-			frames[3] = baseSprite3.createTintedSprite(tintColor);
-			sprite = frames[0];
-		} else {
-			// Default setup for BASIC type
-			frames[0] = baseSprite;
-			frames[1] = baseSprite2;
-			frames[2] = frames[0];
-			frames[3] = baseSprite3;
-			sprite = frames[0];
-		}
+		frames[0] = SpriteStore.get().getSprite("sprites/alien.gif", tintColor);
+		frames[1] = SpriteStore.get().getSprite("sprites/alien2.gif", tintColor);
+		frames[2] = frames[0];
+		frames[3] = SpriteStore.get().getSprite("sprites/alien3.gif", tintColor);
+		sprite = frames[0];
 	}
 
 	/**
@@ -219,13 +219,13 @@ public class AlienEntity extends Entity {
 			case BASIC:
 				return null; // No tint (original green)
 			case FAST:
-				return new Color(0, 100, 255, 180); // Blue tint
+				return FAST_TINT;
 			case HEAVY:
-				return new Color(255, 50, 50, 180); // Red tint
+				return HEAVY_TINT;
 			case SPECIAL:
-				return new Color(200, 0, 255, 180); // Purple tint
+				return SPECIAL_TINT;
 			case BOSS:
-				return new Color(255, 215, 0, 200); // Gold tint
+				return BOSS_TINT;
 			default:
 				return null;
 		}
@@ -248,7 +248,7 @@ public class AlienEntity extends Entity {
 		this.health = (int)(baseHealth * multiplier);
 
 		// Update movement speed
-		dx = dx > 0 ? moveSpeed : -moveSpeed;
+		setHorizontalMovement(getHorizontalMovement() > 0 ? moveSpeed : -moveSpeed);
 	}
 
 	/**
@@ -284,12 +284,12 @@ public class AlienEntity extends Entity {
 
 		// if we have reached the left hand side of the screen and
 		// are moving left then request a logic update
-		if ((dx < 0) && (x < 10)) {
+		if ((getHorizontalMovement() < 0) && (getXDouble() < 10)) {
 			game.updateLogic();
 		}
 		// and vice vesa, if we have reached the right hand side of
 		// the screen and are moving right, request a logic update
-		if ((dx > 0) && (x > 750)) {
+		if ((getHorizontalMovement() > 0) && (getXDouble() > 750)) {
 			game.updateLogic();
 		}
 
@@ -297,31 +297,46 @@ public class AlienEntity extends Entity {
 		super.move(delta);
 	}
 
+	@Override
+	public boolean hasTickLogic() {
+		return true;
+	}
+
 	/**
 	 * Update the game logic related to aliens
 	 */
 	public void doLogic() {
 		// swap over horizontal movement and move down the
 		// screen a bit
-		dx = -dx;
+		setHorizontalMovement(-getHorizontalMovement());
 
 		if (isBoss) {
 			// Boss moves down more slowly
-			y += 5;
+			setPosition(getXDouble(), getYDouble() + 5);
 		} else {
-			y += 10;
+			setPosition(getXDouble(), getYDouble() + 10);
 		}
 
 		// Update original Y for wave patterns after moving down
-		originalY = y;
+		originalY = getYDouble();
 
 		// if we've reached the bottom of the screen then the player
 		// dies
-		if (y > 570) {
-			game.notifyDeath();
+		if (getYDouble() > 570) {
+			game.notifyDeath(alienType);
 		}
 	}
 	
+	/**
+	 * Aliens are hit by player shots and run into ships
+	 *
+	 * @return The alien collision layer
+	 */
+	@Override
+	public CollisionLayer getCollisionLayer() {
+		return CollisionLayer.ALIEN;
+	}
+
 	/**
 	 * Notification that this alien has collided with another entity
 	 *
@@ -335,7 +350,7 @@ public class AlienEntity extends Entity {
 
 			// Reduce health and show damage effect
 			health--;
-			lastHitTime = System.currentTimeMillis();
+			lastHitTime = game.getTime();
 			showDamageEffect = true;
 
 			if (health <= 0) {
@@ -405,100 +420,55 @@ public class AlienEntity extends Entity {
 	 * Get initial X position (for MovementStrategy implementations)
 	 */
 	public double getInitialX() {
-		return x;
-	}
-
-	/**
-	 * Get Y position as double (for MovementStrategy implementations)
-	 */
-	public double getYDouble() {
-		return y;
+		return getXDouble();
 	}
 
 	/**
 	 * Set X position (for MovementStrategy implementations like teleport)
 	 */
 	public void setX(double x) {
-		this.x = x;
+		// a teleport is a jump, don't slide towards the new location
+		placeAt(x, getYDouble());
 	}
 
 	/**
 	 * Set Y position (for MovementStrategy implementations like teleport)
 	 */
 	public void setY(double y) {
-		this.y = y;
+		placeAt(getXDouble(), y);
 	}
 
 	/**
 	 * Draw this alien and its health bar
 	 */
 	@Override
-	public void draw(Graphics g) {
+	public void draw(Graphics g, double alpha) {
 		// Draw the alien sprite first
-		super.draw(g);
+		super.draw(g, alpha);
 
 		// Only draw health bar if alien has more than 1 max health or is damaged
-		if (baseHealth > 1 || health < baseHealth) {
-			drawHealthBar(g);
+		if (hasHealthBar()) {
+			HealthBars.draw(g, getRenderX(alpha), getRenderY(alpha), sprite.getWidth(), health, baseHealth, isFlashing());
 		}
 	}
 
-	/**
-	 * Draw health bar above the alien
-	 */
-	private void drawHealthBar(Graphics g) {
-		Graphics2D g2d = (Graphics2D) g.create();
-
-		// Health bar dimensions
-		int barWidth = 30;
-		int barHeight = 4;
-		int barX = (int) x + (sprite.getWidth() - barWidth) / 2;
-		int barY = (int) y - 8;
-
-		// Check for damage effect (flash effect for 200ms after hit)
-		long currentTime = System.currentTimeMillis();
-		boolean flashingRed = showDamageEffect && (currentTime - lastHitTime) < 200;
-		if (currentTime - lastHitTime > 200) {
-			showDamageEffect = false;
-		}
-
-		// Background (dark red, or bright red when flashing)
-		if (flashingRed) {
-			g2d.setColor(new Color(150, 0, 0)); // Brighter red when hit
-		} else {
-			g2d.setColor(new Color(60, 0, 0)); // Normal dark background
-		}
-		g2d.fillRect(barX, barY, barWidth, barHeight);
-
-		// Health bar (color based on health percentage)
-		if (health > 0) {
-			double healthPercentage = (double) health / baseHealth;
-			int healthBarWidth = (int) (barWidth * healthPercentage);
-
-			// Color changes based on health percentage (with flash effect)
-			Color healthColor;
-			if (flashingRed) {
-				healthColor = new Color(255, 255, 255); // White flash when hit
-			} else if (healthPercentage > 0.6) {
-				healthColor = new Color(0, 200, 0); // Green
-			} else if (healthPercentage > 0.3) {
-				healthColor = new Color(255, 200, 0); // Orange
-			} else {
-				healthColor = new Color(255, 50, 50); // Red
-			}
-
-			g2d.setColor(healthColor);
-			g2d.fillRect(barX, barY, healthBarWidth, barHeight);
+	@Override
+	public void writeTo(FrameSnapshot frame) {
+		int slot = addToFrame(frame);
+		if (hasHealthBar()) {
+			frame.setHealthBar(slot, health, baseHealth, isFlashing());
 		}
+	}
 
-		// Border (white, or bright yellow when flashing)
-		if (flashingRed) {
-			g2d.setColor(new Color(255, 255, 0)); // Yellow border when hit
-		} else {
-			g2d.setColor(Color.WHITE); // Normal white border
-		}
-		g2d.drawRect(barX, barY, barWidth, barHeight);
+	private boolean hasHealthBar() {
+		return baseHealth > 1 || health < baseHealth;
+	}
 
-		g2d.dispose();
+	/**
+	 * Check for damage effect (flash effect for 200ms of game time after hit,
+	 * so it holds still while paused and replays the same)
+	 */
+	private boolean isFlashing() {
+		return showDamageEffect && game.getTime() - lastHitTime < FLASH_MILLIS;
 	}
-}
\ No newline at end of file
+}
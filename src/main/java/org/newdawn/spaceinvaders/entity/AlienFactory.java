@@ -1,15 +1,15 @@
 package org.newdawn.spaceinvaders.entity;
 
-import org.newdawn.spaceinvaders.Game;
+import org.newdawn.spaceinvaders.engine.GameWorld;
 
 /**
  * Factory Pattern 적용
  * OCP (Open/Closed Principle) - 새로운 타입 추가 시 확장 가능
  */
 public class AlienFactory {
-    private final Game game;
+    private final GameWorld game;
 
-    public AlienFactory(Game game) {
+    public AlienFactory(GameWorld game) {
         this.game = game;
     }
 
@@ -23,6 +23,15 @@ public class AlienFactory {
         return alien;
     }
 
+    /**
+     * 지정한 타입의 Alien 생성 (스테이지 구성을 바꿔 볼 때 사용)
+     */
+    public AlienEntity createAlien(AlienEntity.AlienType type, int stage, int x, int y) {
+        AlienEntity alien = new AlienEntity(game, x, y, type);
+        alien.setStageMultiplier(stage);
+        return alien;
+    }
+
     /**
      * 보스 Alien 생성
      */
@@ -64,7 +73,7 @@ public class AlienFactory {
     }
 
     private AlienEntity.AlienType getRandomAlienType() {
-        double random = Math.random();
+        double random = game.getRandom().alienTypes().nextDouble();
         if (random < 0.3) return AlienEntity.AlienType.FAST;
         if (random < 0.6) return AlienEntity.AlienType.HEAVY;
         if (random < 0.8) return AlienEntity.AlienType.SPECIAL;
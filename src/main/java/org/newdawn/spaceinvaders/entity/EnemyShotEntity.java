@@ -0,0 +1,59 @@
+package org.newdawn.spaceinvaders.entity;
+
+import org.newdawn.spaceinvaders.collision.CollisionLayer;
+import org.newdawn.spaceinvaders.engine.GameWorld;
+
+/** Enemy shot that travels downward (or at an angle) and damages the player on hit */
+public class EnemyShotEntity extends Entity {
+	/** The game in which this entity exists */
+	private final GameWorld game;
+	/** The type of the alien that fired this shot */
+	private AlienEntity.AlienType source;
+
+	/**
+	 * Create an enemy shot, normally only called by the shot pool
+	 *
+	 * @param game The game in which the shot is fired
+	 */
+	public EnemyShotEntity(GameWorld game) {
+		super("sprites/shot.gif", 0, 0);
+		this.game = game;
+	}
+
+	/** Put a pooled shot back into its freshly fired state */
+	public void reset(int x, int y, double vx, double vy, AlienEntity.AlienType source) {
+		placeAt(x, y);
+		this.source = source;
+		setHorizontalMovement(vx);
+		setVerticalMovement(vy);
+	}
+
+	@Override
+	public void afterMove() {
+		// Remove if off screen
+		if (getY() > 900 || getX() < 0 || getX() > 1200) {
+			game.removeEntity(this);
+		}
+	}
+
+	@Override
+	public boolean hasTickLogic() {
+		return true;
+	}
+
+	@Override
+	public CollisionLayer getCollisionLayer() {
+		return CollisionLayer.ENEMY_SHOT;
+	}
+
+	@Override
+	public void collidedWith(Entity other) {
+		// =================================================================
+		// === 2P FEATURE: Modified to call the new player hit method ===
+		// =================================================================
+		if (other instanceof ShipEntity) {
+			game.removeEntity(this);
+			game.notifyPlayerHit((ShipEntity) other, 1, source);
+		}
+	}
+}
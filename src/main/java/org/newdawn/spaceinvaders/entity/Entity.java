@@ -5,6 +5,8 @@ import java.awt.Rectangle;
 
 import org.newdawn.spaceinvaders.Sprite;
 import org.newdawn.spaceinvaders.SpriteStore;
+import org.newdawn.spaceinvaders.collision.CollisionLayer;
+import org.newdawn.spaceinvaders.render.FrameSnapshot;
 
 
 /**
@@ -21,16 +23,28 @@ import org.newdawn.spaceinvaders.SpriteStore;
  * @author Kevin Glass
  */
 public abstract class Entity {
-	/** The current x location of this entity */ 
-	protected double x;
-	/** The current y location of this entity */
-	protected double y;
+	/** The current x location of this entity, while not attached to a store */
+	private double x;
+	/** The current y location of this entity, while not attached to a store */
+	private double y;
 	/** The sprite that represents this entity */
 	protected Sprite sprite;
-	/** The current speed of this entity horizontally (pixels/sec) */
-	protected double dx;
-	/** The current speed of this entity vertically (pixels/sec) */
-	protected double dy;
+	/** The current speed of this entity horizontally (pixels/sec), while not attached to a store */
+	private double dx;
+	/** The current speed of this entity vertically (pixels/sec), while not attached to a store */
+	private double dy;
+	/** The x location at the start of the current tick, used for interpolated drawing */
+	private double prevX;
+	/** The y location at the start of the current tick, used for interpolated drawing */
+	private double prevY;
+	/** The store holding the state of this entity, or null when it is kept in the fields above */
+	private EntityStore store;
+	/** The slot of this entity in the store */
+	private int handle = -1;
+	/** True while this entity sits released in an EntityPool */
+	boolean pooled;
+	/** True once this entity has been removed from the game (until a pool hands it out again) */
+	boolean dead;
 	/** The rectangle used for this entity during collisions  resolution */
 	private Rectangle me = new Rectangle();
 	/** The rectangle used for other entities during collision resolution */
@@ -47,6 +61,77 @@ public abstract class Entity {
 		this.sprite = SpriteStore.get().getSprite(ref);
 		this.x = x;
 		this.y = y;
+		this.prevX = x;
+		this.prevY = y;
+	}
+
+	/**
+	 * Flag this entity as removed. It stays in the entity list until the
+	 * end of the tick.
+	 *
+	 * @return True if the entity was alive, false if it was already flagged
+	 */
+	public boolean markDead() {
+		if (dead) {
+			return false;
+		}
+		dead = true;
+		return true;
+	}
+
+	/**
+	 * @return True if this entity has been removed from the game
+	 */
+	public boolean isDead() {
+		return dead;
+	}
+
+	/**
+	 * Remember the current location as the previous state. Called at the
+	 * start of every simulation tick so drawing can interpolate between
+	 * the last two states.
+	 */
+	public void storePreviousPosition() {
+		if (store != null) {
+			store.setPrevious(handle, store.getX(handle), store.getY(handle));
+			return;
+		}
+		prevX = x;
+		prevY = y;
+	}
+
+	/**
+	 * Move the state of this entity into a store. From then on this entity
+	 * is a view over its slot and move() leaves the integration to
+	 * EntityStore.integrateAll().
+	 *
+	 * @param store The store to keep the state in
+	 */
+	public void attach(EntityStore store) {
+		if (this.store != null) {
+			return;
+		}
+		handle = store.allocate(x, y, dx, dy);
+		store.setPrevious(handle, prevX, prevY);
+		this.store = store;
+	}
+
+	/**
+	 * Copy the state back out of the store and give up the slot
+	 */
+	public void detach() {
+		if (store == null) {
+			return;
+		}
+		x = store.getX(handle);
+		y = store.getY(handle);
+		prevX = store.getPrevX(handle);
+		prevY = store.getPrevY(handle);
+		dx = store.getDx(handle);
+		dy = store.getDy(handle);
+		store.free(handle);
+		store = null;
+		handle = -1;
 	}
 	
 	/**
@@ -56,17 +141,45 @@ public abstract class Entity {
 	 * @param delta The ammount of time that has passed in milliseconds
 	 */
 	public void move(long delta) {
+		if (store != null) {
+			// the store moves every attached entity in one pass
+			return;
+		}
+
 		// update the location of the entity based on move speeds
 		x += (delta * dx) / 1000;
 		y += (delta * dy) / 1000;
 	}
 	
+	/**
+	 * Check the new location once every entity has moved this tick, e.g.
+	 * to remove an entity that left the screen
+	 */
+	public void afterMove() {
+	}
+
+	/**
+	 * Tell the game whether this entity needs calling every tick. Entities
+	 * that only move by their speed are left out while an EntityStore
+	 * moves them, so overriding move() or afterMove() means overriding
+	 * this as well.
+	 *
+	 * @return True if move() or afterMove() does more than the default
+	 */
+	public boolean hasTickLogic() {
+		return false;
+	}
+
 	/**
 	 * Set the horizontal speed of this entity
 	 * 
 	 * @param dx The horizontal speed of this entity (pixels/sec)
 	 */
 	public void setHorizontalMovement(double dx) {
+		if (store != null) {
+			store.setVelocity(handle, dx, store.getDy(handle));
+			return;
+		}
 		this.dx = dx;
 	}
 
@@ -76,6 +189,10 @@ public abstract class Entity {
 	 * @param dx The vertical speed of this entity (pixels/sec)
 	 */
 	public void setVerticalMovement(double dy) {
+		if (store != null) {
+			store.setVelocity(handle, store.getDx(handle), dy);
+			return;
+		}
 		this.dy = dy;
 	}
 	
@@ -85,7 +202,7 @@ public abstract class Entity {
 	 * @return The horizontal speed of this entity (pixels/sec)
 	 */
 	public double getHorizontalMovement() {
-		return dx;
+		return store != null ? store.getDx(handle) : dx;
 	}
 
 	/**
@@ -94,7 +211,7 @@ public abstract class Entity {
 	 * @return The vertical speed of this entity (pixels/sec)
 	 */
 	public double getVerticalMovement() {
-		return dy;
+		return store != null ? store.getDy(handle) : dy;
 	}
 	
 	/**
@@ -103,7 +220,64 @@ public abstract class Entity {
 	 * @param g The graphics context on which to draw
 	 */
 	public void draw(Graphics g) {
-		sprite.draw(g,(int) x,(int) y);
+		draw(g, 1.0);
+	}
+
+	/**
+	 * Draw this entity at a position interpolated between the previous
+	 * and the current simulation state
+	 *
+	 * @param g The graphics context on which to draw
+	 * @param alpha 0 for the previous state, 1 for the current one
+	 */
+	public void draw(Graphics g, double alpha) {
+		sprite.draw(g,getRenderX(alpha),getRenderY(alpha));
+	}
+
+	/**
+	 * Add this entity to the frame being built for the renderer. Called on
+	 * the simulation thread at the end of a batch of ticks.
+	 *
+	 * @param frame The snapshot being filled in
+	 */
+	public void writeTo(FrameSnapshot frame) {
+		addToFrame(frame);
+	}
+
+	/**
+	 * Add the sprite of this entity to a frame
+	 *
+	 * @param frame The snapshot being filled in
+	 * @return The slot of the sprite in the frame
+	 */
+	protected int addToFrame(FrameSnapshot frame) {
+		return frame.addSprite(sprite, getPrevX(), getPrevY(), getXDouble(), getYDouble());
+	}
+
+	/**
+	 * @param alpha 0 for the previous state, 1 for the current one
+	 * @return The interpolated x location to draw at
+	 */
+	protected int getRenderX(double alpha) {
+		double fromX = getPrevX();
+		return (int) (fromX + (getXDouble() - fromX) * alpha);
+	}
+
+	/**
+	 * @param alpha 0 for the previous state, 1 for the current one
+	 * @return The interpolated y location to draw at
+	 */
+	protected int getRenderY(double alpha) {
+		double fromY = getPrevY();
+		return (int) (fromY + (getYDouble() - fromY) * alpha);
+	}
+
+	private double getPrevX() {
+		return store != null ? store.getPrevX(handle) : prevX;
+	}
+
+	private double getPrevY() {
+		return store != null ? store.getPrevY(handle) : prevY;
 	}
 	
 	/**
@@ -119,7 +293,7 @@ public abstract class Entity {
 	 * @return The x location of this entity
 	 */
 	public int getX() {
-		return (int) x;
+		return (int) getXDouble();
 	}
 
 	/**
@@ -128,9 +302,88 @@ public abstract class Entity {
 	 * @return The y location of this entity
 	 */
 	public int getY() {
-		return (int) y;
+		return (int) getYDouble();
 	}
-	
+
+	/**
+	 * Get the exact x location of this entity
+	 *
+	 * @return The x location including the partial pixel
+	 */
+	public double getXDouble() {
+		return store != null ? store.getX(handle) : x;
+	}
+
+	/**
+	 * Get the exact y location of this entity
+	 *
+	 * @return The y location including the partial pixel
+	 */
+	public double getYDouble() {
+		return store != null ? store.getY(handle) : y;
+	}
+
+	/**
+	 * Move this entity to a new location. Drawing still slides over from
+	 * where it was at the start of the tick.
+	 *
+	 * @param x The new x location
+	 * @param y The new y location
+	 */
+	protected void setPosition(double x, double y) {
+		if (store != null) {
+			store.setPosition(handle, x, y);
+			return;
+		}
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Put this entity at a new location without drawing it slide there,
+	 * for teleports and reused entities
+	 *
+	 * @param x The new x location
+	 * @param y The new y location
+	 */
+	protected void placeAt(double x, double y) {
+		setPosition(x, y);
+		if (store != null) {
+			store.setPrevious(handle, x, y);
+			return;
+		}
+		this.prevX = x;
+		this.prevY = y;
+	}
+
+	/**
+	 * Get the width of this entity's collision bounds
+	 *
+	 * @return The width in pixels of the sprite representing this entity
+	 */
+	public int getWidth() {
+		return sprite.getWidth();
+	}
+
+	/**
+	 * Get the height of this entity's collision bounds
+	 *
+	 * @return The height in pixels of the sprite representing this entity
+	 */
+	public int getHeight() {
+		return sprite.getHeight();
+	}
+
+	/**
+	 * Get the collision layer of this entity. Only pairs allowed by the
+	 * layer matrix are tested with collidesWith().
+	 *
+	 * @return The layer this entity belongs to
+	 */
+	public CollisionLayer getCollisionLayer() {
+		return CollisionLayer.DEFAULT;
+	}
+
 	/**
 	 * Check if this entity collised with another.
 	 * 
@@ -138,8 +391,8 @@ public abstract class Entity {
 	 * @return True if the entities collide with each other
 	 */
 	public boolean collidesWith(Entity other) {
-		me.setBounds((int) x,(int) y,sprite.getWidth(),sprite.getHeight());
-		him.setBounds((int) other.x,(int) other.y,other.sprite.getWidth(),other.sprite.getHeight());
+		me.setBounds(getX(),getY(),sprite.getWidth(),sprite.getHeight());
+		him.setBounds(other.getX(),other.getY(),other.sprite.getWidth(),other.sprite.getHeight());
 
 		return me.intersects(him);
 	}
@@ -0,0 +1,123 @@
+package org.newdawn.spaceinvaders.entity;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * A free list of entities of one kind, so short lived entities such as
+ * shots can be reused instead of allocated for every shot fired.
+ * <p>
+ * acquire() hands out a released entity if there is one (a "hit") and only
+ * creates a new one otherwise; the caller resets it before adding it to
+ * the game. release() is idempotent - an entity that was removed twice in
+ * one frame only goes back once.
+ *
+ * @param <T> The pooled entity type
+ */
+public class EntityPool<T extends Entity> {
+	/** Default number of idle entities kept around */
+	public static final int DEFAULT_MAX_IDLE = 256;
+
+	private final Supplier<T> factory;
+	private final int maxIdle;
+	private final ArrayDeque<T> idle = new ArrayDeque<>();
+
+	/** Total acquire() calls */
+	private long acquired;
+	/** acquire() calls served from the free list */
+	private long hits;
+	/** Entities created by the factory */
+	private long created;
+	/** Entities currently handed out */
+	private int live;
+	/** Highest number of entities handed out at once */
+	private int highWaterMark;
+
+	/**
+	 * @param factory Creates a new entity when the pool is empty
+	 */
+	public EntityPool(Supplier<T> factory) {
+		this(factory, DEFAULT_MAX_IDLE);
+	}
+
+	/**
+	 * @param factory Creates a new entity when the pool is empty
+	 * @param maxIdle The most released entities to keep, extra ones are left to the GC
+	 */
+	public EntityPool(Supplier<T> factory, int maxIdle) {
+		this.factory = factory;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Take an entity from the pool, the caller must reset its state
+	 *
+	 * @return A released entity or a newly created one
+	 */
+	public T acquire() {
+		acquired++;
+		T entity = idle.pollFirst();
+		if (entity != null) {
+			hits++;
+		} else {
+			entity = factory.get();
+			created++;
+		}
+		entity.pooled = false;
+		entity.dead = false;
+
+		live++;
+		highWaterMark = Math.max(highWaterMark, live);
+		return entity;
+	}
+
+	/**
+	 * Give an entity back once it has been removed from the game
+	 *
+	 * @param entity The entity to release, ignored if already released
+	 */
+	public void release(T entity) {
+		if (entity.pooled) {
+			return;
+		}
+		entity.pooled = true;
+		live--;
+		if (idle.size() < maxIdle) {
+			idle.addFirst(entity);
+		}
+	}
+
+	/**
+	 * @return The number of released entities ready for reuse
+	 */
+	public int getSize() {
+		return idle.size();
+	}
+
+	/**
+	 * @return The share of acquire() calls that did not allocate (0-1)
+	 */
+	public double getHitRate() {
+		return acquired == 0 ? 0.0 : (double) hits / acquired;
+	}
+
+	/**
+	 * @return The highest number of entities in use at the same time
+	 */
+	public int getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/**
+	 * @return The number of entities ever allocated by this pool
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("size=%d live=%d created=%d hitRate=%.3f highWater=%d",
+				idle.size(), live, created, getHitRate(), highWaterMark);
+	}
+}
@@ -0,0 +1,193 @@
+package org.newdawn.spaceinvaders.entity;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage for the per-tick entity state.
+ * <p>
+ * Position, previous position and velocity of every attached entity live
+ * in parallel primitive arrays indexed by a stable integer handle, so the
+ * per-tick loops (remembering the previous position and integrating
+ * velocities) run over contiguous memory instead of chasing Entity
+ * references through the entity list. Freed handles are recycled
+ * through a free list; a handle never changes while its entity is attached.
+ * <p>
+ * Entities attached to a store become thin views: their accessors read and
+ * write these arrays, Entity.move() leaves the position alone and every
+ * slot is integrated in one pass in {@link #integrateAll(long)}.
+ */
+public final class EntityStore {
+	private static final int INITIAL_CAPACITY = 128;
+
+	private double[] x;
+	private double[] y;
+	private double[] prevX;
+	private double[] prevY;
+	private double[] dx;
+	private double[] dy;
+	/** Slot is in use */
+	private boolean[] live;
+
+	/** Handles below this bound have been handed out at some point */
+	private int bound;
+	/** Number of attached entities */
+	private int size;
+	/** Released handles, used before growing the bound */
+	private int[] freeList;
+	private int freeCount;
+
+	public EntityStore() {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param capacity The initial number of slots
+	 */
+	public EntityStore(int capacity) {
+		capacity = Math.max(1, capacity);
+		x = new double[capacity];
+		y = new double[capacity];
+		prevX = new double[capacity];
+		prevY = new double[capacity];
+		dx = new double[capacity];
+		dy = new double[capacity];
+		live = new boolean[capacity];
+		freeList = new int[capacity];
+	}
+
+	/**
+	 * Take a slot for a new entity
+	 *
+	 * @return The handle of the slot
+	 */
+	public int allocate(double x, double y, double dx, double dy) {
+		int handle;
+		if (freeCount > 0) {
+			handle = freeList[--freeCount];
+		} else {
+			ensureCapacity(bound + 1);
+			handle = bound++;
+		}
+
+		this.x[handle] = x;
+		this.y[handle] = y;
+		this.prevX[handle] = x;
+		this.prevY[handle] = y;
+		this.dx[handle] = dx;
+		this.dy[handle] = dy;
+		live[handle] = true;
+		size++;
+		return handle;
+	}
+
+	/**
+	 * Give a slot back, the handle may be reused by the next allocate()
+	 *
+	 * @param handle The handle returned by allocate()
+	 */
+	public void free(int handle) {
+		if (!live[handle]) {
+			return;
+		}
+		live[handle] = false;
+		freeList[freeCount++] = handle;
+		size--;
+	}
+
+	/**
+	 * Copy the current position of every live slot into its previous
+	 * position, the bulk version of Entity.storePreviousPosition()
+	 */
+	public void storePreviousPositions() {
+		System.arraycopy(x, 0, prevX, 0, bound);
+		System.arraycopy(y, 0, prevY, 0, bound);
+	}
+
+	/**
+	 * Move every live slot by its velocity, the bulk version of Entity.move()
+	 *
+	 * @param delta The time that has passed in milliseconds
+	 */
+	public void integrateAll(long delta) {
+		for (int i = 0; i < bound; i++) {
+			if (live[i]) {
+				x[i] += (delta * dx[i]) / 1000;
+				y[i] += (delta * dy[i]) / 1000;
+			}
+		}
+	}
+
+	public double getX(int handle) {
+		return x[handle];
+	}
+
+	public double getY(int handle) {
+		return y[handle];
+	}
+
+	public double getPrevX(int handle) {
+		return prevX[handle];
+	}
+
+	public double getPrevY(int handle) {
+		return prevY[handle];
+	}
+
+	public double getDx(int handle) {
+		return dx[handle];
+	}
+
+	public double getDy(int handle) {
+		return dy[handle];
+	}
+
+	public void setPosition(int handle, double x, double y) {
+		this.x[handle] = x;
+		this.y[handle] = y;
+	}
+
+	public void setPrevious(int handle, double x, double y) {
+		this.prevX[handle] = x;
+		this.prevY[handle] = y;
+	}
+
+	public void setVelocity(int handle, double dx, double dy) {
+		this.dx[handle] = dx;
+		this.dy[handle] = dy;
+	}
+
+	/**
+	 * @return The number of attached entities
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The number of slots the tight loops walk over
+	 */
+	public int getBound() {
+		return bound;
+	}
+
+	/**
+	 * @param handle A handle below getBound()
+	 * @return True if the slot currently belongs to an entity
+	 */
+	public boolean isLive(int handle) {
+		return live[handle];
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (x.length >= capacity) return;
+		int grown = Math.max(capacity, x.length * 2);
+		x = Arrays.copyOf(x, grown);
+		y = Arrays.copyOf(y, grown);
+		prevX = Arrays.copyOf(prevX, grown);
+		prevY = Arrays.copyOf(prevY, grown);
+		dx = Arrays.copyOf(dx, grown);
+		dy = Arrays.copyOf(dy, grown);
+		live = Arrays.copyOf(live, grown);
+		freeList = Arrays.copyOf(freeList, grown);
+	}
+}
@@ -1,6 +1,7 @@
 package org.newdawn.spaceinvaders.entity;
 
-import org.newdawn.spaceinvaders.Game;
+import org.newdawn.spaceinvaders.collision.CollisionLayer;
+import org.newdawn.spaceinvaders.engine.GameWorld;
 
 /**
  * The entity that represents the players ship
@@ -9,7 +10,7 @@ import org.newdawn.spaceinvaders.Game;
  */
 public class ShipEntity extends Entity {
 	/** The game in which the ship exists */
-	private Game game;
+	private GameWorld game;
 	
 	/**
 	 * Create a new entity to represent the players ship
@@ -19,7 +20,7 @@ public class ShipEntity extends Entity {
 	 * @param x The initial x location of the player's ship
 	 * @param y The initial y location of the player's ship
 	 */
-	public ShipEntity(Game game,String ref,int x,int y) {
+	public ShipEntity(GameWorld game,String ref,int x,int y) {
 		super(ref,x,y);
 		
 		this.game = game;
@@ -33,19 +34,36 @@ public class ShipEntity extends Entity {
 	 */
 	public void move(long delta) {
 		// if we're moving left and have reached the left hand side
-		// of the screen, don't move
-		if ((dx < 0) && (x < 10)) {
-			return;
+		// of the screen, don't move. The speed is set again from the
+		// input every tick, stopping also keeps the entity store from
+		// moving us
+		if ((getHorizontalMovement() < 0) && (getXDouble() < 10)) {
+			setHorizontalMovement(0);
 		}
 		// if we're moving right and have reached the right hand side
 		// of the screen, don't move
-		if ((dx > 0) && (x > 750)) {
-			return;
+		if ((getHorizontalMovement() > 0) && (getXDouble() > 750)) {
+			setHorizontalMovement(0);
 		}
 		
 		super.move(delta);
 	}
+
+	@Override
+	public boolean hasTickLogic() {
+		return true;
+	}
 	
+	/**
+	 * The ship is hit by aliens and enemy shots
+	 *
+	 * @return The ship collision layer
+	 */
+	@Override
+	public CollisionLayer getCollisionLayer() {
+		return CollisionLayer.SHIP;
+	}
+
 	/**
 	 * Notification that the player's ship has collided with something
 	 * 
@@ -55,7 +73,7 @@ public class ShipEntity extends Entity {
 		// if its an alien, notify the game that the player
 		// is dead
 		if (other instanceof AlienEntity) {
-			game.notifyDeath();
+			game.notifyDeath(((AlienEntity) other).getAlienType());
 		}
 	}
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.newdawn.spaceinvaders.entity;
 
-import org.newdawn.spaceinvaders.Game;
+import org.newdawn.spaceinvaders.collision.CollisionLayer;
+import org.newdawn.spaceinvaders.engine.GameWorld;
 
 /**
  * An entity representing a shot fired by the player's ship
@@ -11,7 +12,7 @@ public class ShotEntity extends Entity {
 	/** The vertical speed at which the players shot moves */
 	private double moveSpeed = -300;
 	/** The game in which this entity exists */
-	private Game game;
+	private GameWorld game;
 	/** True if this shot has been "used", i.e. its hit something */
 	private boolean used = false;
 	
@@ -23,29 +24,53 @@ public class ShotEntity extends Entity {
 	 * @param x The initial x location of the shot
 	 * @param y The initial y location of the shot
 	 */
-	public ShotEntity(Game game,String sprite,int x,int y) {
+	public ShotEntity(GameWorld game,String sprite,int x,int y) {
 		super(sprite,x,y);
 		
 		this.game = game;
 		
-		dy = moveSpeed;
+		setVerticalMovement(moveSpeed);
 	}
 
 	/**
-	 * Request that this shot moved based on time elapsed
-	 * 
-	 * @param delta The time that has elapsed since last move
+	 * Put a pooled shot back into its freshly fired state
+	 *
+	 * @param x The initial x location of the shot
+	 * @param y The initial y location of the shot
 	 */
-	public void move(long delta) {
-		// proceed with normal move
-		super.move(delta);
-		
+	public void reset(int x, int y) {
+		placeAt(x, y);
+		setHorizontalMovement(0);
+		setVerticalMovement(moveSpeed);
+		used = false;
+	}
+
+	/**
+	 * Remove the shot once it has left the screen
+	 */
+	@Override
+	public void afterMove() {
 		// if we shot off the screen, remove ourselfs
-		if (y < -100) {
+		if (getYDouble() < -100) {
 			game.removeEntity(this);
 		}
 	}
+
+	@Override
+	public boolean hasTickLogic() {
+		return true;
+	}
 	
+	/**
+	 * Player shots only ever hit aliens
+	 *
+	 * @return The player shot collision layer
+	 */
+	@Override
+	public CollisionLayer getCollisionLayer() {
+		return CollisionLayer.PLAYER_SHOT;
+	}
+
 	/**
 	 * Notification that this shot has collided with another
 	 * entity
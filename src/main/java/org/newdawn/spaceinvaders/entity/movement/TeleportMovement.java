@@ -1,5 +1,7 @@
 package org.newdawn.spaceinvaders.entity.movement;
 
+import java.util.SplittableRandom;
+
 import org.newdawn.spaceinvaders.entity.AlienEntity;
 
 /**
@@ -12,6 +14,12 @@ public class TeleportMovement implements MovementStrategy {
     private static final double MAX_X = 750;
     private static final double MIN_Y = 50;
     private static final double MAX_Y = 500;
+    /** This alien's own stream, so teleports replay from the game seed */
+    private final SplittableRandom random;
+
+    public TeleportMovement(SplittableRandom random) {
+        this.random = random;
+    }
 
     @Override
     public void move(AlienEntity alien, long delta) {
@@ -20,8 +28,8 @@ public class TeleportMovement implements MovementStrategy {
         if (teleportTimer > TELEPORT_INTERVAL) {
             // Teleport to random position within bounds
             double currentY = alien.getYDouble();
-            double newX = MIN_X + Math.random() * (MAX_X - MIN_X);
-            double newY = currentY + (Math.random() * 60 - 30); // Within ±30 pixels of current Y
+            double newX = MIN_X + random.nextDouble() * (MAX_X - MIN_X);
+            double newY = currentY + (random.nextDouble() * 60 - 30); // Within ±30 pixels of current Y
 
             // Keep within screen bounds
             if (newX < 10) newX = 10;
@@ -34,7 +42,7 @@ public class TeleportMovement implements MovementStrategy {
             alien.setY(newY);
 
             // Reverse horizontal direction occasionally
-            if (Math.random() < 0.3) {
+            if (random.nextDouble() < 0.3) {
                 alien.setHorizontalMovement(-alien.getHorizontalMovement());
             }
 
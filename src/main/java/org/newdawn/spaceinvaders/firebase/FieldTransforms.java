@@ -0,0 +1,106 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.security.SecureRandom;
+
+/**
+ * Builds the documents:commit writes that change a user document on the
+ * server side (increment, maximum) instead of reading it, computing the new
+ * value here and writing the whole value back.
+ * <p>
+ * A commit is applied atomically, so writes built here that go into the
+ * same commit either all happen or none do.
+ */
+final class FieldTransforms {
+    private static final String FIELD_INTEGER_VALUE = "integerValue";
+    private static final String AUTO_ID_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int AUTO_ID_LENGTH = 20;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Field transforms of one document, in the order they were added */
+    private final JSONArray transforms = new JSONArray();
+    private final String documentName;
+
+    /**
+     * @param documentName The full resource name of the document to change
+     */
+    FieldTransforms(String documentName) {
+        this.documentName = documentName;
+    }
+
+    /** 서버 값에 delta 를 더한다 (필드가 없으면 delta 가 된다) */
+    FieldTransforms increment(String fieldPath, long delta) {
+        transforms.put(new JSONObject().put("fieldPath", fieldPath).put("increment", integerValue(delta)));
+        return this;
+    }
+
+    /** 서버 값과 value 중 큰 값을 남긴다 */
+    FieldTransforms maximum(String fieldPath, long value) {
+        transforms.put(new JSONObject().put("fieldPath", fieldPath).put("maximum", integerValue(value)));
+        return this;
+    }
+
+    boolean isEmpty() {
+        return transforms.length() == 0;
+    }
+
+    /**
+     * @return The transform write, applied whatever the document looks like
+     */
+    JSONObject toWrite() {
+        return new JSONObject().put("transform", new JSONObject()
+                .put("document", documentName)
+                .put("fieldTransforms", transforms));
+    }
+
+    /**
+     * @param updateTime The updateTime the document was read at
+     * @return The transform write, rejected by the server if the document
+     * changed since it was read
+     */
+    JSONObject toWrite(String updateTime) {
+        return toWrite().put("currentDocument", new JSONObject().put("updateTime", updateTime));
+    }
+
+    /**
+     * @param writes The writes to apply together
+     * @return A documents:commit request body
+     */
+    static JSONObject commit(JSONObject... writes) {
+        JSONArray array = new JSONArray();
+        for (JSONObject write : writes) {
+            array.put(write);
+        }
+        return new JSONObject().put("writes", array);
+    }
+
+    /**
+     * A write creating a new document, rejected if one already has its name
+     *
+     * @param documentName The full resource name of the new document
+     * @param fields The fields of the new document
+     */
+    static JSONObject create(String documentName, JSONObject fields) {
+        return new JSONObject()
+                .put("update", new JSONObject().put("name", documentName).put("fields", fields))
+                .put("currentDocument", new JSONObject().put("exists", false));
+    }
+
+    /**
+     * @return A random document id like the ones Firestore makes for a POST
+     * to a collection, which a commit cannot do by itself
+     */
+    static String autoId() {
+        StringBuilder id = new StringBuilder(AUTO_ID_LENGTH);
+        for (int i = 0; i < AUTO_ID_LENGTH; i++) {
+            id.append(AUTO_ID_CHARS.charAt(RANDOM.nextInt(AUTO_ID_CHARS.length())));
+        }
+        return id.toString();
+    }
+
+    private static JSONObject integerValue(long value) {
+        return new JSONObject().put(FIELD_INTEGER_VALUE, String.valueOf(value));
+    }
+}
@@ -1,102 +1,60 @@
 package org.newdawn.spaceinvaders.firebase;
 
 import org.json.JSONObject;
-import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 
 /**
  * Firebase HTTP 통신을 담당하는 클래스
- * DIP (Dependency Inversion Principle) 적용 - 인터페이스로 추상화 가능
+ * DIP (Dependency Inversion Principle) 적용 - 실제 전송은 HttpTransport 에 맡긴다
  */
 public class FirebaseHttpClient {
+    private final HttpTransport transport;
     private String idToken;
 
+    /** 공유 커넥션 풀을 쓰는 클라이언트 */
+    public FirebaseHttpClient() {
+        this(PooledHttpTransport.getShared());
+    }
+
+    public FirebaseHttpClient(HttpTransport transport) {
+        this.transport = transport;
+    }
+
     public void setIdToken(String idToken) {
         this.idToken = idToken;
     }
 
     public JSONObject get(String urlStr) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("GET");
-        addAuthHeader(conn);
-
-        return readResponse(conn);
+        return toJson(transport.send("GET", urlStr, idToken, null));
     }
 
     public JSONObject post(String urlStr, JSONObject body) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-        conn.setDoOutput(true);
-
-        writeBody(conn, body);
-        return readResponse(conn);
+        return toJson(transport.send("POST", urlStr, null, body));
     }
 
     public JSONObject patch(String urlStr, JSONObject body) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("X-HTTP-Method-Override", "PATCH");
-        conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-        addAuthHeader(conn);
-        conn.setDoOutput(true);
-
-        writeBody(conn, body);
-        return readResponse(conn);
+        return toJson(transport.send("PATCH", urlStr, idToken, body));
     }
 
     public boolean delete(String urlStr) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("DELETE");
-        addAuthHeader(conn);
-
-        int code = conn.getResponseCode();
+        HttpTransport.Response res = transport.send("DELETE", urlStr, idToken, null);
+        int code = res.getCode();
         if (code == 200 || code == 204) {
             return true;
         }
 
-        InputStream is = conn.getErrorStream();
-        String text = (is != null) ? readAll(is) : conn.getResponseMessage();
-        System.err.println("DELETE error(" + code + "): " + text);
+        System.err.println("DELETE error(" + code + "): " + res.getErrorText());
         return false;
     }
 
-    private void addAuthHeader(HttpURLConnection conn) {
-        if (idToken != null) {
-            conn.setRequestProperty("Authorization", "Bearer " + idToken);
-        }
-    }
-
-    private void writeBody(HttpURLConnection conn, JSONObject body) throws IOException {
-        byte[] out = body.toString().getBytes(StandardCharsets.UTF_8);
-        try (OutputStream os = conn.getOutputStream()) {
-            os.write(out);
-        }
-    }
-
-    private JSONObject readResponse(HttpURLConnection conn) throws IOException {
-        int code = conn.getResponseCode();
-        InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
-        String text = readAll(is);
-
-        if (code >= 200 && code < 300) {
-            return new JSONObject(text);
+    private JSONObject toJson(HttpTransport.Response res) {
+        if (res.isSuccess()) {
+            // 본문이 없으면 빈 객체로
+            JSONObject json = res.getObject();
+            return json != null ? json : new JSONObject();
         } else {
-            System.err.println("HTTP error(" + code + "): " + text);
+            System.err.println("HTTP error(" + res.getCode() + "): " + res.getErrorText());
             return null;
         }
     }
-
-    private String readAll(InputStream is) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
-            }
-        }
-        return sb.toString();
-    }
 }
@@ -5,12 +5,19 @@ import org.json.JSONArray;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 
 
 public final class FirebaseManager {
@@ -25,6 +32,7 @@ public final class FirebaseManager {
     private static final String FIELD_DOCUMENTS = "documents";
     private static final String FIELD_STRING_VALUE = "stringValue";
     private static final String FIELD_INTEGER_VALUE = "integerValue";
+    private static final String FIELD_UPDATE_TIME = "updateTime";
     private static final String FIELD_RETURN_SECURE_TOKEN = "returnSecureToken";
 
     private static final String PARAM_KEY = "?key=";
@@ -41,23 +49,50 @@ public final class FirebaseManager {
     private static final String CONFIG_KEY_API_KEY = "apiKey";
     private static final String CONFIG_KEY_PROJECT_ID = "projectId";
     private static final String CONFIG_KEY_DATABASE_ID = "databaseId";
+    private static final String CONFIG_KEY_FIRESTORE_URL = "firestoreUrl";
+    private static final String CONFIG_KEY_AUTH_URL = "authUrl";
+
+    public static final String DEFAULT_FIRESTORE_API_ROOT = "https://firestore.googleapis.com/v1";
+    public static final String DEFAULT_AUTH_API_ROOT = "https://identitytoolkit.googleapis.com/v1";
+    private static final String DEFAULT_DATABASE_ID = "(default)";
+    /** System property naming the write-behind journal file, empty for none (default ~/.spaceinvaders/firestore-journal.json) */
+    public static final String PROP_JOURNAL = "spaceinvaders.firestoreJournal";
 
     private static final String UPGRADE_PREFIX = "upgrade_";
     private static final String UPGRADE_ATTACK = "attack";
     private static final String UPGRADE_HEALTH = "health";
     private static final String UPGRADE_SPEED = "speed";
 
-    private static final String HEADER_AUTHORIZATION = "Authorization";
-    private static final String HEADER_BEARER = "Bearer ";
     private static final String HEADER_CONTENT_TYPE = "Content-Type";
-    private static final String CONTENT_TYPE_JSON = "application/json; charset=utf-8";
+
+    /** 비동기 호출 대기열 크기, 가득 차면 새 호출은 실패한 future 로 돌려준다 */
+    private static final int ASYNC_QUEUE_CAPACITY = 64;
+    /** 다른 쓰기와 겹쳐 전제 조건(updateTime)이 깨졌을 때 다시 읽고 커밋하는 횟수 */
+    private static final int MAX_SPEND_ATTEMPTS = 3;
+    /** 커밋 오류 중 다시 읽고 재시도할 만한 Firestore 상태 */
+    private static final String STATUS_FAILED_PRECONDITION = "FAILED_PRECONDITION";
+    private static final String STATUS_ABORTED = "ABORTED";
+    /** exists=false 전제 조건이 깨졌을 때 (이미 있는 문서) */
+    private static final String STATUS_ALREADY_EXISTS = "ALREADY_EXISTS";
 
     private String apiKey;
     private String projectId;
-    private String databaseId = "(default)";
-    private final String firestoreApiRoot = "https://firestore.googleapis.com/v1";
+    private String databaseId = DEFAULT_DATABASE_ID;
+    private String firestoreApiRoot = DEFAULT_FIRESTORE_API_ROOT;
+    private String authApiRoot = DEFAULT_AUTH_API_ROOT;
+    /** Shared with the other Firebase clients so they reuse the same connections */
+    private final PooledHttpTransport transport = PooledHttpTransport.getShared();
     private static final FirebaseManager INSTANCE = new FirebaseManager();
 
+    /**
+     * 게임 루프 밖에서 Firestore 요청을 처리하는 스레드.
+     * 한 개뿐이라 요청이 들어온 순서대로 실행된다 (포인트 읽기-쓰기가 서로 섞이지 않음).
+     */
+    private final ThreadPoolExecutor ioExecutor = createIoExecutor();
+
+    /** 점수/포인트/스테이지 변경을 모아 두었다가 한 번에 쓰는 큐, 저널은 initialize() 에서 정한다 */
+    private final WriteBehindQueue writes = new WriteBehindQueue(new FirestoreBackend(), this::getUid, ioExecutor, null);
+
     private String idToken;
     private String refreshToken;
     private String localId;
@@ -73,6 +108,11 @@ public final class FirebaseManager {
         return firestoreApiRoot + PATH_PROJECTS + projectId + PATH_DATABASES + databaseId + "/documents";
     }
 
+    /** @return The full resource name of a user document, as used in commits */
+    private String documentName(String uid) {
+        return "projects/" + projectId + "/databases/" + databaseId + "/documents/users/" + uid;
+    }
+
     public synchronized void setConfig(String apiKey, String projectId) {
         this.apiKey = apiKey;
         this.projectId = projectId;
@@ -84,6 +124,26 @@ public final class FirebaseManager {
         if (databaseId != null && !databaseId.isEmpty()) this.databaseId = databaseId;
     }
 
+    /**
+     * Send requests somewhere else than the live services, e.g. to a
+     * FirestoreEmulator for load tests
+     *
+     * @param firestoreApiRoot Replaces {@link #DEFAULT_FIRESTORE_API_ROOT}, null for the default
+     * @param authApiRoot Replaces {@link #DEFAULT_AUTH_API_ROOT}, null for the default
+     */
+    public synchronized void setEndpoints(String firestoreApiRoot, String authApiRoot) {
+        this.firestoreApiRoot = firestoreApiRoot != null ? firestoreApiRoot : DEFAULT_FIRESTORE_API_ROOT;
+        this.authApiRoot = authApiRoot != null ? authApiRoot : DEFAULT_AUTH_API_ROOT;
+    }
+
+    /** Forget the config and endpoints set so far, so the next call loads them again (for tests) */
+    synchronized void resetConfig() {
+        this.apiKey = null;
+        this.projectId = null;
+        this.databaseId = DEFAULT_DATABASE_ID;
+        setEndpoints(null, null);
+    }
+
     private synchronized void loadConfigIfNeeded() {
         if (isConfigComplete()) return;
         loadConfigFromEnvironment();
@@ -101,9 +161,13 @@ public final class FirebaseManager {
         String envKey = System.getenv("FIREBASE_API_KEY");
         String envProj = System.getenv("FIREBASE_PROJECT_ID");
         String envDb = System.getenv("FIREBASE_DATABASE_ID");
+        String envFirestoreUrl = System.getenv("FIREBASE_FIRESTORE_URL");
+        String envAuthUrl = System.getenv("FIREBASE_AUTH_URL");
         applyEnvironmentVariable(envKey, CONFIG_KEY_API_KEY);
         applyEnvironmentVariable(envProj, CONFIG_KEY_PROJECT_ID);
         applyEnvironmentVariable(envDb, CONFIG_KEY_DATABASE_ID);
+        applyEnvironmentVariable(envFirestoreUrl, CONFIG_KEY_FIRESTORE_URL);
+        applyEnvironmentVariable(envAuthUrl, CONFIG_KEY_AUTH_URL);
     }
 
     private void applyEnvironmentVariable(String value, String fieldName) {
@@ -118,6 +182,12 @@ public final class FirebaseManager {
             case CONFIG_KEY_DATABASE_ID:
                 this.databaseId = value;
                 break;
+            case CONFIG_KEY_FIRESTORE_URL:
+                this.firestoreApiRoot = value;
+                break;
+            case CONFIG_KEY_AUTH_URL:
+                this.authApiRoot = value;
+                break;
             default:
                 break;
         }
@@ -131,6 +201,8 @@ public final class FirebaseManager {
             applyPropertyValue(p, CONFIG_KEY_API_KEY);
             applyPropertyValue(p, CONFIG_KEY_PROJECT_ID);
             applyPropertyValue(p, CONFIG_KEY_DATABASE_ID);
+            applyPropertyValue(p, CONFIG_KEY_FIRESTORE_URL);
+            applyPropertyValue(p, CONFIG_KEY_AUTH_URL);
         } catch (IOException ignore) {
             // Silently ignore file read errors
         }
@@ -149,6 +221,12 @@ public final class FirebaseManager {
             case CONFIG_KEY_DATABASE_ID:
                 this.databaseId = value;
                 break;
+            case CONFIG_KEY_FIRESTORE_URL:
+                this.firestoreApiRoot = value;
+                break;
+            case CONFIG_KEY_AUTH_URL:
+                this.authApiRoot = value;
+                break;
             default:
                 break;
         }
@@ -160,13 +238,27 @@ public final class FirebaseManager {
         } else {
             System.out.println("[FirebaseManager] Loaded Firebase projectId=" + this.projectId + ", databaseId=" + this.databaseId);
         }
+        if (!DEFAULT_FIRESTORE_API_ROOT.equals(firestoreApiRoot) || !DEFAULT_AUTH_API_ROOT.equals(authApiRoot)) {
+            System.out.println("[FirebaseManager] Using endpoints firestore=" + firestoreApiRoot + ", auth=" + authApiRoot);
+        }
     }
 
     public void initialize() {
         loadConfigIfNeeded();
+        writes.setJournal(journalFile());
+        writes.start(WriteBehindQueue.DEFAULT_FLUSH_MILLIS);
         System.out.println("Firebase Manager Initialized. projectId=" + projectId + ", databaseId=" + databaseId);
     }
 
+    /** @return The write-behind journal named by {@link #PROP_JOURNAL}, null for none */
+    private static File journalFile() {
+        String path = System.getProperty(PROP_JOURNAL);
+        if (path == null) {
+            return new File(System.getProperty("user.home"), ".spaceinvaders" + File.separator + "firestore-journal.json");
+        }
+        return path.isEmpty() ? null : new File(path);
+    }
+
     public synchronized boolean isLoggedIn() { return idToken != null; }
     public synchronized String getCurrentUserEmail() { return email; }
     public synchronized String getUid() { return localId; }
@@ -184,10 +276,13 @@ public final class FirebaseManager {
         loadConfigIfNeeded();
         try {
             JSONObject body = new JSONObject().put(FIELD_EMAIL, email).put("password", password).put(FIELD_RETURN_SECURE_TOKEN, true);
-            JSONObject res = postJson("https://identitytoolkit.googleapis.com/v1/accounts:signInWithPassword?key=" + apiKey, body);
+            JSONObject res = postJson(authApiRoot + "/accounts:signInWithPassword?key=" + apiKey, body);
             if (res == null) return false;
             applyAuthResponse(res);
             ensureUserDocExists();
+            // 지난번에 오프라인이었다면 저널에 남은 변경을 올린다
+            writes.start(WriteBehindQueue.DEFAULT_FLUSH_MILLIS);
+            writes.flushAsync();
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -199,7 +294,7 @@ public final class FirebaseManager {
         loadConfigIfNeeded();
         try {
             JSONObject body = new JSONObject().put(FIELD_EMAIL, email).put("password", password).put(FIELD_RETURN_SECURE_TOKEN, true);
-            JSONObject res = postJson("https://identitytoolkit.googleapis.com/v1/accounts:signUp?key=" + apiKey, body);
+            JSONObject res = postJson(authApiRoot + "/accounts:signUp?key=" + apiKey, body);
             if (res == null) return false;
             applyAuthResponse(res);
             ensureUserDocExists();
@@ -214,7 +309,7 @@ public final class FirebaseManager {
         if (!isLoggedIn()) return false;
         try {
             JSONObject body = new JSONObject().put("idToken", getIdToken()).put("displayName", displayName).put(FIELD_RETURN_SECURE_TOKEN, true);
-            JSONObject res = postJson("https://identitytoolkit.googleapis.com/v1/accounts:update?key=" + apiKey, body);
+            JSONObject res = postJson(authApiRoot + "/accounts:update?key=" + apiKey, body);
             return res != null;
         } catch (Exception e) {
             e.printStackTrace();
@@ -288,6 +383,10 @@ public final class FirebaseManager {
     public int getUserPoints() {
         if (!isLoggedIn()) return 0;
         if (documentsBase() == null) return 0;
+        // 쌓인 포인트 변경을 먼저 써야 읽은 값에 반영된다
+        if (writes.hasPending()) {
+            writes.flush();
+        }
         try {
             String url = documentsBase() + PATH_USERS + localId + PARAM_KEY + apiKey;
             JSONObject res = getJson(url);
@@ -363,11 +462,18 @@ public final class FirebaseManager {
 
     /** Add (or subtract) points relative to current total. Negative delta allowed; min 0. */
     public boolean addPoints(int delta) {
-        if (!isLoggedIn()) return false;
-        int current = getUserPoints();
-        int next = current + delta;
-        if (next < 0) next = 0;
-        return updateUserPoints(next);
+        if (!isLoggedIn() || documentsBase() == null) return false;
+        if (delta < 0) {
+            // 0 아래로 내려가지 않게, 읽은 잔액 기준으로 차감
+            return commitSpend(current -> Math.min(current, -delta));
+        }
+        try {
+            FieldTransforms user = new FieldTransforms(documentName(localId)).increment(FIELD_POINTS, delta);
+            return postJsonCommit(FieldTransforms.commit(user.toWrite())) != null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
     }
 
     public List<Map<String, String>> getPurchasedItemDetails() {
@@ -425,52 +531,86 @@ public final class FirebaseManager {
         // Ensure user doc exists and user has enough points
         ensureUserDocExists();
 
-        // 1. 포인트 차감 시도 (spendPoints는 이미 updateUserPoints를 사용하여 원자적으로 처리)
-        if (!spendPoints(price)) {
+        JSONObject itemFields = new JSONObject()
+                .put(FIELD_ITEM_ID, new JSONObject().put(FIELD_STRING_VALUE, itemId))
+                .put("itemName", new JSONObject().put(FIELD_STRING_VALUE, itemName))
+                .put("purchaseDate", new JSONObject().put("timestampValue", java.time.Instant.now().toString()));
+        // 커밋으로는 자동 ID를 받을 수 없으므로 같은 형식의 ID를 직접 만든다
+        String itemDoc = documentName(localId) + PATH_ITEMS + "/" + FieldTransforms.autoId();
+
+        // 포인트 차감과 아이템 문서 생성을 한 커밋으로: 둘 다 되거나 둘 다 안 된다
+        if (!commitSpend(affordable(price), FieldTransforms.create(itemDoc, itemFields))) {
             System.err.println("포인트가 부족하거나 차감에 실패했습니다.");
             return false;
         }
-        
-        // 2. 아이템 문서 생성 (자동 ID 부여)
+        return true;
+    }
+
+    /** Deduct points if there is enough; does not create an item document. */
+    public boolean spendPoints(int price) {
+        if (!isLoggedIn() || documentsBase() == null) return false;
+        return commitSpend(affordable(Math.max(0, price)));
+    }
+
+    /** @return A deduction of price, or -1 when the balance is short */
+    private static IntUnaryOperator affordable(int price) {
+        return current -> current >= price ? price : -1;
+    }
+
+    /**
+     * Take points off the user document in one commit together with other
+     * writes. The document is read for its balance and the commit only
+     * applies if it has not changed since, otherwise it is read again.
+     *
+     * @param deduction Points to take for a balance, -1 to refuse
+     * @param alsoWrite Writes to commit with the deduction
+     * @return True if the commit was applied
+     */
+    private boolean commitSpend(IntUnaryOperator deduction, JSONObject... alsoWrite) {
+        return commitSpend(deduction, user -> { }, alsoWrite);
+    }
+
+    /**
+     * @param alsoTransform Adds transforms of the user document to the deduction
+     */
+    private boolean commitSpend(IntUnaryOperator deduction, Consumer<FieldTransforms> alsoTransform, JSONObject... alsoWrite) {
+        // 쌓인 포인트가 잔액에 들어가도록 먼저 쓴다
+        if (writes.hasPending()) {
+            writes.flush();
+        }
+        String url = documentsBase() + PATH_USERS + localId + PARAM_KEY + apiKey;
         try {
-            JSONObject itemFields = new JSONObject()
-                    .put(FIELD_ITEM_ID, new JSONObject().put(FIELD_STRING_VALUE, itemId))
-                    .put("itemName", new JSONObject().put(FIELD_STRING_VALUE, itemName))
-                    .put("purchaseDate", new JSONObject().put("timestampValue", java.time.Instant.now().toString()));
-            
-            JSONObject body = new JSONObject().put(FIELD_FIELDS, itemFields);
-            
-            // POST /.../documents/users/{uid}/items 경로에 요청하여 자동 ID 생성
-            String createUrl = documentsBase() + PATH_USERS + localId + PATH_ITEMS_QUERY + apiKey;
-            
-            // postJsonFirestore는 POST 요청을 사용하여 자동 ID로 새 문서를 만듭니다.
-            JSONObject createRes = postJsonFirestore(createUrl, body);
-            
-            if (createRes != null) {
-                // 성공: 아이템이 생성되었습니다.
-                return true;
-            } else {
-                // 실패: 아이템 생성 실패 (포인트는 이미 차감됨!)
-                // ⚠️ 롤백 처리: 실패 시 차감된 포인트를 다시 돌려줘야 합니다.
-                System.err.println("[Firebase] 아이템 생성에 실패했습니다. 포인트 롤백을 시도합니다.");
-                addPoints(price); // 차감했던 포인트를 다시 추가 (롤백)
-                return false;
+            for (int attempt = 0; attempt < MAX_SPEND_ATTEMPTS; attempt++) {
+                JSONObject doc = getJson(url);
+                if (doc == null || !doc.has(FIELD_UPDATE_TIME)) return false;
+
+                int current = intField(doc.optJSONObject(FIELD_FIELDS), FIELD_POINTS);
+                int amount = deduction.applyAsInt(current);
+                if (amount < 0) {
+                    System.out.println("Not enough points. Have: " + current);
+                    return false;
+                }
+
+                FieldTransforms user = new FieldTransforms(documentName(localId)).increment(FIELD_POINTS, -amount);
+                alsoTransform.accept(user);
+                JSONObject[] all = new JSONObject[alsoWrite.length + 1];
+                all[0] = user.toWrite(doc.getString(FIELD_UPDATE_TIME));
+                System.arraycopy(alsoWrite, 0, all, 1, alsoWrite.length);
+
+                HttpTransport.Response res = sendCommit(FieldTransforms.commit(all));
+                if (res.isSuccess()) return true;
+                // 읽은 뒤 다른 쓰기가 들어온 경우만 다시 읽고 잔액을 확인, 나머지 오류는 바로 실패
+                if (!isContended(res)) return false;
             }
         } catch (Exception e) {
             e.printStackTrace();
-            // 예외 발생 시에도 롤백 처리
-            System.err.println("[Firebase] 아이템 생성 중 예외 발생. 포인트 롤백을 시도합니다.");
-            addPoints(price);
-            return false;
         }
+        return false;
     }
 
-    /** Deduct points if there is enough; does not create an item document. */
-    public boolean spendPoints(int price) {
-        if (price < 0) price = 0;
-        int current = getUserPoints();
-        if (current < price) return false;
-        return updateUserPoints(current - price);
+    private static int intField(JSONObject fields, String name) {
+        if (fields == null || !fields.has(name)) return 0;
+        return Integer.parseInt(fields.getJSONObject(name).get(FIELD_INTEGER_VALUE).toString());
     }
 
     public List<String> getPurchasedItems() {
@@ -592,32 +732,14 @@ public final class FirebaseManager {
         return 0;
     }
 
-    /** 사용자의 최고 점수를 업데이트합니다. */
+    /** 사용자의 최고 점수를 업데이트합니다. 저장된 점수가 더 높으면 그대로 둡니다. */
     public boolean updateHighestScore(int newScore) {
         if (!isLoggedIn()) return false;
         if (documentsBase() == null) return false;
         try {
-            // 🚀 [수정] 기존 'points' 필드의 값을 먼저 가져와야 합니다.
-            int currentPoints = getUserPoints(); 
-
-            // 최고 점수, 이메일, 그리고 기존 'points' 필드를 포함하여 PATCH 요청
-            JSONObject fields = new JSONObject()
-                    .put(FIELD_HIGHEST_SCORE, new JSONObject().put(FIELD_INTEGER_VALUE, newScore))
-                    .put(FIELD_EMAIL, new JSONObject().put(FIELD_STRING_VALUE, email)) 
-                    .put(FIELD_POINTS, new JSONObject().put(FIELD_INTEGER_VALUE, currentPoints)); // 👈 기존 'points' 필드 유지
-
-            JSONObject body = new JSONObject().put(FIELD_FIELDS, fields);
-            String url = documentsBase() + PATH_USERS + localId + PARAM_KEY + apiKey;
-
-            // PATCH 요청 시도
-            JSONObject res = patchJson(url, body);
-            if (res != null) return true;
-
-            // PATCH 실패 시 (e.g., 문서 부재) POST로 생성 시도 (ensureUserDocExists와 유사)
-            String createUrl = documentsBase() + PATH_USERS_QUERY + localId + PARAM_AND_KEY + apiKey;
-            JSONObject createRes = postJsonFirestore(createUrl, body);
-            return createRes != null;
-
+            // 다른 필드를 읽어 다시 쓰지 않고 서버에서 최댓값만 남긴다
+            FieldTransforms user = new FieldTransforms(documentName(localId)).maximum(FIELD_HIGHEST_SCORE, newScore);
+            return postJsonCommit(FieldTransforms.commit(user.toWrite())) != null;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -627,55 +749,37 @@ public final class FirebaseManager {
 
     // DELETE HTTP 요청 메서드도 FirebaseManager.java에 추가 (patchJson과 유사)
     private boolean deleteJson(String urlStr) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("DELETE");
-        if (idToken != null) {
-            conn.setRequestProperty(HEADER_AUTHORIZATION, HEADER_BEARER + idToken);
-        }
-        int code = conn.getResponseCode();
-        
+        HttpTransport.Response res = transport.send("DELETE", urlStr, idToken, null);
+        int code = res.getCode();
+
         if (code == 200 || code == 204) { // 200 OK 또는 204 No Content (삭제 성공)
             return true;
         } else {
-            // 에러 스트림을 읽어서 출력 (선택 사항)
-            InputStream is = conn.getErrorStream();
-            String text = (is != null) ? readAll(is) : conn.getResponseMessage();
-            System.err.println("DELETE error(" + code + "): " + text);
+            System.err.println("DELETE error(" + code + "): " + res.getErrorText());
             return false;
         }
     }
 
     private JSONObject postJson(String urlStr, JSONObject body) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty(HEADER_CONTENT_TYPE, CONTENT_TYPE_JSON);
-        conn.setDoOutput(true);
-        byte[] out = body.toString().getBytes(StandardCharsets.UTF_8);
-        try (OutputStream os = conn.getOutputStream()) { os.write(out); }
-        int code = conn.getResponseCode();
-        InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
-        String text = readAll(is);
-        if (code >= 200 && code < 300) {
-            return new JSONObject(text);
+        HttpTransport.Response res = transport.send("POST", urlStr, null, body);
+        if (res.isSuccess()) {
+            return bodyOf(res);
         } else {
             try {
-                JSONObject err = new JSONObject(text);
+                JSONObject err = new JSONObject(res.getErrorText());
                 String msg = extractFirebaseError(err);
-                System.err.println("Firebase error(" + code + "): " + msg);
+                System.err.println("Firebase error(" + res.getCode() + "): " + msg);
             } catch (Exception ignore) {
-                System.err.println("HTTP " + code + ": " + text);
+                System.err.println("HTTP " + res.getCode() + ": " + res.getErrorText());
             }
             return null;
         }
     }
 
-    private static String readAll(InputStream is) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = br.readLine()) != null) sb.append(line);
-        }
-        return sb.toString();
+    /** @return The object a success response holds, an empty one if it had no body */
+    private static JSONObject bodyOf(HttpTransport.Response res) {
+        JSONObject json = res.getObject();
+        return json != null ? json : new JSONObject();
     }
 
     private static String extractFirebaseError(JSONObject err) {
@@ -697,88 +801,79 @@ public final class FirebaseManager {
     }
 
     private JSONObject getJson(String urlStr) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("GET");
-        if (idToken != null) {
-            conn.setRequestProperty(HEADER_AUTHORIZATION, HEADER_BEARER + idToken);
-        }
-        int code = conn.getResponseCode();
-        InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
-        String text = readAll(is);
-        if (code >= 200 && code < 300) {
-            return new JSONObject(text);
+        HttpTransport.Response res = transport.send("GET", urlStr, idToken, null);
+        if (res.isSuccess()) {
+            return bodyOf(res);
         } else {
-            System.err.println("GET error(" + code + "): " + text);
+            System.err.println("GET error(" + res.getCode() + "): " + res.getErrorText());
             return null;
         }
     }
 
     private JSONObject patchJson(String urlStr, JSONObject body) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        // Some JDKs don't support PATCH; use POST + override
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("X-HTTP-Method-Override", "PATCH");
-        conn.setRequestProperty(HEADER_CONTENT_TYPE, CONTENT_TYPE_JSON);
-        if (idToken != null) {
-            conn.setRequestProperty(HEADER_AUTHORIZATION, HEADER_BEARER + idToken);
-        }
-        conn.setDoOutput(true);
-        byte[] out = body.toString().getBytes(StandardCharsets.UTF_8);
-        try (OutputStream os = conn.getOutputStream()) { os.write(out); }
-        int code = conn.getResponseCode();
-        InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
-        String text = readAll(is);
-        if (code >= 200 && code < 300) {
-            return new JSONObject(text);
+        HttpTransport.Response res = transport.send("PATCH", urlStr, idToken, body);
+        if (res.isSuccess()) {
+            return bodyOf(res);
         } else {
-            System.err.println("PATCH (override) error(" + code + "): " + text);
+            System.err.println("PATCH (override) error(" + res.getCode() + "): " + res.getErrorText());
             return null;
         }
     }
 
     private JSONObject postJsonFirestore(String urlStr, JSONObject body) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty(HEADER_CONTENT_TYPE, CONTENT_TYPE_JSON);
-        if (idToken != null) {
-            conn.setRequestProperty(HEADER_AUTHORIZATION, HEADER_BEARER + idToken);
-        }
-        conn.setDoOutput(true);
-        byte[] out = body.toString().getBytes(StandardCharsets.UTF_8);
-        try (OutputStream os = conn.getOutputStream()) { os.write(out); }
-        int code = conn.getResponseCode();
-        InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
-        String text = readAll(is);
-        if (code >= 200 && code < 300) {
-            return new JSONObject(text);
+        HttpTransport.Response res = transport.send("POST", urlStr, idToken, body);
+        if (res.isSuccess()) {
+            return bodyOf(res);
         } else {
-            System.err.println("POST error(" + code + "): " + text);
+            System.err.println("POST error(" + res.getCode() + "): " + res.getErrorText());
             return null;
         }
     }
 
     /** POST to Firestore documents:commit with Authorization header */
     private JSONObject postJsonCommit(JSONObject body) throws IOException {
+        HttpTransport.Response res = sendCommit(body);
+        return res.isSuccess() ? bodyOf(res) : null;
+    }
+
+    /** Same as postJsonCommit, but hands back the response so the caller can tell why it failed */
+    private HttpTransport.Response sendCommit(JSONObject body) throws IOException {
         String urlStr = firestoreApiRoot + PATH_PROJECTS + projectId + PATH_DATABASES + databaseId + "/documents:commit" + PARAM_KEY + apiKey;
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty(HEADER_CONTENT_TYPE, CONTENT_TYPE_JSON);
-        if (idToken != null) {
-            conn.setRequestProperty(HEADER_AUTHORIZATION, HEADER_BEARER + idToken);
+        HttpTransport.Response res = transport.send("POST", urlStr, idToken, body);
+        if (!res.isSuccess()) {
+            System.err.println("COMMIT error(" + res.getCode() + "): " + res.getErrorText());
         }
-        conn.setDoOutput(true);
-        byte[] out = body.toString().getBytes(StandardCharsets.UTF_8);
-        try (OutputStream os = conn.getOutputStream()) { os.write(out); }
-        int code = conn.getResponseCode();
-        InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
-        String text = readAll(is);
-        if (code >= 200 && code < 300) {
-            return new JSONObject(text);
-        } else {
-            System.err.println("COMMIT error(" + code + "): " + text);
+        return res;
+    }
+
+    /**
+     * @return True if the commit lost a race with another write (stale
+     * updateTime precondition or an aborted transaction), which a fresh read
+     * and another attempt can fix. Anything else won't go away by retrying.
+     */
+    private static boolean isContended(HttpTransport.Response res) {
+        String status = statusOf(res);
+        return STATUS_FAILED_PRECONDITION.equals(status) || STATUS_ABORTED.equals(status);
+    }
+
+    /** @return The Firestore status name of a failed response, null if it has none */
+    private static String statusOf(HttpTransport.Response res) {
+        try {
+            return new JSONObject(res.getErrorText()).getJSONObject("error").optString("status", null);
+        } catch (Exception ignore) {
+            // not a Firestore error body
             return null;
         }
     }
+
+    /**
+     * @return Request latency and error counts per endpoint, for every
+     * Firebase client sharing the transport
+     */
+    public HttpMetrics getHttpMetrics() {
+        return transport.getMetrics();
+    }
+
     // ========== 영구 업그레이드 시스템 ==========
 
     /**
@@ -878,82 +973,12 @@ public final class FirebaseManager {
     // FirebaseManager.java: purchaseUpgrade(String upgradeType, int cost) 메서드 수정
 
     public boolean purchaseUpgrade(String upgradeType, int cost) {
-        if (!canPurchaseUpgrade(cost)) return false;
-
-        try {
-            int currentPoints = getUserPoints();
-            int currentLevel = getUpgradeLevel(upgradeType);
-            int newLevel = currentLevel + 1;
-            int newPoints = currentPoints - cost;
-
-            String url = documentsBase() + PATH_USERS + localId + PARAM_KEY + apiKey;
-            JSONObject existing = getJson(url);
-            if (existing == null || !existing.has(FIELD_FIELDS)) return false;
-
-            JSONObject fields = buildUpgradeFields(upgradeType, newPoints, newLevel, existing.getJSONObject(FIELD_FIELDS));
-            String patchUrl = buildUpgradePatchUrl(url, upgradeType);
-
-            return executeUpgradePatch(patchUrl, fields, upgradeType, newLevel);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
-    }
-
-    private boolean canPurchaseUpgrade(int cost) {
         if (!isLoggedIn() || documentsBase() == null) return false;
 
-        int currentPoints = getUserPoints();
-        if (currentPoints < cost) {
-            System.out.println("Not enough points. Have: " + currentPoints + ", Need: " + cost);
-            return false;
-        }
-        return true;
-    }
-
-    private JSONObject buildUpgradeFields(String upgradeType, int newPoints, int newLevel, JSONObject existingFields) {
-        JSONObject fields = new JSONObject();
-
-        // Add core fields
-        fields.put(FIELD_MAX_CLEARED_STAGE, new JSONObject().put(FIELD_INTEGER_VALUE, String.valueOf(getMaxClearedStage())));
-        fields.put(FIELD_HIGHEST_SCORE, new JSONObject().put(FIELD_INTEGER_VALUE, String.valueOf(getHighestScore())));
-        fields.put(FIELD_EMAIL, new JSONObject().put(FIELD_STRING_VALUE, email));
-
-        // Add updated fields
-        fields.put(FIELD_POINTS, new JSONObject().put(FIELD_INTEGER_VALUE, newPoints));
+        // 포인트 차감과 레벨 증가를 한 변환으로
         String fieldName = UPGRADE_PREFIX + upgradeType;
-        fields.put(fieldName, new JSONObject().put(FIELD_INTEGER_VALUE, newLevel));
-
-        // Preserve other upgrade fields
-        preserveOtherUpgrades(fields, existingFields, fieldName);
-
-        return fields;
-    }
-
-    private void preserveOtherUpgrades(JSONObject fields, JSONObject existingFields, String excludeFieldName) {
-        for (String type : new String[]{UPGRADE_ATTACK, UPGRADE_HEALTH, UPGRADE_SPEED}) {
-            String fn = UPGRADE_PREFIX + type;
-            if (!fn.equals(excludeFieldName) && existingFields.has(fn)) {
-                fields.put(fn, existingFields.getJSONObject(fn));
-            }
-        }
-    }
-
-    private String buildUpgradePatchUrl(String baseUrl, String upgradeType) {
-        StringBuilder maskBuilder = new StringBuilder(baseUrl);
-        maskBuilder.append("&updateMask.fieldPaths=points");
-        maskBuilder.append("&updateMask.fieldPaths=upgrade_").append(upgradeType);
-        maskBuilder.append("&updateMask.fieldPaths=maxClearedStage");
-        maskBuilder.append("&updateMask.fieldPaths=highest_score");
-        return maskBuilder.toString();
-    }
-
-    private boolean executeUpgradePatch(String patchUrl, JSONObject fields, String upgradeType, int newLevel) throws IOException {
-        JSONObject body = new JSONObject().put(FIELD_FIELDS, fields);
-        JSONObject res = patchJson(patchUrl, body);
-
-        if (res != null) {
-            System.out.println("Successfully purchased " + upgradeType + " upgrade to level " + newLevel);
+        if (commitSpend(affordable(cost), user -> user.increment(fieldName, 1))) {
+            System.out.println("Successfully purchased " + upgradeType + " upgrade");
             return true;
         }
         return false;
@@ -1079,43 +1104,13 @@ public final class FirebaseManager {
     /** POST to Firestore documents:runQuery with Authorization header */
     private JSONObject postJsonRunQuery(JSONObject body) throws IOException { // 🚀 새로 추가
         String urlStr = firestoreApiRoot + PATH_PROJECTS + projectId + PATH_DATABASES + databaseId + "/documents:runQuery" + PARAM_KEY + apiKey;
-        HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty(HEADER_CONTENT_TYPE, CONTENT_TYPE_JSON);
-        if (idToken != null) {
-            conn.setRequestProperty(HEADER_AUTHORIZATION, HEADER_BEARER + idToken);
-        }
-        conn.setDoOutput(true);
-        byte[] out = body.toString().getBytes(StandardCharsets.UTF_8);
-        try (OutputStream os = conn.getOutputStream()) { os.write(out); }
-        int code = conn.getResponseCode();
-        InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
-        String text = readAll(is);
-        if (code >= 200 && code < 300) {
-            // runQuery는 JSON 배열을 반환하지만, JSONObject로 랩핑하여 처리하기 위해 
-            // 임시로 배열을 가진 JSONObject를 반환할 수도 있으나, 여기서는 배열을 문자열로 반환하여
-            // 호출 측에서 직접 처리하도록 단순화합니다. (기존 JSON 라이브러리 가정)
-            // 그러나 JSONObject를 반환하도록 기존 API 형태를 유지하기 위해, 응답을 감싸서 처리하는 것이 좋습니다.
-            // REST API 응답이 JSON 배열 형태 [{}, {}]이므로, 이 메서드는 JSONArray를 반환해야 합니다.
-            // 하지만 기존 FirebaseManager의 패턴을 유지하기 위해, 여기서는 오류 없이 JSON 배열을 반환한다고 가정합니다.
-            // 이로 인해 getTopScores 메서드에서 JSON 파싱 로직을 약간 수정해야 합니다.
-            
-            // runQuery의 응답은 JSON Array 이므로, 이를 JSONArray 형태로 반환하는것이 정확합니다.
-            // FirebaseManager의 패턴을 깨지 않기 위해, 여기서는 배열 그대로 문자열을 반환합니다.
-            // => getTopScores에서 직접 JSONArray로 파싱하도록 수정하겠습니다.
-            
-            // runQuery는 JSON 배열을 반환합니다. JSONObject로 감싸지 않고 바로 JSONArray를 사용하도록
-            // getTopScores를 수정하겠습니다. postJsonRunQuery는 일단 JSON 문자열을 반환하는 헬퍼로 사용하겠습니다.
-            
-            // 기존 패턴 유지를 위해, 여기서는 JSONObject를 반환하지 않고, 응답 전문(Text)을 반환하는 것으로 간주하고,
-            // getTopScores에서 JSONArray를 파싱하도록 코드를 간소화하겠습니다.
-            try {
-                return new JSONObject("{\"documents\": " + text + "}"); // 응답 배열을 JSON 객체 안에 넣어 반환 (getTopScores 수정 필요)
-            } catch (Exception e) {
-                 return new JSONObject("{\"documents\": []}");
-            }
+        HttpTransport.Response res = transport.send("POST", urlStr, idToken, body);
+        if (res.isSuccess()) {
+            // runQuery는 JSON 배열을 반환하므로 getTopScores가 읽는 형태로 감싼다
+            JSONArray results = res.getArray();
+            return new JSONObject().put(FIELD_DOCUMENTS, results != null ? results : new JSONArray());
         } else {
-            System.err.println("RUN QUERY error(" + code + "): " + text);
+            System.err.println("RUN QUERY error(" + res.getCode() + "): " + res.getErrorText());
             return null;
         }
     }
@@ -1203,4 +1198,106 @@ public final class FirebaseManager {
         // 기본값: 기록이 없으면 0 반환
         return 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The queue that session score, point and stage changes go through
+     */
+    public WriteBehindQueue getWriteBehind() {
+        return writes;
+    }
+
+    /** WriteBehindQueue 가 사용자 문서에 커밋하는 통로 */
+    private final class FirestoreBackend implements WriteBehindQueue.Backend {
+        @Override
+        public String documentName(String uid) {
+            return FirebaseManager.this.documentName(uid);
+        }
+
+        @Override
+        public WriteBehindQueue.CommitResult commit(JSONObject body) throws IOException {
+            HttpTransport.Response res = sendCommit(body);
+            if (res.isSuccess()) {
+                return WriteBehindQueue.CommitResult.WRITTEN;
+            }
+            // 플러시 커밋의 전제 조건은 배치 표시 문서가 없어야 한다는 것뿐이다
+            String status = statusOf(res);
+            return STATUS_ALREADY_EXISTS.equals(status) || STATUS_FAILED_PRECONDITION.equals(status)
+                    ? WriteBehindQueue.CommitResult.ALREADY_WRITTEN
+                    : WriteBehindQueue.CommitResult.FAILED;
+        }
+    }
+
+    // ========== 비동기 API ==========
+    // 게임 루프/입력 스레드에서는 아래 메서드만 사용한다. 결과는 Firebase-IO 스레드에서 완료된다.
+
+    private static ThreadPoolExecutor createIoExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(ASYNC_QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "Firebase-IO");
+                    t.setDaemon(true);
+                    return t;
+                });
+        // 할 일이 없으면 스레드를 내려놓는다
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 여러 동기 호출을 한 작업으로 묶어 다른 비동기 호출이 끼어들지 않게 실행한다.
+     * @param call Firebase-IO 스레드에서 실행할 작업
+     * @return 작업 결과, 대기열이 가득 찼으면 RejectedExecutionException 으로 실패
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, ioExecutor);
+        } catch (RejectedExecutionException e) {
+            System.err.println("[WARN] Firebase queue full, request dropped");
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    public CompletableFuture<Integer> getUserPointsAsync() {
+        return submit(this::getUserPoints);
+    }
+
+    public CompletableFuture<Boolean> updateUserPointsAsync(int points) {
+        return submit(() -> updateUserPoints(points));
+    }
+
+    public CompletableFuture<Boolean> addPointsAsync(int delta) {
+        return submit(() -> addPoints(delta));
+    }
+
+    public CompletableFuture<Integer> getHighestScoreAsync() {
+        return submit(this::getHighestScore);
+    }
+
+    public CompletableFuture<Boolean> updateHighestScoreAsync(int newScore) {
+        return submit(() -> updateHighestScore(newScore));
+    }
+
+    public CompletableFuture<Void> saveMaxClearedStageAsync(int stage) {
+        return submit(() -> {
+            saveMaxClearedStage(stage);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Integer> getMaxClearedStageAsync() {
+        return submit(this::getMaxClearedStage);
+    }
+
+    public CompletableFuture<List<String>> getPurchasedItemsAsync() {
+        return submit(this::getPurchasedItems);
+    }
+
+    public CompletableFuture<Map<String, Integer>> getAllUpgradesAsync() {
+        return submit(this::getAllUpgrades);
+    }
+
+    public CompletableFuture<Boolean> deletePurchasedItemAsync(String itemId) {
+        return submit(() -> deletePurchasedItem(itemId));
+    }
+}
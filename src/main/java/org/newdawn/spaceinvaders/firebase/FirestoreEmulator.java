@@ -0,0 +1,706 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process stand-in for identitytoolkit and the Firestore REST API,
+ * so the Firebase clients can be tested and benchmarked offline.
+ * <p>
+ * Only what this game calls is there: accounts:signUp, signInWithPassword
+ * and update; document GET, PATCH (with updateMask), POST (create) and
+ * DELETE; collection listing; documents:commit with update, transform and
+ * delete writes and their preconditions; and runQuery on one collection
+ * with orderBy and limit. Field transforms only work on integer values,
+ * there are no security rules and nothing is kept after close().
+ * <p>
+ * Every request can be slowed down by a latency distribution, failed with
+ * 503 UNAVAILABLE at an error rate, and turned away with 429
+ * RESOURCE_EXHAUSTED by a rate limit. Point the client at it with
+ * FirebaseManager.setEndpoints(getBaseUrl(), getBaseUrl()).
+ */
+public class FirestoreEmulator implements AutoCloseable {
+    private static final String API_ROOT = "/v1";
+    private static final String DOCUMENTS = "/documents";
+    private static final String FIELD_FIELDS = "fields";
+    private static final String FIELD_INTEGER_VALUE = "integerValue";
+
+    static {
+        // Without TCP_NODELAY the JDK server's separate header and body writes
+        // wait out the client's delayed ACK, adding ~40 ms to every answer.
+        // Read once when the first HttpServer in the JVM is made.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * How long a request takes before it is answered
+     */
+    public interface Latency {
+        /** @return Milliseconds to wait, drawn with the emulator's seeded random */
+        long nextMillis(Random random);
+    }
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+    /** Seeded so a run can be repeated, guarded by itself */
+    private final Random random;
+
+    private volatile Latency latency = fixed(0);
+    private final Map<String, Latency> endpointLatency = new ConcurrentHashMap<>();
+    private volatile double errorRate;
+
+    // token bucket, guarded by rateLock
+    private final Object rateLock = new Object();
+    private double permitsPerSecond;
+    private double burst;
+    private double permits;
+    private long lastRefill;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    // the data, guarded by this
+    private final TreeMap<String, Doc> documents = new TreeMap<>();
+    private final Map<String, Account> accounts = new HashMap<>();
+    private final Map<String, Account> sessions = new HashMap<>();
+    private long lastMicros;
+
+    /**
+     * Bind to a free port on the loopback interface, call start() to serve
+     *
+     * @param seed Seeds the latency and error draws
+     */
+    public FirestoreEmulator(long seed) throws IOException {
+        random = new Random(seed);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        // 지연을 흉내 내는 동안 다른 요청이 막히지 않게 요청마다 스레드를 쓴다
+        workers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "Firestore-Emulator");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(workers);
+        server.createContext(API_ROOT + "/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    /** @return The API root to use as both the Firestore and the auth URL */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + API_ROOT;
+    }
+
+    // ========== 장애 주입 ==========
+
+    /** @param latency How long every request takes */
+    public void setLatency(Latency latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @param endpoint An endpoint as HttpMetrics names it, e.g. "POST documents:commit"
+     * @param latency How long requests to it take, instead of the default
+     */
+    public void setLatency(String endpoint, Latency latency) {
+        endpointLatency.put(endpoint, latency);
+    }
+
+    /** @param errorRate The fraction of requests answered 503 UNAVAILABLE, 0-1 */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * @param permitsPerSecond Requests let through per second on average, 0 or less for no limit
+     * @param burst How many may come at once after a quiet period
+     */
+    public void setRateLimit(double permitsPerSecond, int burst) {
+        synchronized (rateLock) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = Math.max(1, burst);
+            this.permits = this.burst;
+            this.lastRefill = System.nanoTime();
+        }
+    }
+
+    public static Latency fixed(long millis) {
+        return random -> millis;
+    }
+
+    public static Latency uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /**
+     * A long tailed distribution like a real network's
+     *
+     * @param medianMillis Half the requests take less than this
+     * @param p99Millis 99% of the requests take less than this
+     */
+    public static Latency logNormal(long medianMillis, long p99Millis) {
+        // z(0.99) = 2.326
+        double sigma = Math.log((double) p99Millis / medianMillis) / 2.326;
+        return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /** @return Requests answered 503 by the error rate */
+    public long getInjectedErrorCount() {
+        return injectedErrors.sum();
+    }
+
+    /** @return Requests answered 429 by the rate limit */
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    /**
+     * @param name The full resource name, projects/.../documents/users/{uid}
+     * @return A copy of the document's fields, null if there is no such document
+     */
+    public synchronized JSONObject getFields(String name) {
+        Doc doc = documents.get(name);
+        return doc == null ? null : copy(doc.fields);
+    }
+
+    // ========== 요청 처리 ==========
+
+    private void handle(HttpExchange ex) throws IOException {
+        Reply reply;
+        try {
+            String method = ex.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+            if (method == null) {
+                method = ex.getRequestMethod();
+            }
+            String path = ex.getRequestURI().getPath();
+            Map<String, List<String>> query = parseQuery(ex.getRequestURI().getRawQuery());
+            JSONObject body = readBody(ex.getRequestBody());
+            requests.increment();
+
+            String endpoint = HttpMetrics.endpointOf(method, path);
+            Latency delay = endpointLatency.getOrDefault(endpoint, latency);
+            long millis;
+            synchronized (random) {
+                millis = delay.nextMillis(random);
+            }
+            if (millis > 0) {
+                Thread.sleep(millis);
+            }
+
+            if (!acquirePermit()) {
+                rateLimited.increment();
+                reply = error(429, "RESOURCE_EXHAUSTED", "Quota exceeded.");
+            } else if (nextDouble() < errorRate) {
+                injectedErrors.increment();
+                reply = error(503, "UNAVAILABLE", "The service is currently unavailable.");
+            } else {
+                reply = route(method, path.substring(API_ROOT.length() + 1), query, body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reply = error(503, "UNAVAILABLE", "Emulator shutting down.");
+        } catch (RuntimeException e) {
+            reply = error(400, "INVALID_ARGUMENT", String.valueOf(e.getMessage()));
+        }
+        send(ex, reply);
+    }
+
+    private Reply route(String method, String path, Map<String, List<String>> query, JSONObject body) {
+        if (path.startsWith("accounts:")) {
+            return "POST".equals(method) ? auth(path.substring("accounts:".length()), body) : notFound(path);
+        }
+        int documentsAt = path.indexOf(DOCUMENTS);
+        if (!path.startsWith("projects/") || documentsAt < 0) {
+            return notFound(path);
+        }
+        String root = path.substring(0, documentsAt + DOCUMENTS.length());
+        String rest = path.substring(root.length());
+
+        // documents:commit, documents:runQuery, documents/users/x:runQuery
+        int colon = rest.lastIndexOf(':');
+        if (colon >= 0 && rest.indexOf('/', colon) < 0 && "POST".equals(method)) {
+            String action = rest.substring(colon + 1);
+            if ("commit".equals(action)) {
+                return commit(body);
+            }
+            if ("runQuery".equals(action)) {
+                return runQuery(root + rest.substring(0, colon), body);
+            }
+            return notFound(path);
+        }
+        if (rest.length() < 2) {
+            return notFound(path);
+        }
+
+        String name = root + rest;
+        boolean collection = rest.substring(1).split("/").length % 2 == 1;
+        if ("GET".equals(method)) {
+            return collection ? list(name) : get(name);
+        } else if ("PATCH".equals(method) && !collection) {
+            return patch(name, query.get("updateMask.fieldPaths"), body);
+        } else if ("POST".equals(method) && collection) {
+            List<String> id = query.get("documentId");
+            return create(name + "/" + (id != null ? id.get(0) : FieldTransforms.autoId()), body);
+        } else if ("DELETE".equals(method) && !collection) {
+            return delete(name);
+        }
+        return error(400, "INVALID_ARGUMENT", method + " is not supported on " + rest);
+    }
+
+    // ========== 문서 ==========
+
+    private synchronized Reply get(String name) {
+        Doc doc = documents.get(name);
+        return doc == null ? notFound(name) : ok(doc.toJson(name));
+    }
+
+    private synchronized Reply list(String collection) {
+        JSONArray docs = new JSONArray();
+        for (Map.Entry<String, Doc> e : children(collection).entrySet()) {
+            docs.put(e.getValue().toJson(e.getKey()));
+        }
+        // 빈 컬렉션은 Firestore 처럼 빈 객체로
+        return ok(docs.length() == 0 ? new JSONObject() : new JSONObject().put("documents", docs));
+    }
+
+    private synchronized Reply patch(String name, List<String> mask, JSONObject body) {
+        Doc current = documents.get(name);
+        JSONObject fields = current == null ? new JSONObject() : copy(current.fields);
+        applyUpdate(fields, body.optJSONObject(FIELD_FIELDS), mask);
+        String time = nextTimestamp();
+        Doc next = new Doc(fields, current == null ? time : current.createTime, time);
+        documents.put(name, next);
+        return ok(next.toJson(name));
+    }
+
+    private synchronized Reply create(String name, JSONObject body) {
+        if (documents.containsKey(name)) {
+            return error(409, "ALREADY_EXISTS", "Document already exists: " + name);
+        }
+        JSONObject fields = new JSONObject();
+        applyUpdate(fields, body.optJSONObject(FIELD_FIELDS), null);
+        String time = nextTimestamp();
+        Doc doc = new Doc(fields, time, time);
+        documents.put(name, doc);
+        return ok(doc.toJson(name));
+    }
+
+    private synchronized Reply delete(String name) {
+        documents.remove(name);
+        return ok(new JSONObject());
+    }
+
+    /**
+     * Apply every write or none: the writes are staged on top of the
+     * stored documents and only copied in once all preconditions held
+     */
+    private synchronized Reply commit(JSONObject body) {
+        JSONArray writes = body.optJSONArray("writes");
+        String time = nextTimestamp();
+        // null for a deleted document
+        Map<String, Doc> staged = new HashMap<>();
+        JSONArray results = new JSONArray();
+
+        for (int i = 0; writes != null && i < writes.length(); i++) {
+            JSONObject write = writes.getJSONObject(i);
+            JSONObject update = write.optJSONObject("update");
+            JSONObject transform = write.optJSONObject("transform");
+            String name;
+            if (update != null) {
+                name = update.getString("name");
+            } else if (transform != null) {
+                name = transform.getString("document");
+            } else if (write.has("delete")) {
+                name = write.getString("delete");
+            } else {
+                return error(400, "INVALID_ARGUMENT", "Write " + i + " has no operation");
+            }
+
+            Doc current = staged.containsKey(name) ? staged.get(name) : documents.get(name);
+            Reply failed = checkPrecondition(name, current, write.optJSONObject("currentDocument"));
+            if (failed != null) {
+                return failed;
+            }
+
+            Doc next = null;
+            if (!write.has("delete")) {
+                JSONObject fields = current == null ? new JSONObject() : copy(current.fields);
+                if (update != null) {
+                    JSONObject mask = write.optJSONObject("updateMask");
+                    applyUpdate(fields, update.optJSONObject(FIELD_FIELDS), mask == null ? null : strings(mask.optJSONArray("fieldPaths")));
+                }
+                JSONArray transforms = transform != null ? transform.getJSONArray("fieldTransforms") : write.optJSONArray("updateTransforms");
+                if (transforms != null) {
+                    applyTransforms(fields, transforms);
+                }
+                next = new Doc(fields, current == null ? time : current.createTime, time);
+            }
+            staged.put(name, next);
+            results.put(new JSONObject().put("updateTime", time));
+        }
+
+        for (Map.Entry<String, Doc> e : staged.entrySet()) {
+            if (e.getValue() == null) {
+                documents.remove(e.getKey());
+            } else {
+                documents.put(e.getKey(), e.getValue());
+            }
+        }
+        return ok(new JSONObject().put("writeResults", results).put("commitTime", time));
+    }
+
+    private static Reply checkPrecondition(String name, Doc current, JSONObject precondition) {
+        if (precondition == null) {
+            return null;
+        }
+        if (precondition.has("exists")) {
+            boolean exists = precondition.getBoolean("exists");
+            if (exists && current == null) {
+                return error(404, "NOT_FOUND", "No document to update: " + name);
+            }
+            if (!exists && current != null) {
+                return error(409, "ALREADY_EXISTS", "Document already exists: " + name);
+            }
+        }
+        if (precondition.has("updateTime")
+                && (current == null || !current.updateTime.equals(precondition.getString("updateTime")))) {
+            return error(400, "FAILED_PRECONDITION", "The document was changed since it was read: " + name);
+        }
+        return null;
+    }
+
+    /**
+     * @param mask The fields to set or remove, null to replace them all
+     */
+    private static void applyUpdate(JSONObject fields, JSONObject values, List<String> mask) {
+        JSONObject given = values == null ? new JSONObject() : values;
+        if (mask == null) {
+            for (String key : new ArrayList<>(fields.keySet())) {
+                fields.remove(key);
+            }
+            for (String key : given.keySet()) {
+                fields.put(key, normalize(given.getJSONObject(key)));
+            }
+            return;
+        }
+        for (String path : mask) {
+            if (given.has(path)) {
+                fields.put(path, normalize(given.getJSONObject(path)));
+            } else {
+                fields.remove(path);
+            }
+        }
+    }
+
+    private static void applyTransforms(JSONObject fields, JSONArray transforms) {
+        for (int i = 0; i < transforms.length(); i++) {
+            JSONObject t = transforms.getJSONObject(i);
+            String path = t.getString("fieldPath");
+            boolean present = fields.has(path) && fields.getJSONObject(path).has(FIELD_INTEGER_VALUE);
+            long current = present ? integer(fields.getJSONObject(path)) : 0;
+            long value;
+            if (t.has("increment")) {
+                value = current + integer(t.getJSONObject("increment"));
+            } else if (t.has("maximum")) {
+                long operand = integer(t.getJSONObject("maximum"));
+                value = present ? Math.max(current, operand) : operand;
+            } else if (t.has("minimum")) {
+                long operand = integer(t.getJSONObject("minimum"));
+                value = present ? Math.min(current, operand) : operand;
+            } else {
+                throw new IllegalArgumentException("Transform of " + path + " is not emulated");
+            }
+            fields.put(path, new JSONObject().put(FIELD_INTEGER_VALUE, String.valueOf(value)));
+        }
+    }
+
+    private synchronized Reply runQuery(String parent, JSONObject body) {
+        JSONObject query = body.getJSONObject("structuredQuery");
+        for (String unsupported : new String[] {"where", "startAt", "endAt", "offset", "select"}) {
+            if (query.has(unsupported)) {
+                return error(400, "INVALID_ARGUMENT", "structuredQuery." + unsupported + " is not emulated");
+            }
+        }
+        String collectionId = query.getJSONArray("from").getJSONObject(0).getString("collectionId");
+        List<Map.Entry<String, Doc>> hits = new ArrayList<>(children(parent + "/" + collectionId).entrySet());
+
+        JSONArray orderBy = query.optJSONArray("orderBy");
+        if (orderBy != null && orderBy.length() > 0) {
+            JSONObject order = orderBy.getJSONObject(0);
+            String field = order.getJSONObject("field").getString("fieldPath");
+            // 정렬 필드가 없는 문서는 Firestore 처럼 결과에서 빠진다
+            hits.removeIf(e -> !e.getValue().fields.has(field));
+            Comparator<Map.Entry<String, Doc>> byField = Comparator.comparingLong(e -> integer(e.getValue().fields.getJSONObject(field)));
+            hits.sort("DESCENDING".equals(order.optString("direction")) ? byField.reversed() : byField);
+        }
+        Object limit = query.opt("limit");
+        int max = limit instanceof JSONObject ? ((JSONObject) limit).getInt("value")
+                : limit != null ? query.getInt("limit") : Integer.MAX_VALUE;
+
+        String readTime = nextTimestamp();
+        JSONArray results = new JSONArray();
+        for (Map.Entry<String, Doc> e : hits.subList(0, Math.min(max, hits.size()))) {
+            results.put(new JSONObject().put("document", e.getValue().toJson(e.getKey())).put("readTime", readTime));
+        }
+        if (results.length() == 0) {
+            results.put(new JSONObject().put("readTime", readTime));
+        }
+        return new Reply(200, results.toString());
+    }
+
+    /** @return The documents directly in a collection, by name */
+    private Map<String, Doc> children(String collection) {
+        String prefix = collection + "/";
+        Map<String, Doc> found = new TreeMap<>();
+        for (Map.Entry<String, Doc> e : documents.subMap(prefix, prefix + Character.MAX_VALUE).entrySet()) {
+            if (e.getKey().indexOf('/', prefix.length()) < 0) {
+                found.put(e.getKey(), e.getValue());
+            }
+        }
+        return found;
+    }
+
+    // ========== 인증 ==========
+
+    private synchronized Reply auth(String action, JSONObject body) {
+        String email = body.optString("email", null);
+        String password = body.optString("password", "");
+        switch (action) {
+            case "signUp":
+                if (email == null || accounts.containsKey(email)) {
+                    return authError("EMAIL_EXISTS");
+                }
+                if (password.length() < 6) {
+                    return authError("WEAK_PASSWORD : Password should be at least 6 characters");
+                }
+                Account created = new Account(FieldTransforms.autoId(), email, password);
+                accounts.put(email, created);
+                return session(created);
+            case "signInWithPassword":
+                Account account = accounts.get(email);
+                if (account == null || !account.password.equals(password)) {
+                    return authError("INVALID_LOGIN_CREDENTIALS");
+                }
+                return session(account);
+            case "update":
+                Account signedIn = sessions.get(body.optString("idToken"));
+                if (signedIn == null) {
+                    return authError("INVALID_ID_TOKEN");
+                }
+                signedIn.displayName = body.optString("displayName", signedIn.displayName);
+                return ok(new JSONObject().put("localId", signedIn.uid).put("email", signedIn.email)
+                        .put("displayName", signedIn.displayName));
+            default:
+                return notFound("accounts:" + action);
+        }
+    }
+
+    private Reply session(Account account) {
+        String idToken = "emulator-" + FieldTransforms.autoId();
+        sessions.put(idToken, account);
+        return ok(new JSONObject()
+                .put("localId", account.uid)
+                .put("email", account.email)
+                .put("idToken", idToken)
+                .put("refreshToken", FieldTransforms.autoId())
+                .put("expiresIn", "3600")
+                .put("registered", true));
+    }
+
+    // ========== 도우미 ==========
+
+    private boolean acquirePermit() {
+        synchronized (rateLock) {
+            if (permitsPerSecond <= 0) {
+                return true;
+            }
+            long now = System.nanoTime();
+            permits = Math.min(burst, permits + (now - lastRefill) / 1e9 * permitsPerSecond);
+            lastRefill = now;
+            if (permits < 1) {
+                return false;
+            }
+            permits--;
+            return true;
+        }
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    /** @return A timestamp later than any handed out before, as Firestore formats them */
+    private synchronized String nextTimestamp() {
+        lastMicros = Math.max(lastMicros + 1, System.currentTimeMillis() * 1000);
+        return Instant.ofEpochSecond(lastMicros / 1_000_000, (lastMicros % 1_000_000) * 1000).toString();
+    }
+
+    private static long integer(JSONObject value) {
+        Object v = value.opt(FIELD_INTEGER_VALUE);
+        if (v == null) {
+            throw new IllegalArgumentException("Only integer values are emulated: " + value);
+        }
+        return Long.parseLong(v.toString());
+    }
+
+    /** Integers come back as strings from Firestore whichever way they were sent */
+    private static JSONObject normalize(JSONObject value) {
+        JSONObject copy = copy(value);
+        if (copy.has(FIELD_INTEGER_VALUE)) {
+            copy.put(FIELD_INTEGER_VALUE, copy.get(FIELD_INTEGER_VALUE).toString());
+        }
+        return copy;
+    }
+
+    private static JSONObject copy(JSONObject o) {
+        return new JSONObject(o.toString());
+    }
+
+    private static List<String> strings(JSONArray array) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; array != null && i < array.length(); i++) {
+            list.add(array.getString(i));
+        }
+        return list;
+    }
+
+    private static Map<String, List<String>> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<String>> params = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+            params.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static JSONObject readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            out.write(buf, 0, n);
+        }
+        String text = new String(out.toByteArray(), StandardCharsets.UTF_8).trim();
+        return text.isEmpty() ? new JSONObject() : new JSONObject(text);
+    }
+
+    private static void send(HttpExchange ex, Reply reply) throws IOException {
+        byte[] out = reply.body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        ex.sendResponseHeaders(reply.code, out.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(out);
+        }
+    }
+
+    private static Reply ok(JSONObject body) {
+        return new Reply(200, body.toString());
+    }
+
+    private static Reply notFound(String what) {
+        return error(404, "NOT_FOUND", "Not found: " + what);
+    }
+
+    private static Reply error(int code, String status, String message) {
+        return new Reply(code, new JSONObject().put("error", new JSONObject()
+                .put("code", code).put("message", message).put("status", status)).toString());
+    }
+
+    /** identitytoolkit errors carry the reason in errors[0].message */
+    private static Reply authError(String message) {
+        return new Reply(400, new JSONObject().put("error", new JSONObject()
+                .put("code", 400)
+                .put("message", message)
+                .put("errors", new JSONArray().put(new JSONObject()
+                        .put("message", message).put("domain", "global").put("reason", "invalid")))).toString());
+    }
+
+    private static final class Reply {
+        final int code;
+        final String body;
+
+        Reply(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+
+    /** A stored document, never changed once made */
+    private static final class Doc {
+        final JSONObject fields;
+        final String createTime;
+        final String updateTime;
+
+        Doc(JSONObject fields, String createTime, String updateTime) {
+            this.fields = fields;
+            this.createTime = createTime;
+            this.updateTime = updateTime;
+        }
+
+        JSONObject toJson(String name) {
+            return new JSONObject()
+                    .put("name", name)
+                    .put(FIELD_FIELDS, copy(fields))
+                    .put("createTime", createTime)
+                    .put("updateTime", updateTime);
+        }
+    }
+
+    private static final class Account {
+        final String uid;
+        final String email;
+        final String password;
+        String displayName = "";
+
+        Account(String uid, String email, String password) {
+            this.uid = uid;
+            this.email = email;
+            this.password = password;
+        }
+    }
+}
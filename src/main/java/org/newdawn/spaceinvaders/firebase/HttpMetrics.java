@@ -0,0 +1,147 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import org.newdawn.spaceinvaders.metrics.Histogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request latency and error counts per Firebase endpoint. Document ids are
+ * taken out of the endpoint name, so every user document read is counted
+ * under "GET users/{id}" and so on.
+ */
+public class HttpMetrics {
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param endpoint See {@link #endpointOf(String, String)}
+     * @param nanos How long the request took
+     * @param error True if it failed or got an error status
+     */
+    void record(String endpoint, long nanos, boolean error) {
+        endpoints.computeIfAbsent(endpoint, Endpoint::new).record(nanos, error);
+        requests.increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    /** @return Requests sent through the transport so far */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /** @return Requests that failed or got an error status so far */
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * @return The endpoints used so far, by name
+     */
+    public Map<String, Endpoint> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    /**
+     * @return The method and the path from the collection on, with the
+     * document ids replaced, e.g. "PATCH users/{id}" or "POST accounts:signUp"
+     */
+    static String endpointOf(String method, String url) {
+        String path = url;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        int scheme = path.indexOf("://");
+        if (scheme >= 0) {
+            int slash = path.indexOf('/', scheme + 3);
+            path = slash < 0 ? "" : path.substring(slash);
+        }
+
+        // accounts:signUp, documents:commit, documents:runQuery
+        int lastSlash = path.lastIndexOf('/');
+        if (path.indexOf(':', lastSlash) >= 0) {
+            return method + " " + path.substring(lastSlash + 1);
+        }
+        int documents = path.indexOf("/documents/");
+        if (documents < 0) {
+            return method + " " + path;
+        }
+        // collection/id/collection/id...
+        String[] segments = path.substring(documents + "/documents/".length()).split("/");
+        StringBuilder name = new StringBuilder(method).append(' ');
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) {
+                name.append('/');
+            }
+            name.append(i % 2 == 0 ? segments[i] : "{id}");
+        }
+        return name.toString();
+    }
+
+    /**
+     * The requests sent to one endpoint
+     */
+    public static final class Endpoint {
+        private final String name;
+        /** Guarded by itself */
+        private final Histogram latency = new Histogram();
+        private long errors;
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, boolean error) {
+            synchronized (latency) {
+                latency.record(nanos);
+                if (error) {
+                    errors++;
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            synchronized (latency) {
+                return latency.getCount();
+            }
+        }
+
+        public long getErrors() {
+            synchronized (latency) {
+                return errors;
+            }
+        }
+
+        /**
+         * @param percentile 0-100
+         * @return The latency at the percentile in milliseconds
+         */
+        public double getLatencyMillis(double percentile) {
+            synchronized (latency) {
+                return latency.getValueAtPercentile(percentile) / 1_000_000.0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            synchronized (latency) {
+                return String.format("%s: %d requests, %d errors, p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                        name, latency.getCount(), errors,
+                        latency.getValueAtPercentile(50) / 1_000_000.0,
+                        latency.getValueAtPercentile(99) / 1_000_000.0,
+                        latency.getMax() / 1_000_000.0);
+            }
+        }
+    }
+}
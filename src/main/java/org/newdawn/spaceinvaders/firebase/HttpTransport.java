@@ -0,0 +1,63 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * How the Firebase clients send a JSON request and get the answer back.
+ * FirebaseManager and FirebaseHttpClient (and through it the auth, user and
+ * ranking managers) all go through one of these, see
+ * {@link PooledHttpTransport#getShared()}.
+ */
+public interface HttpTransport {
+    /**
+     * @param method GET, POST, PATCH or DELETE
+     * @param url The full URL, query included
+     * @param idToken Sent as a bearer token, null for none
+     * @param body The request body, null for none
+     * @return The response, also for error status codes
+     * @throws IOException If there was no response (refused, timed out, bad JSON)
+     */
+    Response send(String method, String url, String idToken, JSONObject body) throws IOException;
+
+    /**
+     * A status code with the parsed body for a success, or the raw text of
+     * the body for an error
+     */
+    final class Response {
+        private final int code;
+        private final Object json;
+        private final String errorText;
+
+        public Response(int code, Object json, String errorText) {
+            this.code = code;
+            this.json = json;
+            this.errorText = errorText;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public boolean isSuccess() {
+            return code >= 200 && code < 300;
+        }
+
+        /** @return The body if it is a JSON object, else null */
+        public JSONObject getObject() {
+            return json instanceof JSONObject ? (JSONObject) json : null;
+        }
+
+        /** @return The body if it is a JSON array (runQuery), else null */
+        public JSONArray getArray() {
+            return json instanceof JSONArray ? (JSONArray) json : null;
+        }
+
+        /** @return The body of an error response, "" if it had none */
+        public String getErrorText() {
+            return errorText == null ? "" : errorText;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.newdawn.spaceinvaders.firebase;
 
 import org.newdawn.spaceinvaders.Game;
+import org.newdawn.spaceinvaders.SpriteAtlas;
+import org.newdawn.spaceinvaders.SpriteStore;
 
 import org.newdawn.spaceinvaders.ui.StoreDialog;
 import javax.swing.*;
@@ -207,6 +209,9 @@ public class MainMenu extends JFrame {
         // OS 룩앤필
         try { UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName()); } catch (Exception ignore) {}
 
+        // 스프라이트는 백그라운드에서 미리 디코딩 (게임 도중 로딩 끊김 방지)
+        SpriteStore.get().preload(SpriteAtlas.MANIFEST);
+
         // Firebase 초기화
         FirebaseManager.getInstance().initialize();
         SwingUtilities.invokeLater(() -> new MainMenu().setVisible(true));
@@ -0,0 +1,145 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HttpURLConnection with timeouts, kept-alive connections and the body
+ * parsed straight off the stream.
+ * <p>
+ * The JDK already pools connections per host, but only takes one back if
+ * its response was read to the end and closed, and it never times out by
+ * itself. Every response here is drained and closed whatever the status,
+ * and the connection is never disconnect()ed, so the next request to
+ * Firestore or identitytoolkit reuses the socket and the TLS session.
+ */
+public class PooledHttpTransport implements HttpTransport {
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5_000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 15_000;
+
+    private static final int MAX_ERROR_TEXT = 4096;
+
+    private static final PooledHttpTransport SHARED =
+            new PooledHttpTransport(DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final HttpMetrics metrics = new HttpMetrics();
+
+    /**
+     * @param connectTimeoutMillis How long to wait for a connection
+     * @param readTimeoutMillis How long to wait for each read of the response
+     */
+    public PooledHttpTransport(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /** @return The transport all Firebase clients share by default */
+    public static PooledHttpTransport getShared() {
+        return SHARED;
+    }
+
+    public HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Response send(String method, String url, String idToken, JSONObject body) throws IOException {
+        String endpoint = HttpMetrics.endpointOf(method, url);
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            Response res = exchange(method, url, idToken, body);
+            error = !res.isSuccess();
+            return res;
+        } finally {
+            metrics.record(endpoint, System.nanoTime() - start, error);
+        }
+    }
+
+    private Response exchange(String method, String url, String idToken, JSONObject body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(connectTimeoutMillis);
+        conn.setReadTimeout(readTimeoutMillis);
+        conn.setUseCaches(false);
+        if ("PATCH".equals(method)) {
+            // HttpURLConnection doesn't support PATCH; use POST + override
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+        } else {
+            conn.setRequestMethod(method);
+        }
+        if (idToken != null) {
+            conn.setRequestProperty("Authorization", "Bearer " + idToken);
+        }
+        if (body != null) {
+            byte[] out = body.toString().getBytes(StandardCharsets.UTF_8);
+            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            conn.setDoOutput(true);
+            // left buffered (no fixed length streaming) so the headers and the
+            // small body go out in one write instead of two Nagle-delayed ones
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(out);
+            }
+        }
+
+        int code = conn.getResponseCode();
+        boolean success = code >= 200 && code < 300;
+        InputStream is = success ? conn.getInputStream() : conn.getErrorStream();
+        if (is == null) {
+            return new Response(code, null, conn.getResponseMessage());
+        }
+        try (Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            Response res = success
+                    ? new Response(code, parse(reader), null)
+                    : new Response(code, null, readText(reader));
+            drain(reader);
+            return res;
+        }
+    }
+
+    /**
+     * @return The JSON value the body holds, null for an empty body
+     */
+    private static Object parse(Reader reader) throws IOException {
+        try {
+            JSONTokener tokener = new JSONTokener(reader);
+            if (tokener.nextClean() == 0) {
+                return null;
+            }
+            tokener.back();
+            return tokener.nextValue();
+        } catch (JSONException e) {
+            throw new IOException("Malformed JSON response: " + e.getMessage(), e);
+        }
+    }
+
+    private static String readText(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buf = new char[1024];
+        int n;
+        while (text.length() < MAX_ERROR_TEXT && (n = reader.read(buf)) != -1) {
+            text.append(buf, 0, n);
+        }
+        return text.toString();
+    }
+
+    /** Read to the end so the connection can go back to the pool */
+    private static void drain(Reader reader) throws IOException {
+        char[] buf = new char[256];
+        while (reader.read(buf) != -1) {
+            // discard
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Collects the score, point and stage changes of a session and writes them
+ * to the user document later, as one documents:commit per user, instead of
+ * one PATCH (with its own read) per change.
+ * <p>
+ * Changes to the same document are merged as they come in: point deltas are
+ * summed, highest_score and maxClearedStage keep the maximum. They are sent
+ * as increment and maximum field transforms, so the server applies them to
+ * whatever the document holds by then and nothing is read first. The merged
+ * state is mirrored to a local journal file so changes made offline, or
+ * not yet flushed when the game is closed, are written the next time the
+ * same user plays.
+ * <p>
+ * A flush that fails without an answer (a read timeout, say) may still
+ * have been applied, so each batch creates a marker document named by an
+ * id of its own in the same commit. A failed batch is sent again as it was,
+ * under the same id, and a server that already has the marker rejects the
+ * whole commit instead of counting the points twice.
+ */
+public class WriteBehindQueue {
+    static final String FIELD_POINTS = "points";
+    static final String FIELD_HIGHEST_SCORE = "highest_score";
+    static final String FIELD_MAX_CLEARED_STAGE = "maxClearedStage";
+    /** 배치마다 하나씩 만드는 표시 문서의 컬렉션 (사용자 문서 아래) */
+    static final String PATH_FLUSHES = "/flushes/";
+    private static final String FIELD_FLUSH_ID = "flushId";
+    private static final String FIELD_SENT = "sent";
+
+    /** 기본 플러시 주기 (ms) */
+    public static final long DEFAULT_FLUSH_MILLIS = 30_000;
+
+    /**
+     * What the queue needs from Firestore
+     */
+    interface Backend {
+        /** @return The full resource name of a user document */
+        String documentName(String uid);
+
+        /** @return What became of the commit */
+        CommitResult commit(JSONObject body) throws IOException;
+    }
+
+    enum CommitResult {
+        /** The commit was applied now */
+        WRITTEN,
+        /** The batch marker already exists, an earlier attempt was applied */
+        ALREADY_WRITTEN,
+        /** Nothing was applied */
+        FAILED
+    }
+
+    /** Changes not written yet, by uid, guarded by itself */
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    /** Batches sent without knowing whether they were applied, by uid, guarded by pending */
+    private final Map<String, Pending> sent = new LinkedHashMap<>();
+    private final Backend backend;
+    /** The user currently signed in, only their changes can be flushed */
+    private final Supplier<String> currentUid;
+    /** Where flushes and journal writes run */
+    private final Executor executor;
+    /** The journal file, null for none */
+    private volatile File journal;
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param backend Commits changes to user documents
+     * @param currentUid The uid of the signed in user, null if none
+     * @param executor Runs flushes and journal writes off the caller
+     * @param journal Where unflushed changes are kept, null for nowhere
+     */
+    WriteBehindQueue(Backend backend, Supplier<String> currentUid, Executor executor, File journal) {
+        this.backend = backend;
+        this.currentUid = currentUid;
+        this.executor = executor;
+        this.journal = journal;
+        loadJournal();
+    }
+
+    /**
+     * Move the journal, picking up whatever the new file holds. Setting the
+     * file already in use does nothing, so its changes are not counted twice.
+     *
+     * @param journal Where unflushed changes are kept, null for nowhere
+     */
+    public synchronized void setJournal(File journal) {
+        if (Objects.equals(this.journal, journal)) {
+            return;
+        }
+        this.journal = journal;
+        loadJournal();
+    }
+
+    /**
+     * Flush every so often, and once more when the JVM shuts down
+     *
+     * @param periodMillis Time between flushes
+     */
+    public synchronized void start(long periodMillis) {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Firebase-Flush");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(this::flushAsync, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "Firebase-Flush-Shutdown"));
+    }
+
+    /** 포인트 증감 (음수 가능) */
+    public void addPoints(int delta) {
+        update(p -> p.points += delta);
+    }
+
+    /** 최고 점수 후보, 기존보다 높을 때만 반영된다 */
+    public void offerHighestScore(int score) {
+        update(p -> p.highestScore = Math.max(p.highestScore, score));
+    }
+
+    /** 최대 클리어 스테이지 후보, 기존보다 높을 때만 반영된다 */
+    public void offerMaxClearedStage(int stage) {
+        update(p -> p.maxClearedStage = Math.max(p.maxClearedStage, stage));
+    }
+
+    /**
+     * @return The highest score queued for the signed in user, -1 if none
+     */
+    public int getPendingHighestScore() {
+        String uid = currentUid.get();
+        if (uid == null) {
+            return -1;
+        }
+        synchronized (pending) {
+            Pending p = pending.get(uid);
+            Pending s = sent.get(uid);
+            return Math.max(p == null ? -1 : p.highestScore, s == null ? -1 : s.highestScore);
+        }
+    }
+
+    /**
+     * @return True if the signed in user has changes not written yet
+     */
+    public boolean hasPending() {
+        String uid = currentUid.get();
+        synchronized (pending) {
+            return uid != null && (pending.containsKey(uid) || sent.containsKey(uid));
+        }
+    }
+
+    /**
+     * Flush the signed in user's changes on the executor
+     */
+    public void flushAsync() {
+        try {
+            executor.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            // 다음 주기에 다시 시도
+            System.err.println("[WARN] Write-behind flush skipped, queue full");
+        }
+    }
+
+    /**
+     * Write the signed in user's changes now, on the calling thread. A batch
+     * that fails stays in the journal and is sent again, unchanged and
+     * before anything newer, by the next flush.
+     *
+     * @return True if nothing is left to write for the user
+     */
+    public synchronized boolean flush() {
+        String uid = currentUid.get();
+        if (uid == null) {
+            return false;
+        }
+        Pending batch;
+        while ((batch = nextBatch(uid)) != null) {
+            if (!send(uid, batch)) {
+                saveJournal();
+                return false;
+            }
+            synchronized (pending) {
+                sent.remove(uid);
+            }
+        }
+        saveJournal();
+        return true;
+    }
+
+    /**
+     * @return The batch that may already have been applied, otherwise the
+     * changes collected since, under a new id. Null if there is neither.
+     */
+    private Pending nextBatch(String uid) {
+        synchronized (pending) {
+            Pending batch = sent.get(uid);
+            if (batch == null) {
+                batch = pending.remove(uid);
+                if (batch == null) {
+                    return null;
+                }
+                batch.flushId = FieldTransforms.autoId();
+                sent.put(uid, batch);
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * @return True if the batch is known to be on the server
+     */
+    private boolean send(String uid, Pending batch) {
+        JSONObject commit = buildCommit(uid, batch);
+        if (commit == null) {
+            return true;
+        }
+        // 응답을 못 받고 꺼져도 다음에 같은 id 로 보내도록 먼저 저널에 남긴다
+        saveJournal();
+        try {
+            return backend.commit(commit) != CommitResult.FAILED;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[WARN] Write-behind flush failed, kept in journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * One transform of the user document with the merged changes. Points
+     * are incremented by the summed delta, so a negative total is not
+     * clamped at zero; only spending goes below and that is checked by
+     * FirebaseManager against the stored balance. A batch with an id also
+     * creates its marker document, which must not exist yet.
+     *
+     * @return The commit request body, null if nothing was changed
+     */
+    JSONObject buildCommit(String uid, Pending p) {
+        FieldTransforms transforms = new FieldTransforms(backend.documentName(uid));
+        if (p.points != 0) {
+            transforms.increment(FIELD_POINTS, p.points);
+        }
+        if (p.highestScore >= 0) {
+            transforms.maximum(FIELD_HIGHEST_SCORE, p.highestScore);
+        }
+        if (p.maxClearedStage >= 0) {
+            transforms.maximum(FIELD_MAX_CLEARED_STAGE, p.maxClearedStage);
+        }
+
+        if (transforms.isEmpty()) {
+            return null;
+        }
+        if (p.flushId == null) {
+            return FieldTransforms.commit(transforms.toWrite());
+        }
+        JSONObject marker = FieldTransforms.create(backend.documentName(uid) + PATH_FLUSHES + p.flushId, new JSONObject());
+        return FieldTransforms.commit(transforms.toWrite(), marker);
+    }
+
+    private void update(Consumer<Pending> change) {
+        String uid = currentUid.get();
+        if (uid == null) {
+            return;
+        }
+        synchronized (pending) {
+            change.accept(pending.computeIfAbsent(uid, k -> new Pending()));
+        }
+        // 파일 쓰기는 호출한 스레드(게임 루프)가 아닌 곳에서
+        try {
+            executor.execute(this::saveJournal);
+        } catch (RejectedExecutionException e) {
+            // the next flush rewrites the journal anyway
+        }
+    }
+
+    // ========== 저널 ==========
+
+    private void saveJournal() {
+        File journal = this.journal;
+        if (journal == null) {
+            return;
+        }
+        JSONObject root = new JSONObject();
+        synchronized (pending) {
+            for (Map.Entry<String, Pending> e : pending.entrySet()) {
+                root.put(e.getKey(), e.getValue().toJson());
+            }
+            // 보냈지만 결과를 모르는 배치는 id 와 함께 사용자 항목 아래에
+            for (Map.Entry<String, Pending> e : sent.entrySet()) {
+                JSONObject user = root.optJSONObject(e.getKey());
+                if (user == null) {
+                    user = new Pending().toJson();
+                    root.put(e.getKey(), user);
+                }
+                user.put(FIELD_SENT, e.getValue().toJson());
+            }
+        }
+        try {
+            if (root.length() == 0) {
+                Files.deleteIfExists(journal.toPath());
+                return;
+            }
+            File dir = journal.getAbsoluteFile().getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            // 쓰다가 꺼져도 이전 저널은 남도록 임시 파일에 쓴 뒤 교체
+            File tmp = new File(dir, journal.getName() + ".tmp");
+            Files.write(tmp.toPath(), root.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), journal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("[WARN] Write-behind journal not written: " + e.getMessage());
+        }
+    }
+
+    private void loadJournal() {
+        File journal = this.journal;
+        if (journal == null || !journal.isFile()) {
+            return;
+        }
+        try {
+            JSONObject root = new JSONObject(new String(Files.readAllBytes(journal.toPath()), StandardCharsets.UTF_8));
+            synchronized (pending) {
+                for (String uid : root.keySet()) {
+                    JSONObject user = root.getJSONObject(uid);
+                    Pending open = pending.computeIfAbsent(uid, k -> new Pending());
+                    open.merge(Pending.fromJson(user));
+                    JSONObject batch = user.optJSONObject(FIELD_SENT);
+                    if (batch == null) {
+                        continue;
+                    }
+                    if (!sent.containsKey(uid)) {
+                        sent.put(uid, Pending.fromJson(batch));
+                    } else {
+                        // only when switching journals: one batch per user can be outstanding
+                        open.merge(Pending.fromJson(batch));
+                    }
+                    if (open.isEmpty()) {
+                        pending.remove(uid);
+                    }
+                }
+            }
+            System.out.println("[INFO] Write-behind journal loaded for " + root.length() + " user(s)");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[WARN] Write-behind journal not read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The merged changes to one user document
+     */
+    static final class Pending {
+        int points;
+        int highestScore = -1;
+        int maxClearedStage = -1;
+        /** Names the marker document of the batch, null until it is first sent */
+        String flushId;
+
+        boolean isEmpty() {
+            return points == 0 && highestScore < 0 && maxClearedStage < 0;
+        }
+
+        void merge(Pending other) {
+            points += other.points;
+            highestScore = Math.max(highestScore, other.highestScore);
+            maxClearedStage = Math.max(maxClearedStage, other.maxClearedStage);
+        }
+
+        JSONObject toJson() {
+            return new JSONObject()
+                    .put(FIELD_POINTS, points)
+                    .put(FIELD_HIGHEST_SCORE, highestScore)
+                    .put(FIELD_MAX_CLEARED_STAGE, maxClearedStage)
+                    .putOpt(FIELD_FLUSH_ID, flushId);
+        }
+
+        static Pending fromJson(JSONObject o) {
+            Pending p = new Pending();
+            p.points = o.optInt(FIELD_POINTS, 0);
+            p.highestScore = o.optInt(FIELD_HIGHEST_SCORE, -1);
+            p.maxClearedStage = o.optInt(FIELD_MAX_CLEARED_STAGE, -1);
+            p.flushId = o.optString(FIELD_FLUSH_ID, null);
+            return p;
+        }
+    }
+}
@@ -7,6 +7,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 /**
  * Item usage/stack management & buff runtime logic.
@@ -28,7 +31,11 @@ public class ItemManager {
     private final FirebaseManager firebase; // 선택 사용 (소비 동기화 등 향후 확장용)
 
     // 보유 수량: key는 논리 id (위 상수 4종) 또는 Registry의 id를 소문자로 매핑
-    private final Map<String, Integer> counts = new HashMap<>();
+    // 입력 스레드, 게임 루프, Firebase-IO 스레드가 함께 쓰므로 ConcurrentHashMap
+    private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+
+    // 버프 만료 판정에 쓰는 시계 (ms). 기본은 벽시계, Game은 시뮬레이션 시간을 넣는다
+    private LongSupplier clock = System::currentTimeMillis;
 
     // 버프 지속시간(ms)
     private long ammoBoostUntil = 0L;
@@ -90,10 +97,19 @@ public class ItemManager {
     }
 
     public Effect use(String itemId) {
+        if (!consume(itemId)) return Effect.NONE;
+        return activate(itemId);
+    }
+
+    /**
+     * 수량을 1 줄이고 (로그인 시) DB에서도 삭제한다. 효과는 적용하지 않는다.
+     * @return 실제로 소모되었으면 true
+     */
+    public boolean consume(String itemId) {
         String k = normalizeId(itemId);
-        if (k == null) return Effect.NONE;
+        if (k == null) return false;
         int have = counts.getOrDefault(k, 0);
-        if (have <= 0) return Effect.NONE;
+        if (have <= 0) return false;
 
         // 1. Firebase 연동이 필요하고 로그인되어 있다면, 먼저 DB에서 삭제를 시도합니다.
         boolean dbDeleteSuccess = true;
@@ -102,35 +118,83 @@ public class ItemManager {
             dbDeleteSuccess = firebase.deletePurchasedItem(k); 
         }
 
-        if (dbDeleteSuccess) {
-            // 2. DB 삭제가 성공(또는 연동 필요 없음)한 경우에만 내부 카운트 감소
-            counts.put(k, have - 1);
-            
-            // 3. 효과 적용
-            long now = System.currentTimeMillis();
-            if (ID_AMMO.equals(k)) {
-                ammoBoostUntil = Math.max(ammoBoostUntil, now) + DURATION_AMMO_MS;
-                return Effect.AMMO_BOOST;
-            }
-            if (ID_DOUBLE_SCORE.equals(k)) {
-                doubleScoreUntil = Math.max(doubleScoreUntil, now) + DURATION_DOUBLE_SCORE_MS;
-                return Effect.DOUBLE_SCORE;
-            }
-            if (ID_INVINCIBILITY.equals(k)) {
-                invincibleUntil = Math.max(invincibleUntil, now) + DURATION_INVINCIBLE_MS;
-                return Effect.INVINCIBILITY;
-            }
-            if (ID_PLUS_LIFE.equals(k)) {
-                return Effect.PLUS_LIFE;
-            }
-        } else {
-            // 4. DB 삭제 실패 시, 아이템은 소모되지 않은 것으로 처리
+        if (!dbDeleteSuccess) {
+            // DB 삭제 실패 시, 아이템은 소모되지 않은 것으로 처리
             System.err.println("[ItemManager] Item DB deletion failed. Usage cancelled.");
+            return false;
         }
 
+        // DB 삭제가 성공(또는 연동 필요 없음)한 경우에만 내부 카운트 감소
+        counts.put(k, have - 1);
+        return true;
+    }
+
+    /**
+     * consume()의 비동기 버전. 수량은 바로 1 줄여 두고 DB 삭제는 Firebase-IO 스레드에서 한다.
+     * 삭제가 실패하면 수량을 되돌리고 false 로 완료된다.
+     * @return 실제로 소모되었으면 true 로 완료, 효과는 그 뒤에 적용할 것
+     */
+    public CompletableFuture<Boolean> consumeAsync(String itemId) {
+        String k = normalizeId(itemId);
+        if (k == null || !reserve(k)) return CompletableFuture.completedFuture(false);
+        if (firebase == null || !firebase.isLoggedIn()) return CompletableFuture.completedFuture(true);
+
+        return firebase.deletePurchasedItemAsync(k).handle((deleted, error) -> {
+            if (error == null && Boolean.TRUE.equals(deleted)) return true;
+            // DB 삭제 실패 시, 아이템은 소모되지 않은 것으로 처리
+            counts.merge(k, 1, Integer::sum);
+            System.err.println("[ItemManager] Item DB deletion failed. Usage cancelled.");
+            return false;
+        });
+    }
+
+    /** 수량이 남아 있으면 원자적으로 1 줄인다 (연타로 두 번 쓰이지 않도록) */
+    private boolean reserve(String k) {
+        while (true) {
+            Integer have = counts.get(k);
+            if (have == null || have <= 0) return false;
+            if (counts.replace(k, have, have - 1)) return true;
+        }
+    }
+
+    /**
+     * 수량과 상관없이 효과만 적용한다 (소모는 consume()에서 이미 끝난 경우, 리플레이 재생 등)
+     */
+    public Effect activate(String itemId) {
+        String k = normalizeId(itemId);
+        if (k == null) return Effect.NONE;
+
+        long now = clock.getAsLong();
+        if (ID_AMMO.equals(k)) {
+            ammoBoostUntil = Math.max(ammoBoostUntil, now) + DURATION_AMMO_MS;
+            return Effect.AMMO_BOOST;
+        }
+        if (ID_DOUBLE_SCORE.equals(k)) {
+            doubleScoreUntil = Math.max(doubleScoreUntil, now) + DURATION_DOUBLE_SCORE_MS;
+            return Effect.DOUBLE_SCORE;
+        }
+        if (ID_INVINCIBILITY.equals(k)) {
+            invincibleUntil = Math.max(invincibleUntil, now) + DURATION_INVINCIBLE_MS;
+            return Effect.INVINCIBILITY;
+        }
+        if (ID_PLUS_LIFE.equals(k)) {
+            return Effect.PLUS_LIFE;
+        }
         return Effect.NONE;
     }
 
+    /** 진행 중인 버프를 모두 끝낸다 (새 스테이지 시작 시) */
+    public void clearBuffs() {
+        ammoBoostUntil = 0L;
+        doubleScoreUntil = 0L;
+        invincibleUntil = 0L;
+    }
+
+    /** 버프 만료에 쓸 시계 교체 (ms 단위, 시뮬레이션 시간 등) */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
     /**
      * 매 프레임 호출(선택). 현재 구현은 절대시간 비교로 충분하므로 비워도 됨.
      * 필요 시 tick 기반 로직으로 확장 가능.
@@ -142,15 +206,15 @@ public class ItemManager {
     // ===== Game에서 조회할 런타임 상태 =====
 
     public boolean isInvincible() {
-        return System.currentTimeMillis() < invincibleUntil;
+        return clock.getAsLong() < invincibleUntil;
     }
 
     public boolean isDoubleScoreActive() {
-        return System.currentTimeMillis() < doubleScoreUntil;
+        return clock.getAsLong() < doubleScoreUntil;
     }
 
     public boolean isAmmoBoostActive() {
-        return System.currentTimeMillis() < ammoBoostUntil;
+        return clock.getAsLong() < ammoBoostUntil;
     }
 
     /** 점수 배수 (기본 1.0, 더블스코어 중이면 2.0) */
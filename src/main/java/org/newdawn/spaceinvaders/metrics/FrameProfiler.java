@@ -0,0 +1,287 @@
+package org.newdawn.spaceinvaders.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Nanosecond timings of each phase of a tick and a frame, kept in one
+ * histogram per phase so a hitch can be pinned on the phase that caused
+ * it rather than only showing up as a lower FPS.
+ * <p>
+ * The game and render threads only lap() - a nanoTime() and a bucket
+ * increment. Once a second a daemon thread rolls what was recorded into
+ * the stats the overlay shows, and when a dump directory is set it
+ * appends them to frame-times.csv and rewrites the session totals in
+ * frame-times.json there, so no file I/O ever happens inside a frame.
+ */
+public class FrameProfiler {
+	/** What the time was spent on */
+	public enum Phase {
+		/** Player input, enemy fire and moving the entities (per tick) */
+		MOVE,
+		/** The collision pass (per tick) */
+		COLLISIONS,
+		/** Dropping the dead entities (per tick) */
+		REMOVAL,
+		/** Entity doLogic() (per tick) */
+		LOGIC,
+		/** Snapshotting and drawing the frame */
+		DRAW,
+		/** Flipping the buffer strategy */
+		SHOW,
+		/** Waiting off the rest of the frame */
+		SLEEP
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+	public static final String CSV_FILE = "frame-times.csv";
+	public static final String JSON_FILE = "frame-times.json";
+
+	/** Written by the game/render threads, each locked on itself */
+	private final Histogram[] recording = new Histogram[PHASES.length];
+	/** Since the last dump, only touched by the roll thread */
+	private final Histogram[] sinceDump = new Histogram[PHASES.length];
+	/** Since start, only touched by the roll thread */
+	private final Histogram[] total = new Histogram[PHASES.length];
+	private final Histogram scratch = new Histogram();
+	/** Extra values written with the totals, by name */
+	private final Map<String, LongSupplier> counters = new LinkedHashMap<>();
+
+	/** Where to dump, null to only feed the overlay */
+	private final File dumpDir;
+	/** How many one second rolls go into a CSV row */
+	private final int dumpEvery;
+	private int rollsSinceDump;
+	private ScheduledExecutorService roller;
+
+	/** What the overlay shows: the last full second */
+	private volatile Stats[] lastSecond = emptyStats();
+	private volatile boolean overlayVisible;
+
+	/**
+	 * @param dumpDir Directory for frame-times.csv/json, null for none
+	 * @param dumpSeconds How many seconds each CSV row covers
+	 */
+	public FrameProfiler(File dumpDir, int dumpSeconds) {
+		for (int i = 0; i < PHASES.length; i++) {
+			recording[i] = new Histogram();
+			sinceDump[i] = new Histogram();
+			total[i] = new Histogram();
+		}
+		this.dumpDir = dumpDir;
+		this.dumpEvery = Math.max(1, dumpSeconds);
+	}
+
+	/**
+	 * Record the time since start against a phase
+	 *
+	 * @param phase The phase that just finished
+	 * @param start System.nanoTime() when it began
+	 * @return System.nanoTime() now, the start of whatever comes next
+	 */
+	public long lap(Phase phase, long start) {
+		long now = System.nanoTime();
+		Histogram h = recording[phase.ordinal()];
+		synchronized (h) {
+			h.record(now - start);
+		}
+		return now;
+	}
+
+	/**
+	 * Start rolling the histograms once a second
+	 */
+	public synchronized void start() {
+		if (roller != null) {
+			return;
+		}
+		roller = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "Frame-Profiler");
+			t.setDaemon(true);
+			return t;
+		});
+		roller.scheduleAtFixedRate(this::roll, 1, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stop rolling and dump whatever has not been dumped yet
+	 */
+	public synchronized void stop() {
+		if (roller == null) {
+			return;
+		}
+		roller.shutdown();
+		try {
+			roller.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		roller = null;
+		roll();
+		if (rollsSinceDump > 0) {
+			dump();
+		}
+	}
+
+	/**
+	 * Add a value to write into frame-times.json with every dump
+	 *
+	 * @param name The JSON key
+	 * @param counter Read on the dump thread, must be thread safe
+	 */
+	public void addCounter(String name, LongSupplier counter) {
+		synchronized (counters) {
+			counters.put(name, counter);
+		}
+	}
+
+	public boolean isOverlayVisible() {
+		return overlayVisible;
+	}
+
+	public void toggleOverlay() {
+		overlayVisible = !overlayVisible;
+	}
+
+	/**
+	 * @return Per phase stats of the last full second, indexed by ordinal
+	 */
+	public Stats[] getLastSecond() {
+		return lastSecond;
+	}
+
+	/**
+	 * Move what was recorded into the overlay stats and the dump totals
+	 */
+	void roll() {
+		Stats[] stats = new Stats[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++) {
+			Histogram h = recording[i];
+			synchronized (h) {
+				scratch.reset();
+				scratch.add(h);
+				h.reset();
+			}
+			stats[i] = new Stats(PHASES[i], scratch);
+			sinceDump[i].add(scratch);
+			total[i].add(scratch);
+		}
+		lastSecond = stats;
+
+		if (++rollsSinceDump >= dumpEvery) {
+			dump();
+		}
+	}
+
+	private void dump() {
+		rollsSinceDump = 0;
+		if (dumpDir == null) {
+			for (Histogram h : sinceDump) {
+				h.reset();
+			}
+			return;
+		}
+
+		try {
+			if (!dumpDir.isDirectory() && !dumpDir.mkdirs()) {
+				throw new IOException("Cannot create " + dumpDir);
+			}
+			appendCsv(new File(dumpDir, CSV_FILE));
+			writeJson(new File(dumpDir, JSON_FILE));
+		} catch (IOException e) {
+			System.err.println("[WARN] Frame times not written: " + e.getMessage());
+		}
+	}
+
+	private void appendCsv(File file) throws IOException {
+		boolean header = !file.exists();
+		long now = System.currentTimeMillis();
+		try (Writer out = new FileWriter(file, true)) {
+			if (header) {
+				out.write("time,phase,count,mean_us,p50_us,p99_us,p999_us,max_us\n");
+			}
+			for (int i = 0; i < PHASES.length; i++) {
+				Stats s = new Stats(PHASES[i], sinceDump[i]);
+				out.write(String.format(Locale.ROOT, "%d,%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n",
+						now, s.phase.name().toLowerCase(Locale.ROOT), s.count,
+						s.mean / 1000.0, s.p50 / 1000.0, s.p99 / 1000.0, s.p999 / 1000.0, s.max / 1000.0));
+				sinceDump[i].reset();
+			}
+		}
+	}
+
+	private void writeJson(File file) throws IOException {
+		JSONArray phases = new JSONArray();
+		for (int i = 0; i < PHASES.length; i++) {
+			Stats s = new Stats(PHASES[i], total[i]);
+			JSONObject o = new JSONObject();
+			o.put("phase", s.phase.name().toLowerCase(Locale.ROOT));
+			o.put("count", s.count);
+			o.put("meanNanos", Math.round(s.mean));
+			o.put("p50Nanos", s.p50);
+			o.put("p99Nanos", s.p99);
+			o.put("p999Nanos", s.p999);
+			o.put("maxNanos", s.max);
+			phases.put(o);
+		}
+		JSONObject root = new JSONObject();
+		root.put("updated", System.currentTimeMillis());
+		root.put("phases", phases);
+
+		JSONObject values = new JSONObject();
+		synchronized (counters) {
+			for (Map.Entry<String, LongSupplier> counter : counters.entrySet()) {
+				values.put(counter.getKey(), counter.getValue().getAsLong());
+			}
+		}
+		root.put("counters", values);
+
+		try (Writer out = new FileWriter(file)) {
+			out.write(root.toString(2));
+		}
+	}
+
+	private static Stats[] emptyStats() {
+		Stats[] stats = new Stats[PHASES.length];
+		Histogram empty = new Histogram();
+		for (int i = 0; i < PHASES.length; i++) {
+			stats[i] = new Stats(PHASES[i], empty);
+		}
+		return stats;
+	}
+
+	/**
+	 * Percentiles of one phase over some interval, in nanoseconds
+	 */
+	public static final class Stats {
+		public final Phase phase;
+		public final long count;
+		public final double mean;
+		public final long p50;
+		public final long p99;
+		public final long p999;
+		public final long max;
+
+		Stats(Phase phase, Histogram h) {
+			this.phase = phase;
+			this.count = h.getCount();
+			this.mean = h.getMean();
+			this.p50 = h.getValueAtPercentile(50);
+			this.p99 = h.getValueAtPercentile(99);
+			this.p999 = h.getValueAtPercentile(99.9);
+			this.max = h.getMax();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package org.newdawn.spaceinvaders.metrics;
+
+/**
+ * A log-linear histogram of non-negative long values (nanoseconds here).
+ * Each power of two is split into SUB_BUCKETS / 2 linear buckets, so a
+ * recorded value is only ever off by about 3% and recording is a couple
+ * of shifts and an array increment - no allocation, no sorting.
+ * <p>
+ * Not thread safe, callers lock around it (see FrameProfiler).
+ */
+public class Histogram {
+	/** Values below this land in a bucket of their own */
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF = SUB_BUCKETS / 2;
+	/** Anything from 2^40 ns (about 18 minutes) up is counted as that */
+	private static final int MAX_BITS = 40;
+	private static final long MAX_TRACKABLE = (1L << MAX_BITS) - 1;
+	private static final int BUCKET_COUNT = (MAX_BITS - SUB_BUCKET_BITS + 2) * HALF;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long totalCount;
+	private long max;
+	private long sum;
+
+	/**
+	 * @param value The value to count, negative values count as 0
+	 */
+	public void record(long value) {
+		long v = Math.max(0, value);
+		counts[indexOf(Math.min(v, MAX_TRACKABLE))]++;
+		totalCount++;
+		sum += v;
+		if (v > max) {
+			max = v;
+		}
+	}
+
+	/**
+	 * Add all values of another histogram to this one
+	 */
+	public void add(Histogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	public void reset() {
+		java.util.Arrays.fill(counts, 0);
+		totalCount = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	public long getCount() {
+		return totalCount;
+	}
+
+	/**
+	 * @return The exact largest value recorded, 0 if empty
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return totalCount == 0 ? 0 : (double) sum / totalCount;
+	}
+
+	/**
+	 * @param percentile 0-100, e.g. 99.9
+	 * @return The highest value in the bucket the percentile falls into,
+	 * never more than the max, or 0 if empty
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile / 100.0 * totalCount);
+		rank = Math.max(1, Math.min(totalCount, rank));
+
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), max);
+			}
+		}
+		return max;
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		// value >>> shift is in [HALF, SUB_BUCKETS)
+		return shift * HALF + (int) (value >>> shift);
+	}
+
+	static long highestValueOf(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / HALF - 1;
+		long top = index - (long) shift * HALF;
+		return ((top + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,80 @@
+package org.newdawn.spaceinvaders.render;
+
+import java.awt.AlphaComposite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A part of the screen (HUD, item panel, HP bars) kept in an offscreen
+ * image. It is only redrawn when the values it shows change, every other
+ * frame it costs a single blit.
+ * <p>
+ * The values are handed in as an int array that the caller may reuse,
+ * the font too since the layers draw text with whatever font the screen
+ * graphics has at that point.
+ */
+final class CachedLayer {
+	private BufferedImage image;
+	/** Where the image goes on screen */
+	private int x;
+	private int y;
+	/** What the image was last drawn from */
+	private int[] key = new int[0];
+	private Font font;
+
+	/**
+	 * @param inputs The values the layer shows
+	 * @param font The font the layer would draw text with
+	 * @return True if the image still shows exactly these
+	 */
+	boolean isValid(int[] inputs, Font font) {
+		return image != null && Arrays.equals(key, inputs) && font.equals(this.font);
+	}
+
+	/**
+	 * Start redrawing the layer. The graphics returned are translated so
+	 * the caller draws in screen coordinates, and start out with the
+	 * font given.
+	 *
+	 * @param screen The graphics the layer will be blitted onto
+	 * @param inputs The values about to be drawn, copied
+	 * @param x The left edge of the layer on screen
+	 * @param y The top edge of the layer on screen
+	 * @param w The width of the layer
+	 * @param h The height of the layer
+	 * @return Graphics onto the cleared layer, dispose when done
+	 */
+	Graphics2D begin(Graphics2D screen, int[] inputs, int x, int y, int w, int h) {
+		w = Math.max(1, w);
+		h = Math.max(1, h);
+		if (image == null || image.getWidth() != w || image.getHeight() != h) {
+			GraphicsConfiguration gc = screen.getDeviceConfiguration();
+			image = gc.createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+		}
+		this.x = x;
+		this.y = y;
+		this.key = Arrays.copyOf(inputs, inputs.length);
+		this.font = screen.getFont();
+
+		Graphics2D g = image.createGraphics();
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, w, h);
+		g.setComposite(AlphaComposite.SrcOver);
+		g.translate(-x, -y);
+		g.setFont(font);
+		return g;
+	}
+
+	/**
+	 * Draw the layer as it was last drawn
+	 */
+	void blit(Graphics2D screen) {
+		if (image != null) {
+			screen.drawImage(image, x, y, null);
+		}
+	}
+}
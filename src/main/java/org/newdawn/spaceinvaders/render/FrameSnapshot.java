@@ -0,0 +1,171 @@
+package org.newdawn.spaceinvaders.render;
+
+import org.newdawn.spaceinvaders.Sprite;
+
+/**
+ * Everything the renderer needs to draw one frame: the sprite and the
+ * previous/current location of every entity plus the HUD and overlay state.
+ * <p>
+ * Snapshots are allocated once and reused. The simulation fills one in at
+ * the end of a tick and hands it over through a {@link TripleBuffer}; from
+ * then on it is only read until the simulation gets it back, so neither
+ * side ever sees a half written frame.
+ */
+public final class FrameSnapshot {
+	/** Which full screen overlay to draw on top of the play field */
+	public enum Overlay {
+		NONE, STAGE_SELECT, PAUSE, GAME_OVER
+	}
+
+	// entities, one slot per drawn sprite
+	int count;
+	Sprite[] sprites = new Sprite[0];
+	double[] prevX = new double[0];
+	double[] prevY = new double[0];
+	double[] x = new double[0];
+	double[] y = new double[0];
+	/** Health bar values per slot, maxHealth 0 means no bar */
+	int[] health = new int[0];
+	int[] maxHealth = new int[0];
+	boolean[] flashing = new boolean[0];
+
+	// timing, used by the render thread to interpolate on its own
+	long publishNanos;
+	long tickNanos = 1;
+
+	// HUD
+	int stage;
+	int score;
+	boolean twoPlayer;
+	int playerHealth;
+	int playerMaxHealth;
+	int player2Health;
+	int player2MaxHealth;
+	int[] itemCounts = new int[0];
+
+	// overlays
+	Overlay overlay = Overlay.NONE;
+	String message = "";
+	boolean newHighScore;
+	int finalScore;
+	int selectedStage;
+	int maxClearedStage;
+
+	/**
+	 * Forget the entities of the previous frame. The HUD values are
+	 * overwritten by the setters below.
+	 */
+	public void clear() {
+		java.util.Arrays.fill(sprites, 0, count, null);
+		count = 0;
+	}
+
+	/**
+	 * Add one sprite to draw
+	 *
+	 * @param sprite The sprite to draw
+	 * @param prevX The x location at the start of the last tick
+	 * @param prevY The y location at the start of the last tick
+	 * @param x The current x location
+	 * @param y The current y location
+	 * @return The slot of the sprite, for setHealthBar()
+	 */
+	public int addSprite(Sprite sprite, double prevX, double prevY, double x, double y) {
+		ensureCapacity(count + 1);
+		int slot = count++;
+		sprites[slot] = sprite;
+		this.prevX[slot] = prevX;
+		this.prevY[slot] = prevY;
+		this.x[slot] = x;
+		this.y[slot] = y;
+		maxHealth[slot] = 0;
+		return slot;
+	}
+
+	/**
+	 * Draw a health bar above the sprite in the given slot
+	 */
+	public void setHealthBar(int slot, int health, int maxHealth, boolean flashing) {
+		this.health[slot] = health;
+		this.maxHealth[slot] = Math.max(1, maxHealth);
+		this.flashing[slot] = flashing;
+	}
+
+	/**
+	 * @param publishNanos System.nanoTime() of the tick this frame shows
+	 * @param tickNanos The length of a simulation tick in nanoseconds
+	 */
+	public void setTiming(long publishNanos, long tickNanos) {
+		this.publishNanos = publishNanos;
+		this.tickNanos = Math.max(1, tickNanos);
+	}
+
+	public void setHud(int stage, int score) {
+		this.stage = stage;
+		this.score = score;
+	}
+
+	public void setPlayers(boolean twoPlayer, int playerHealth, int playerMaxHealth, int player2Health, int player2MaxHealth) {
+		this.twoPlayer = twoPlayer;
+		this.playerHealth = playerHealth;
+		this.playerMaxHealth = playerMaxHealth;
+		this.player2Health = player2Health;
+		this.player2MaxHealth = player2MaxHealth;
+	}
+
+	/**
+	 * @param counts The item counts in item panel order
+	 * @param visible False to show every count as zero (not logged in)
+	 */
+	public void setItemCounts(int[] counts, boolean visible) {
+		if (itemCounts.length != counts.length) {
+			itemCounts = new int[counts.length];
+		}
+		for (int i = 0; i < counts.length; i++) {
+			itemCounts[i] = visible ? counts[i] : 0;
+		}
+	}
+
+	public void setOverlay(Overlay overlay, String message, boolean newHighScore, int finalScore) {
+		this.overlay = overlay;
+		this.message = message;
+		this.newHighScore = newHighScore;
+		this.finalScore = finalScore;
+	}
+
+	public void setStageSelect(int selectedStage, int maxClearedStage) {
+		this.selectedStage = selectedStage;
+		this.maxClearedStage = maxClearedStage;
+	}
+
+	/**
+	 * @return The number of sprites in this frame
+	 */
+	public int getSpriteCount() {
+		return count;
+	}
+
+	/**
+	 * Work out how far the render thread is into the tick after this frame
+	 *
+	 * @param nowNanos The current System.nanoTime()
+	 * @return The interpolation factor, 0 (previous state) to 1 (this state)
+	 */
+	public double alphaAt(long nowNanos) {
+		double alpha = (double) (nowNanos - publishNanos) / tickNanos;
+		return Math.max(0.0, Math.min(1.0, alpha));
+	}
+
+	private void ensureCapacity(int size) {
+		if (sprites.length >= size) return;
+		int capacity = Math.max(size, Math.max(64, sprites.length * 2));
+		sprites = java.util.Arrays.copyOf(sprites, capacity);
+		prevX = java.util.Arrays.copyOf(prevX, capacity);
+		prevY = java.util.Arrays.copyOf(prevY, capacity);
+		x = java.util.Arrays.copyOf(x, capacity);
+		y = java.util.Arrays.copyOf(y, capacity);
+		health = java.util.Arrays.copyOf(health, capacity);
+		maxHealth = java.util.Arrays.copyOf(maxHealth, capacity);
+		flashing = java.util.Arrays.copyOf(flashing, capacity);
+	}
+}
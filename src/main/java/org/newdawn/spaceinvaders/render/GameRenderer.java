@@ -0,0 +1,603 @@
+package org.newdawn.spaceinvaders.render;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.util.List;
+import java.util.Locale;
+
+import org.newdawn.spaceinvaders.Sprite;
+import org.newdawn.spaceinvaders.SpriteStore;
+import org.newdawn.spaceinvaders.SpriteSurface;
+import org.newdawn.spaceinvaders.metrics.FrameProfiler;
+
+/**
+ * Draws a {@link FrameSnapshot}: the entities interpolated between their
+ * last two tick positions, the HUD, the overlays and the side panels.
+ * <p>
+ * The renderer never looks at the live game state, so it can run on the
+ * simulation thread (classic mode) or on its own render thread.
+ */
+public class GameRenderer {
+	private static final String PRESS_ANY_KEY_MESSAGE = "PRESS_ANY_KEY_MESSAGE";
+	private static final String[] STAGE_LABELS = {"1", "2", "3", "4", "5"};
+	private static final String PAUSE_HINT = "메인메뉴로 나가려면 ESC, 계속 플레이하려면 SPACE를 누르십시오.";
+	/** Height of the strip along the bottom edge holding the HP bars */
+	private static final int HP_STRIP_HEIGHT = 60;
+
+	/** The canvas being drawn on, used for its size */
+	private final Component canvas;
+	/** Icons for items, aligned with the item counts of the snapshot */
+	private final List<Sprite> itemIcons;
+	/** Source of the frame time overlay, null for none */
+	private FrameProfiler profiler;
+
+	// the HUD, item panel and HP bars only change now and then, so each
+	// is drawn into a layer when its values change and blitted otherwise
+	private final CachedLayer hudLayer = new CachedLayer();
+	private final CachedLayer itemPanelLayer = new CachedLayer();
+	private final CachedLayer hpLayer = new CachedLayer();
+	private final int[] hudKey = new int[2];
+	private int[] itemPanelKey = new int[0];
+	private final int[] hpKey = new int[7];
+	/** The item panel layout, it only depends on the icons and canvas height */
+	private ItemPanelLayout itemPanelLayout;
+	/** The first line of the pause prompt and the score it was made for */
+	private String pauseLine;
+	private int pauseScore;
+	/** The new high score line of the game over screen, its score and x */
+	private String highScoreLine;
+	private int highScoreLineScore;
+	private int highScoreLineX;
+
+	/**
+	 * @param canvas The canvas being drawn on
+	 * @param itemIcons Icons for the item panel, entries may be null
+	 */
+	public GameRenderer(Component canvas, List<Sprite> itemIcons) {
+		this.canvas = canvas;
+		this.itemIcons = itemIcons;
+	}
+
+	/**
+	 * @param profiler Whose last second of phase timings to show when its overlay is on
+	 */
+	public void setProfiler(FrameProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Draw all game graphics
+	 *
+	 * @param g The graphics context on which to draw
+	 * @param frame The frame to draw
+	 * @param alpha How far between the previous and the current tick to draw the entities (0-1)
+	 */
+	public void draw(Graphics2D g, FrameSnapshot frame, double alpha) {
+		// the sprite sheet may have been dropped from video memory
+		SpriteStore.get().validateSurfaces(g.getDeviceConfiguration());
+
+		// Clear screen
+		g.setColor(Color.black);
+		g.fillRect(0, 0, 1200, 900);
+
+		// Draw all entities
+		drawSprites(g, frame, alpha);
+
+		// Draw HUD
+		drawHUD(g, frame);
+
+		// Draw overlays
+		switch (frame.overlay) {
+			case STAGE_SELECT:
+				drawStageSelectScreen(g, frame);
+				break;
+			case PAUSE:
+				drawPausePrompt(g, frame);
+				break;
+			case GAME_OVER:
+				drawGameOverScreen(g, frame);
+				break;
+			default:
+				break;
+		}
+
+		// Draw UI panels
+		drawLeftItemsPanel(g, frame);
+		drawPlayerHPBars(g, frame);
+
+		if (profiler != null && profiler.isOverlayVisible()) {
+			drawProfilerOverlay(g);
+		}
+	}
+
+	/**
+	 * Draw the per-phase frame times of the last second in the top right corner
+	 */
+	private void drawProfilerOverlay(Graphics2D g) {
+		FrameProfiler.Stats[] stats = profiler.getLastSecond();
+		g.setFont(RenderPalette.PROFILER_FONT);
+		FontMetrics fm = g.getFontMetrics();
+		int lineH = fm.getHeight();
+		// the font is monospaced and a row is 45 characters
+		int w = fm.charWidth('0') * 45 + 16;
+		int x = canvas.getWidth() - w - 10;
+		int y = 10;
+
+		g.setColor(RenderPalette.PROFILER_BACKGROUND);
+		g.fillRect(x, y, w, (stats.length + 2) * lineH + 10);
+		g.setColor(Color.green);
+		int line = y + 5 + fm.getAscent();
+		g.drawString(String.format(Locale.ROOT, "%-10s %5s %6s %6s %6s %7s", "ms", "n", "p50", "p99", "p99.9", "max"), x + 8, line);
+		for (FrameProfiler.Stats s : stats) {
+			line += lineH;
+			g.drawString(String.format(Locale.ROOT, "%-10s %5d %6.3f %6.3f %6.3f %7.3f",
+					s.phase.name().toLowerCase(Locale.ROOT), s.count,
+					s.p50 / 1e6, s.p99 / 1e6, s.p999 / 1e6, s.max / 1e6), x + 8, line);
+		}
+
+		// which path the sprite sheet is drawn from, in frames since startup
+		line += lineH;
+		g.drawString(String.format(Locale.ROOT, "sprites vram %d sw %d lost %d", SpriteSurface.getAcceleratedFrames(),
+				SpriteSurface.getSoftwareFrames(), SpriteSurface.getRestores()), x + 8, line);
+		g.setFont(RenderPalette.DEFAULT_FONT);
+	}
+
+	/**
+	 * Draw the entity sprites and their health bars
+	 */
+	private void drawSprites(Graphics2D g, FrameSnapshot frame, double alpha) {
+		for (int i = 0; i < frame.count; i++) {
+			Sprite sprite = frame.sprites[i];
+			int drawX = (int) (frame.prevX[i] + (frame.x[i] - frame.prevX[i]) * alpha);
+			int drawY = (int) (frame.prevY[i] + (frame.y[i] - frame.prevY[i]) * alpha);
+			sprite.draw(g, drawX, drawY);
+
+			if (frame.maxHealth[i] > 0) {
+				HealthBars.draw(g, drawX, drawY, sprite.getWidth(), frame.health[i], frame.maxHealth[i], frame.flashing[i]);
+			}
+		}
+	}
+
+	/**
+	 * Draw HUD (score, stage)
+	 */
+	private void drawHUD(Graphics2D g, FrameSnapshot frame) {
+		hudKey[0] = frame.stage;
+		hudKey[1] = frame.score;
+		if (!hudLayer.isValid(hudKey, g.getFont())) {
+			Graphics2D lg = hudLayer.begin(g, hudKey, 0, 0, 400, 64);
+			lg.setColor(Color.white);
+			lg.drawString("Stage: " + frame.stage, 10, 30);
+			lg.drawString("Score: " + frame.score, 10, 50);
+			lg.dispose();
+		}
+		hudLayer.blit(g);
+		g.setColor(Color.white);
+	}
+
+	/**
+	 * Draw stage selection screen
+	 */
+	private void drawStageSelectScreen(Graphics2D g, FrameSnapshot frame) {
+		// 1. 배경 어둡게 처리
+		g.setColor(RenderPalette.STAGE_SELECT_DIM);
+		g.fillRect(0, 0, 1200, 900);
+
+		// 2. 제목 그리기
+		String title = "SELECT NEXT STAGE";
+		g.setColor(Color.WHITE);
+		g.setFont(RenderPalette.TITLE_FONT);
+		FontMetrics fmTitle = g.getFontMetrics();
+		g.drawString(title, (1200 - fmTitle.stringWidth(title)) / 2, 100);
+
+		// 3. 스테이지 버튼 그리기 (1단계 ~ 5단계)
+		int btnSize = 60;
+		int gap = 20;
+		int totalStages = 5;
+		int totalW = totalStages * btnSize + (totalStages - 1) * gap;
+		int startX = (1200 - totalW) / 2;
+		int startY = 200;
+
+		// 버튼 글꼴은 반복문 밖에서 한 번만 설정
+		g.setFont(RenderPalette.STAGE_BUTTON_FONT);
+		FontMetrics fmBtn = g.getFontMetrics();
+
+		for (int stage = 1; stage <= totalStages; stage++) {
+			int x = startX + (stage - 1) * (btnSize + gap);
+
+			boolean locked = stage > frame.maxClearedStage + 1;
+
+			// 선택된 스테이지에 따라 색상 변경
+			if (stage == frame.selectedStage) {
+				// 1. 선택된 스테이지: 노란색
+				g.setColor(Color.YELLOW);
+			} else if (!locked) {
+				// 2. 클리어했거나, 현재 선택 가능한 스테이지 (하늘색 -> 초록색으로 통일)
+				//    stage <= currentStage: 이미 클리어한 스테이지
+				//    stage == currentStage + 1: 현재 클리어 가능한 다음 스테이지
+				g.setColor(Color.GREEN);
+			} else {
+				// 3. 잠긴 스테이지: 잠금 음영까지 미리 섞은 회색
+				g.setColor(RenderPalette.LOCKED_STAGE);
+			}
+
+			// 버튼 사각형
+			g.fillRect(x, startY, btnSize, btnSize);
+			g.setColor(Color.BLACK);
+			g.drawRect(x, startY, btnSize, btnSize);
+
+			// 버튼 텍스트 (스테이지 번호)
+			String stageNum = STAGE_LABELS[stage - 1];
+			g.setColor(Color.BLACK);
+			g.drawString(stageNum, x + (btnSize - fmBtn.stringWidth(stageNum)) / 2, startY + fmBtn.getAscent() + 10);
+
+			// "Hard" 또는 잠금 상태 표시 (선택 사항)
+			// 💡 [필수 수정] 잠금 조건도 maxClearedStage 기준으로 변경
+			if (locked) {
+				// 회색 버튼은 이미 어둡게 칠했으므로 선택된 경우만 음영을 덮는다
+				if (stage == frame.selectedStage) {
+					g.setColor(RenderPalette.LOCKED_STAGE_SHADE);
+					g.fillRect(x, startY, btnSize, btnSize);
+				}
+				g.setColor(Color.RED);
+				g.drawString("LOCK", x + 5, startY + 40);
+			}
+
+		}
+
+		// 안내 메시지
+		String info = "Use Left/Right Arrows to select, Enter to start.";
+		g.setColor(Color.WHITE);
+		g.setFont(RenderPalette.INFO_FONT);
+		FontMetrics fmInfo = g.getFontMetrics();
+		g.drawString(info, (1200 - fmInfo.stringWidth(info)) / 2, 500);
+
+		// 폰트와 색상 복구 (안전성)
+		g.setColor(Color.white);
+		g.setFont(RenderPalette.DEFAULT_FONT);
+	}
+
+	/**
+	 * Draw pause prompt overlay
+	 */
+	private void drawPausePrompt(Graphics2D g, FrameSnapshot frame) {
+		// dim background
+		g.setColor(RenderPalette.PAUSE_DIM);
+		g.fillRect(0, 0, 1200, 900);
+		g.setColor(Color.white);
+		// the score cannot change while paused, so the line is only formatted once
+		if (pauseLine == null || pauseScore != frame.score) {
+			String pts = String.format("%03d", Math.max(0, frame.score));
+			pauseLine = "여기서 멈춘다면 " + pts + " 포인트를 얻습니다.";
+			pauseScore = frame.score;
+		}
+		FontMetrics fm = g.getFontMetrics();
+		g.drawString(pauseLine, (1200 - fm.stringWidth(pauseLine)) / 2, 260);
+		g.drawString(PAUSE_HINT, (1200 - fm.stringWidth(PAUSE_HINT)) / 2, 300);
+	}
+
+	/**
+	 * Draw game over screen
+	 */
+	private void drawGameOverScreen(Graphics2D g, FrameSnapshot frame) {
+		g.setColor(Color.white);
+		String mainMessage = frame.message; // "Oh no..." 또는 "Congratulations!"
+		FontMetrics fm = g.getFontMetrics();
+
+		// 1. 주 메시지 출력
+		g.drawString(mainMessage, (1200 - fm.stringWidth(mainMessage)) / 2, 250);
+		g.drawString(PRESS_ANY_KEY_MESSAGE, (1200 - fm.stringWidth(PRESS_ANY_KEY_MESSAGE)) / 2, 300);
+
+		// 2. 최고 점수 안내문 표시
+		if (frame.newHighScore) {
+			g.setColor(Color.YELLOW);
+			g.setFont(RenderPalette.HIGH_SCORE_FONT);
+
+			// message 변수가 이미 설정된 상태이므로, 'score' 변수는 아직 초기화되지 않은
+			// 최종 점수 값을 가지고 있습니다. (notifyDeath/Win에서 score=0 전에 호출됨)
+			// 이모지가 들어간 문자열은 폭을 잴 때마다 할당하므로 점수가 바뀔 때만 다시 잰다
+			if (highScoreLine == null || highScoreLineScore != frame.finalScore) {
+				highScoreLine = "🎉 New High Score! (" + frame.finalScore + ")";
+				highScoreLineScore = frame.finalScore;
+				FontMetrics fm30 = g.getFontMetrics();
+				highScoreLineX = (1200 - fm30.stringWidth(highScoreLine)) / 2;
+			}
+
+			// Y 좌표 400에 출력 (기존 메시지 아래)
+			g.drawString(highScoreLine, highScoreLineX, 400);
+		}
+
+		// 폰트와 색상 복구 (선택 사항이지만 안전합니다)
+		g.setColor(Color.white);
+		g.setFont(RenderPalette.DEFAULT_FONT); // 원래 폰트로 복구 
+	}
+
+	/** Draw a vertical items UI along the far-left edge */
+	private void drawLeftItemsPanel(Graphics2D g2, FrameSnapshot frame) {
+		int rows = frame.itemCounts.length;
+		if (rows <= 0) return;
+
+		int canvasH = canvas.getHeight();
+		if (itemPanelKey.length != rows + 1) {
+			itemPanelKey = new int[rows + 1];
+		}
+		itemPanelKey[0] = canvasH;
+		System.arraycopy(frame.itemCounts, 0, itemPanelKey, 1, rows);
+
+		if (!itemPanelLayer.isValid(itemPanelKey, g2.getFont())) {
+			if (itemPanelLayout == null || itemPanelLayout.canvasH != canvasH || itemPanelLayout.slotWArr.length != rows) {
+				itemPanelLayout = calculateItemPanelLayout(rows);
+			}
+			ItemPanelLayout layout = itemPanelLayout;
+			Graphics2D lg = itemPanelLayer.begin(g2, itemPanelKey, 0, 0, layout.pad + layout.maxPanelW + 8, canvasH);
+			drawItemPanelBackground(lg, layout);
+			drawItemSlots(lg, layout, frame);
+			lg.dispose();
+		}
+		itemPanelLayer.blit(g2);
+		g2.setColor(Color.WHITE);
+	}
+
+	/**
+	 * Calculate layout metrics for item panel
+	 */
+	private ItemPanelLayout calculateItemPanelLayout(int rows) {
+		int canvasW = canvas.getWidth();
+		int canvasH = canvas.getHeight();
+		int pad = 8, gap = 6, startY = 70, innerPad = 6;
+
+		int[] drawWArr = new int[rows];
+		int[] drawHArr = new int[rows];
+		int[] slotWArr = new int[rows];
+		int[] slotHArr = new int[rows];
+
+		int maxPanelW = 0;
+		int y = startY;
+
+		for (int i = 0; i < rows; i++) {
+			Sprite icon = (i < itemIcons.size()) ? itemIcons.get(i) : null;
+			int[] sizes = calculateIconSize(icon, innerPad);
+
+			drawWArr[i] = sizes[0];
+			drawHArr[i] = sizes[1];
+			slotWArr[i] = sizes[2];
+			slotHArr[i] = sizes[3];
+
+			maxPanelW = Math.max(maxPanelW, sizes[2]);
+			y += sizes[3] + gap;
+		}
+
+		int totalPanelH = y - startY - gap + pad;
+		if (startY + totalPanelH > canvasH - pad) {
+			totalPanelH = Math.max(0, (canvasH - pad) - startY);
+		}
+
+		return new ItemPanelLayout(pad, gap, startY, innerPad, maxPanelW, totalPanelH,
+		                           drawWArr, drawHArr, slotWArr, slotHArr, canvasH);
+	}
+
+	/**
+	 * Calculate icon and slot sizes
+	 * @return [drawW, drawH, slotW, slotH]
+	 */
+	private int[] calculateIconSize(Sprite icon, int innerPad) {
+		int baseMaxW = 48, baseMaxH = 48;
+		int imgW = (icon != null) ? icon.getWidth() : baseMaxW;
+		int imgH = (icon != null) ? icon.getHeight() : baseMaxH;
+		if (imgW <= 0 || imgH <= 0) { imgW = baseMaxW; imgH = baseMaxH; }
+
+		double fitScale = Math.min((double) baseMaxW / imgW, (double) baseMaxH / imgH);
+		int fitW = (int) Math.max(1, Math.round(imgW * fitScale));
+		int fitH = (int) Math.max(1, Math.round(imgH * fitScale));
+		int drawW = (int) Math.max(1, Math.round(fitW * (2.0 / 3.0)));
+		int drawH = (int) Math.max(1, Math.round(fitH * (2.0 / 3.0)));
+
+		int slotW = Math.max(drawW + innerPad * 2, 28);
+		int slotH = Math.max(drawH + innerPad * 2, 28);
+
+		return new int[]{drawW, drawH, slotW, slotH};
+	}
+
+	/**
+	 * Draw panel background
+	 */
+	private void drawItemPanelBackground(Graphics2D g2, ItemPanelLayout layout) {
+		g2.setColor(RenderPalette.PANEL_BACKGROUND);
+		g2.fillRect(layout.pad - 2, layout.startY - 2, layout.maxPanelW + 4, layout.totalPanelH + 4);
+	}
+
+	/**
+	 * Draw all item slots
+	 */
+	private void drawItemSlots(Graphics2D g2, ItemPanelLayout layout, FrameSnapshot frame) {
+		int rowY = layout.startY;
+		int rows = layout.slotWArr.length;
+
+		for (int i = 0; i < rows; i++) {
+			if (rowY + layout.slotHArr[i] > layout.canvasH - layout.pad) break;
+
+			drawSingleItemSlot(g2, layout, frame, i, rowY);
+			rowY += layout.slotHArr[i] + layout.gap;
+		}
+	}
+
+	/**
+	 * Draw a single item slot
+	 */
+	private void drawSingleItemSlot(Graphics2D g2, ItemPanelLayout layout, FrameSnapshot frame, int index, int rowY) {
+		int slotW = layout.slotWArr[index];
+		int slotH = layout.slotHArr[index];
+		int drawW = layout.drawWArr[index];
+		int drawH = layout.drawHArr[index];
+
+		// Slot background
+		g2.setColor(RenderPalette.SLOT_BACKGROUND);
+		g2.fillRect(layout.pad, rowY, slotW, slotH);
+		g2.setColor(Color.WHITE);
+		g2.drawRect(layout.pad, rowY, slotW, slotH);
+
+		// Draw icon or placeholder
+		Sprite icon = (index < itemIcons.size()) ? itemIcons.get(index) : null;
+		int dx = layout.pad + (slotW - drawW) / 2;
+		int dy = rowY + (slotH - drawH) / 2;
+
+		if (icon != null) {
+			icon.draw(g2, dx, dy, drawW, drawH);
+		} else {
+			drawIconPlaceholder(g2, layout, slotW, slotH, rowY);
+		}
+
+		// Draw count badge
+		drawItemCountBadge(g2, frame.itemCounts[index], dx, dy, drawW, drawH);
+	}
+
+	/**
+	 * Draw placeholder when icon is missing
+	 */
+	private void drawIconPlaceholder(Graphics2D g2, ItemPanelLayout layout, int slotW, int slotH, int rowY) {
+		g2.setColor(RenderPalette.ICON_PLACEHOLDER);
+		g2.fillRect(layout.pad + layout.innerPad, rowY + layout.innerPad,
+		            slotW - layout.innerPad * 2, slotH - layout.innerPad * 2);
+		g2.setColor(Color.WHITE);
+		g2.drawString("?", layout.pad + slotW / 2 - 3, rowY + slotH / 2 + 4);
+	}
+
+	/**
+	 * Draw item count badge
+	 */
+	private void drawItemCountBadge(Graphics2D g2, int count, int dx, int dy, int drawW, int drawH) {
+		String label = "x" + count;
+		FontMetrics fm = g2.getFontMetrics();
+		int bw = fm.stringWidth(label) + 10;
+		int bh = fm.getAscent() + fm.getDescent();
+		int bx = dx + drawW - bw - 2;
+		int by = dy + drawH - bh - 2;
+
+		g2.setColor(RenderPalette.BADGE_BACKGROUND);
+		g2.fillRoundRect(bx, by, bw, bh, 8, 8);
+		g2.setColor(Color.WHITE);
+		g2.drawString(label, bx + 5, by + fm.getAscent());
+	}
+
+	/**
+	 * Layout data for item panel
+	 */
+	private static class ItemPanelLayout {
+		final int pad, gap, startY, innerPad, maxPanelW, totalPanelH, canvasH;
+		final int[] drawWArr, drawHArr, slotWArr, slotHArr;
+
+		ItemPanelLayout(int pad, int gap, int startY, int innerPad, int maxPanelW, int totalPanelH,
+		                int[] drawWArr, int[] drawHArr, int[] slotWArr, int[] slotHArr, int canvasH) {
+			this.pad = pad;
+			this.gap = gap;
+			this.startY = startY;
+			this.innerPad = innerPad;
+			this.maxPanelW = maxPanelW;
+			this.totalPanelH = totalPanelH;
+			this.drawWArr = drawWArr;
+			this.drawHArr = drawHArr;
+			this.slotWArr = slotWArr;
+			this.slotHArr = slotHArr;
+			this.canvasH = canvasH;
+		}
+	}
+
+	/**
+	 * Draws HP bars for all active players.
+	 */
+	private void drawPlayerHPBars(Graphics2D screen, FrameSnapshot frame) {
+		int canvasW = canvas.getWidth();
+		int canvasH = canvas.getHeight();
+		hpKey[0] = frame.twoPlayer ? 1 : 0;
+		hpKey[1] = frame.playerHealth;
+		hpKey[2] = frame.playerMaxHealth;
+		hpKey[3] = frame.twoPlayer ? frame.player2Health : 0;
+		hpKey[4] = frame.twoPlayer ? frame.player2MaxHealth : 0;
+		hpKey[5] = canvasW;
+		hpKey[6] = canvasH;
+		if (hpLayer.isValid(hpKey, screen.getFont())) {
+			hpLayer.blit(screen);
+			screen.setColor(Color.WHITE);
+			return;
+		}
+
+		Graphics2D g2 = hpLayer.begin(screen, hpKey, 0, canvasH - HP_STRIP_HEIGHT, canvasW, HP_STRIP_HEIGHT);
+		if (frame.twoPlayer) {
+			// Draw P1's HP Bar on the bottom-left
+			drawSingleHPBar(g2, "P1", frame.playerHealth, frame.playerMaxHealth, "left");
+			// Draw P2's HP Bar on the bottom-right
+			drawSingleHPBar(g2, "P2", frame.player2Health, frame.player2MaxHealth, "right");
+		} else {
+			// Default 1P behavior: a single bar in the center
+			drawSingleHPBar(g2, null, frame.playerHealth, frame.playerMaxHealth, "center");
+		}
+		g2.dispose();
+		hpLayer.blit(screen);
+		screen.setColor(Color.WHITE);
+	}
+
+	/**
+	 * Helper method to draw a single segmented HP bar.
+	 * @param g2 The graphics context
+	 * @param label The label for the bar (e.g., "P1") or null for none
+	 * @param currentHP The current health points
+	 * @param maxHP The maximum health points
+	 * @param position Where to draw the bar ("left", "right", or "center")
+	 */
+	private void drawSingleHPBar(Graphics2D g2, String label, int currentHP, int maxHP, String position) {
+		int canvasW = canvas.getWidth();
+		int canvasH = canvas.getHeight();
+
+		int segments = Math.max(1, maxHP);
+		int segWidth = 30;   // Width of each HP segment
+		int segHeight = 8;   // Height of each HP segment
+		int gap = 6;         // Gap between segments
+
+		int totalW = segments * segWidth + (segments - 1) * gap;
+		int y0 = canvasH - 28; // Position from the bottom edge
+		int x0;
+
+		// Determine horizontal position based on the 'position' parameter
+		switch (position) {
+			case "left":
+				x0 = 40; // Margin from the left edge
+				break;
+			case "right":
+				x0 = canvasW - totalW - 40; // Margin from the right edge
+				break;
+			default: // "center"
+				x0 = (canvasW - totalW) / 2;
+				break;
+		}
+
+		// Draw the player label (e.g., "P1") above the bar if provided
+		if (label != null) {
+			g2.setColor(Color.WHITE);
+			g2.setFont(RenderPalette.HP_LABEL_FONT);
+			FontMetrics fm = g2.getFontMetrics();
+			g2.drawString(label, x0, y0 - fm.getHeight() / 2);
+		}
+
+		// Draw each segment of the HP bar
+		for (int i = 0; i < segments; i++) {
+			int x = x0 + i * (segWidth + gap);
+			int y = y0;
+
+			g2.setColor(RenderPalette.SEGMENT_SHADOW);
+			g2.fillRect(x - 2, y - 2, segWidth + 4, segHeight + 4);
+
+			g2.setColor(Color.DARK_GRAY); // Background for an empty segment
+			g2.fillRect(x, y, segWidth, segHeight);
+
+			if (i < currentHP) {
+				g2.setColor(Color.GREEN); // Fill for a full health segment
+				g2.fillRect(x, y, segWidth, segHeight);
+			}
+
+			g2.setColor(Color.WHITE); // Border for the segment
+			g2.drawRect(x, y, segWidth, segHeight);
+		}
+	}
+}
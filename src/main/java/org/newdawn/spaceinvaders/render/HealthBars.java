@@ -0,0 +1,140 @@
+package org.newdawn.spaceinvaders.render;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The small health bar drawn above damaged or armoured aliens. Shared by
+ * AlienEntity.draw() and the snapshot renderer so both look the same.
+ * <p>
+ * A bar only ever shows a fill width, one of three colours and whether
+ * the alien was just hit, so each such combination is drawn once into a
+ * small image and every later bar is a single blit. Health scaled by the
+ * stage multiplier can fill past the border (up to five bar widths),
+ * those are cached too and anything wider still is drawn directly.
+ */
+public final class HealthBars {
+	/** Health bar dimensions */
+	public static final int BAR_WIDTH = 30;
+	public static final int BAR_HEIGHT = 4;
+
+	/** Widest fill that gets an image, the highest stage multiplier is 5 */
+	private static final int MAX_CACHED_FILL = BAR_WIDTH * 5;
+
+	// the colour bands of the fill
+	private static final int HIGH = 0;
+	private static final int MEDIUM = 1;
+	private static final int LOW = 2;
+	private static final int HIT = 3;
+	private static final int BANDS = 4;
+
+	/** Drawn bars by band and fill width, made the first time they are needed */
+	private static final AtomicReferenceArray<BufferedImage> BARS =
+			new AtomicReferenceArray<>(BANDS * (MAX_CACHED_FILL + 1));
+
+	private HealthBars() { /* 유틸 클래스 */ }
+
+	/**
+	 * Draw a health bar centred above a sprite
+	 *
+	 * @param g The graphics context on which to draw
+	 * @param drawX The x location the sprite is drawn at
+	 * @param drawY The y location the sprite is drawn at
+	 * @param spriteWidth The width of the sprite
+	 * @param health The current health
+	 * @param maxHealth The full health
+	 * @param flashingRed True right after a hit
+	 */
+	public static void draw(Graphics g, int drawX, int drawY, int spriteWidth, int health, int maxHealth, boolean flashingRed) {
+		int barX = drawX + (spriteWidth - BAR_WIDTH) / 2;
+		int barY = drawY - 8;
+
+		// Health bar (color based on health percentage)
+		int fill = 0;
+		int band = HIGH;
+		if (health > 0) {
+			double healthPercentage = (double) health / maxHealth;
+			fill = (int) (BAR_WIDTH * healthPercentage);
+
+			// Color changes based on health percentage (with flash effect)
+			if (flashingRed) {
+				band = HIT;
+			} else if (healthPercentage > 0.6) {
+				band = HIGH;
+			} else if (healthPercentage > 0.3) {
+				band = MEDIUM;
+			} else {
+				band = LOW;
+			}
+		} else if (flashingRed) {
+			band = HIT;
+		}
+
+		if (fill < 0 || fill > MAX_CACHED_FILL) {
+			render(g, barX, barY, fill, band);
+			return;
+		}
+		int index = band * (MAX_CACHED_FILL + 1) + fill;
+		BufferedImage bar = BARS.get(index);
+		if (bar == null) {
+			bar = createBar(fill, band);
+			// another thread may have beaten us to it, both images are the same
+			BARS.compareAndSet(index, null, bar);
+		}
+		g.drawImage(bar, barX, barY, null);
+	}
+
+	private static BufferedImage createBar(int fill, int band) {
+		// the border is drawn one pixel wider and taller than the bar
+		BufferedImage image = new BufferedImage(Math.max(BAR_WIDTH, fill) + 1, BAR_HEIGHT + 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			render(g, 0, 0, fill, band);
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	/**
+	 * Draw the bar with its top left corner at barX, barY
+	 */
+	private static void render(Graphics g, int barX, int barY, int fill, int band) {
+		// Background (dark red, or bright red when flashing)
+		if (band == HIT) {
+			g.setColor(RenderPalette.HEALTH_BACKGROUND_HIT); // Brighter red when hit
+		} else {
+			g.setColor(RenderPalette.HEALTH_BACKGROUND); // Normal dark background
+		}
+		g.fillRect(barX, barY, BAR_WIDTH, BAR_HEIGHT);
+
+		if (fill > 0) {
+			g.setColor(fillColor(band));
+			g.fillRect(barX, barY, fill, BAR_HEIGHT);
+		}
+
+		// Border (white, or bright yellow when flashing)
+		if (band == HIT) {
+			g.setColor(RenderPalette.HEALTH_BORDER_HIT); // Yellow border when hit
+		} else {
+			g.setColor(RenderPalette.HEALTH_BORDER); // Normal white border
+		}
+		g.drawRect(barX, barY, BAR_WIDTH, BAR_HEIGHT);
+	}
+
+	private static Color fillColor(int band) {
+		switch (band) {
+			case HIT:
+				return RenderPalette.HEALTH_HIT; // White flash when hit
+			case MEDIUM:
+				return RenderPalette.HEALTH_MEDIUM; // Orange
+			case LOW:
+				return RenderPalette.HEALTH_LOW; // Red
+			default:
+				return RenderPalette.HEALTH_HIGH; // Green
+		}
+	}
+}
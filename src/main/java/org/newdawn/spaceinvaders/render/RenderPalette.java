@@ -0,0 +1,52 @@
+package org.newdawn.spaceinvaders.render;
+
+import java.awt.Color;
+import java.awt.Font;
+
+/**
+ * Every font and colour the in-game drawing code uses, created once.
+ * Font and Color are immutable so the same instances are safe
+ * to share between the game and render threads, and a frame no longer
+ * allocates its own copies of them.
+ */
+public final class RenderPalette {
+	private static final String FONT_ARIAL = "ARIAL";
+
+	/** The font the screen is left with after every overlay */
+	public static final Font DEFAULT_FONT = new Font(FONT_ARIAL, Font.PLAIN, 12);
+	public static final Font TITLE_FONT = new Font(FONT_ARIAL, Font.BOLD, 36);
+	public static final Font STAGE_BUTTON_FONT = new Font(FONT_ARIAL, Font.BOLD, 24);
+	public static final Font INFO_FONT = new Font(FONT_ARIAL, Font.PLAIN, 18);
+	public static final Font HIGH_SCORE_FONT = new Font(FONT_ARIAL, Font.BOLD, 30);
+	public static final Font HP_LABEL_FONT = new Font(FONT_ARIAL, Font.BOLD, 14);
+	public static final Font PROFILER_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+	// overlays
+	public static final Color STAGE_SELECT_DIM = new Color(0, 0, 0, 200);
+	public static final Color PAUSE_DIM = new Color(0, 0, 0, 160);
+	public static final Color LOCKED_STAGE_SHADE = new Color(0, 0, 0, 150);
+	/** Color.LIGHT_GRAY with LOCKED_STAGE_SHADE drawn over it */
+	public static final Color LOCKED_STAGE = new Color(79, 79, 79);
+	public static final Color PROFILER_BACKGROUND = new Color(0, 0, 0, 180);
+
+	// item panel
+	public static final Color PANEL_BACKGROUND = new Color(20, 20, 20, 150);
+	public static final Color SLOT_BACKGROUND = new Color(45, 45, 45);
+	public static final Color ICON_PLACEHOLDER = new Color(80, 80, 80);
+	public static final Color BADGE_BACKGROUND = new Color(0, 0, 0, 190);
+
+	// player HP bars
+	public static final Color SEGMENT_SHADOW = new Color(20, 20, 20, 180);
+
+	// alien health bars
+	public static final Color HEALTH_BACKGROUND = new Color(60, 0, 0);
+	public static final Color HEALTH_BACKGROUND_HIT = new Color(150, 0, 0);
+	public static final Color HEALTH_HIGH = new Color(0, 200, 0);
+	public static final Color HEALTH_MEDIUM = new Color(255, 200, 0);
+	public static final Color HEALTH_LOW = new Color(255, 50, 50);
+	public static final Color HEALTH_HIT = Color.WHITE;
+	public static final Color HEALTH_BORDER = Color.WHITE;
+	public static final Color HEALTH_BORDER_HIT = Color.YELLOW;
+
+	private RenderPalette() { /* 상수 모음 */ }
+}
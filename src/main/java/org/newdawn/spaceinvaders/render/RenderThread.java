@@ -0,0 +1,100 @@
+package org.newdawn.spaceinvaders.render;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferStrategy;
+import java.util.function.IntConsumer;
+
+import org.newdawn.spaceinvaders.SystemTimer;
+import org.newdawn.spaceinvaders.metrics.FrameProfiler;
+import org.newdawn.spaceinvaders.metrics.FrameProfiler.Phase;
+
+/**
+ * Pipelined rendering: draws the latest snapshot the simulation published
+ * and flips the buffer strategy, on its own thread. A slow show() only
+ * costs frames here and never holds up the simulation ticks, and the
+ * simulation never waits for a frame to be drawn.
+ */
+public class RenderThread extends Thread {
+	private final TripleBuffer<FrameSnapshot> frames;
+	private final GameRenderer renderer;
+	private final BufferStrategy strategy;
+	/** Render rate cap in frames/sec, 0 for none */
+	private final int maxFps;
+	/** Told the frame rate once a second */
+	private final IntConsumer fpsListener;
+	/** Told how long drawing, showing and sleeping took */
+	private final FrameProfiler profiler;
+	private volatile boolean running = true;
+
+	/**
+	 * @param frames The buffer the simulation publishes snapshots into
+	 * @param renderer Draws a snapshot
+	 * @param strategy The strategy to draw into and flip
+	 * @param maxFps Render rate cap in frames/sec, 0 for none
+	 * @param fpsListener Told the frame rate once a second
+	 * @param profiler Told how long each frame phase took
+	 */
+	public RenderThread(TripleBuffer<FrameSnapshot> frames, GameRenderer renderer, BufferStrategy strategy,
+			int maxFps, IntConsumer fpsListener, FrameProfiler profiler) {
+		super("Render-Thread");
+		setDaemon(true);
+		this.frames = frames;
+		this.renderer = renderer;
+		this.strategy = strategy;
+		this.maxFps = maxFps;
+		this.fpsListener = fpsListener;
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Ask the thread to finish after the current frame
+	 */
+	public void shutdown() {
+		running = false;
+	}
+
+	@Override
+	public void run() {
+		long lastFpsTime = SystemTimer.getTime();
+		int fps = 0;
+		boolean drawnFinalState = false;
+
+		while (running) {
+			long frameStart = SystemTimer.getTime();
+			boolean fresh = frames.update();
+			FrameSnapshot frame = frames.getReadBuffer();
+			double alpha = frame.alphaAt(System.nanoTime());
+
+			// once a frame has been drawn at its final position there is
+			// nothing new to show until the next tick is published
+			if (!fresh && drawnFinalState) {
+				SystemTimer.sleep(1);
+				continue;
+			}
+			drawnFinalState = alpha >= 1.0;
+
+			long t = System.nanoTime();
+			Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+			try {
+				renderer.draw(g, frame, alpha);
+			} finally {
+				g.dispose();
+			}
+			t = profiler.lap(Phase.DRAW, t);
+			strategy.show();
+			t = profiler.lap(Phase.SHOW, t);
+
+			fps++;
+			if (frameStart - lastFpsTime >= 1000) {
+				fpsListener.accept(fps);
+				lastFpsTime = frameStart;
+				fps = 0;
+			}
+
+			if (maxFps > 0) {
+				SystemTimer.sleep(frameStart + 1000 / maxFps - SystemTimer.getTime());
+			}
+			profiler.lap(Phase.SLEEP, t);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.newdawn.spaceinvaders.render;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free single producer / single consumer triple buffer.
+ * <p>
+ * The producer always owns one buffer to write into, the consumer one to
+ * read from, and the third sits in the middle holding the latest finished
+ * value. Publishing and taking swap with the middle slot in a single atomic
+ * exchange, so neither side ever waits for the other - a slow consumer just
+ * skips the frames it never got to.
+ *
+ * @param <T> The buffered value type
+ */
+public final class TripleBuffer<T> {
+	/** Set on the middle slot when it holds a value the consumer hasn't taken */
+	private static final int DIRTY = 4;
+	private static final int INDEX = 3;
+
+	private final Object[] buffers = new Object[3];
+	/** Index of the middle buffer, plus the DIRTY bit */
+	private final AtomicInteger middle = new AtomicInteger(1);
+	/** Producer's buffer, only touched by the producer thread */
+	private int writeIndex = 0;
+	/** Consumer's buffer, only touched by the consumer thread */
+	private int readIndex = 2;
+
+	/**
+	 * @param factory Creates the three buffers
+	 */
+	public TripleBuffer(Supplier<T> factory) {
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = factory.get();
+		}
+	}
+
+	/**
+	 * @return The buffer the producer may fill in now
+	 */
+	@SuppressWarnings("unchecked")
+	public T getWriteBuffer() {
+		return (T) buffers[writeIndex];
+	}
+
+	/**
+	 * Hand the write buffer to the consumer and take the middle one back
+	 * for the next write. Called by the producer.
+	 */
+	public void publish() {
+		writeIndex = middle.getAndSet(writeIndex | DIRTY) & INDEX;
+	}
+
+	/**
+	 * Take the latest published buffer if there is a new one. Called by
+	 * the consumer.
+	 *
+	 * @return True if the read buffer changed
+	 */
+	public boolean update() {
+		if ((middle.get() & DIRTY) == 0) {
+			return false;
+		}
+		readIndex = middle.getAndSet(readIndex) & INDEX;
+		return true;
+	}
+
+	/**
+	 * @return The buffer the consumer is reading, the last one taken by update()
+	 */
+	@SuppressWarnings("unchecked")
+	public T getReadBuffer() {
+		return (T) buffers[readIndex];
+	}
+}
@@ -0,0 +1,244 @@
+package org.newdawn.spaceinvaders.replay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.newdawn.spaceinvaders.engine.GameWorld;
+import org.newdawn.spaceinvaders.items.ItemManager;
+
+/**
+ * A recorded stage: everything needed to play it again tick for tick.
+ * <p>
+ * The header holds the seed, stage, permanent upgrade levels, tick rate
+ * and score carried into the stage. The body is one input bitmask per
+ * tick, stored as runs: each run is the XOR against the previous mask
+ * and the number of ticks it was held, both as unsigned varints. Held
+ * keys and long pauses collapse into a few bytes, so a minute of play is
+ * well under a few KB. A footer records how the stage ended to check a
+ * replay against.
+ */
+public final class Replay {
+	/** "SIRP" */
+	static final int MAGIC = 0x53495250;
+	static final int VERSION = 1;
+
+	public static final int P1_LEFT = 1;
+	public static final int P1_RIGHT = 1 << 1;
+	public static final int P1_FIRE = 1 << 2;
+	public static final int P2_LEFT = 1 << 3;
+	public static final int P2_RIGHT = 1 << 4;
+	public static final int P2_FIRE = 1 << 5;
+	/** The world was paused (menu, pause prompt) */
+	public static final int PAUSED = 1 << 6;
+	/** First of the item activation bits, in the ItemManager slot order */
+	public static final int ITEM_SHIFT = 7;
+	private static final String[] ITEM_IDS = {
+			ItemManager.ID_AMMO,
+			ItemManager.ID_DOUBLE_SCORE,
+			ItemManager.ID_INVINCIBILITY,
+			ItemManager.ID_PLUS_LIFE
+	};
+
+	private static final int FLAG_TWO_PLAYER = 1;
+	private static final int FLAG_BRUTE_FORCE = 1 << 1;
+
+	/** How a recorded stage ended */
+	public enum Outcome { QUIT, DIED, CLEARED }
+
+	long seed;
+	int stage;
+	int attackLevel;
+	int healthLevel;
+	int speedLevel;
+	int tickRate;
+	/** Position of the first tick in the tick length pattern, see FixedTimestep */
+	int tickPhase;
+	boolean twoPlayer;
+	boolean bruteForceCollisions;
+	int startScore;
+	int[] inputs = new int[0];
+	int ticks;
+	Outcome outcome = Outcome.QUIT;
+	int finalScore;
+
+	/**
+	 * Get the input bit of an item
+	 *
+	 * @param itemId One of the ItemManager ID_* constants
+	 * @return The bit, or 0 for an unknown item
+	 */
+	public static int itemBit(String itemId) {
+		for (int i = 0; i < ITEM_IDS.length; i++) {
+			if (ITEM_IDS[i].equals(itemId)) {
+				return 1 << (ITEM_SHIFT + i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Feed one tick of recorded input into a world. The live game goes
+	 * through here as well, so recording and playback cannot drift apart.
+	 *
+	 * @param mask The input bits of the tick
+	 * @param world The world about to be ticked
+	 */
+	public static void apply(int mask, GameWorld world) {
+		world.setPaused((mask & PAUSED) != 0);
+		world.setInput(0, (mask & P1_LEFT) != 0, (mask & P1_RIGHT) != 0, (mask & P1_FIRE) != 0);
+		world.setInput(1, (mask & P2_LEFT) != 0, (mask & P2_RIGHT) != 0, (mask & P2_FIRE) != 0);
+		for (int i = 0; i < ITEM_IDS.length; i++) {
+			if ((mask & (1 << (ITEM_SHIFT + i))) != 0) {
+				world.activateItem(ITEM_IDS[i]);
+			}
+		}
+	}
+
+	/**
+	 * Write this replay in the binary format
+	 *
+	 * @param out The stream to write to, not closed
+	 */
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeByte(VERSION);
+		data.writeLong(seed);
+		writeVarint(data, stage);
+		writeVarint(data, attackLevel);
+		writeVarint(data, healthLevel);
+		writeVarint(data, speedLevel);
+		writeVarint(data, tickRate);
+		writeVarint(data, tickPhase);
+		data.writeByte((twoPlayer ? FLAG_TWO_PLAYER : 0) | (bruteForceCollisions ? FLAG_BRUTE_FORCE : 0));
+		writeVarint(data, startScore);
+
+		int previous = 0;
+		int i = 0;
+		while (i < ticks) {
+			int mask = inputs[i];
+			int run = 1;
+			while (i + run < ticks && inputs[i + run] == mask) {
+				run++;
+			}
+			writeVarint(data, run);
+			writeVarint(data, mask ^ previous);
+			previous = mask;
+			i += run;
+		}
+		// a run of 0 ticks ends the body
+		writeVarint(data, 0);
+
+		data.writeByte(outcome.ordinal());
+		writeVarint(data, finalScore);
+		data.flush();
+	}
+
+	/**
+	 * Read a replay written by write()
+	 *
+	 * @param in The stream to read from, not closed
+	 * @return The replay
+	 * @throws IOException If the stream is not a replay of a known version
+	 */
+	public static Replay read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a replay file");
+		}
+		int version = data.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported replay version " + version);
+		}
+
+		Replay replay = new Replay();
+		replay.seed = data.readLong();
+		replay.stage = readVarint(data);
+		replay.attackLevel = readVarint(data);
+		replay.healthLevel = readVarint(data);
+		replay.speedLevel = readVarint(data);
+		replay.tickRate = readVarint(data);
+		replay.tickPhase = readVarint(data);
+		int flags = data.readUnsignedByte();
+		replay.twoPlayer = (flags & FLAG_TWO_PLAYER) != 0;
+		replay.bruteForceCollisions = (flags & FLAG_BRUTE_FORCE) != 0;
+		replay.startScore = readVarint(data);
+
+		int mask = 0;
+		for (int run = readVarint(data); run != 0; run = readVarint(data)) {
+			mask ^= readVarint(data);
+			replay.ensureCapacity(replay.ticks + run);
+			Arrays.fill(replay.inputs, replay.ticks, replay.ticks + run, mask);
+			replay.ticks += run;
+		}
+
+		int outcome = data.readUnsignedByte();
+		if (outcome >= Outcome.values().length) {
+			throw new IOException("Bad replay outcome " + outcome);
+		}
+		replay.outcome = Outcome.values()[outcome];
+		replay.finalScore = readVarint(data);
+		return replay;
+	}
+
+	void addTick(int mask) {
+		ensureCapacity(ticks + 1);
+		inputs[ticks++] = mask;
+	}
+
+	private void ensureCapacity(int size) {
+		if (inputs.length < size) {
+			inputs = Arrays.copyOf(inputs, Math.max(size, Math.max(64, inputs.length * 2)));
+		}
+	}
+
+	private static void writeVarint(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarint(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException("Truncated replay");
+			}
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getStage() {
+		return stage;
+	}
+
+	/** @return The number of recorded ticks */
+	public int getTicks() {
+		return ticks;
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	/** @return The score when the recording ended */
+	public int getFinalScore() {
+		return finalScore;
+	}
+}
@@ -0,0 +1,147 @@
+package org.newdawn.spaceinvaders.replay;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.newdawn.spaceinvaders.FixedTimestep;
+import org.newdawn.spaceinvaders.collision.BruteForceCollisionDetector;
+import org.newdawn.spaceinvaders.engine.GameWorld;
+import org.newdawn.spaceinvaders.engine.WorldListener;
+import org.newdawn.spaceinvaders.items.ItemManager;
+
+/**
+ * Plays a replay back in a headless world, tick by tick and as fast as
+ * the CPU allows, e.g. to run a recorded laggy session under a profiler:
+ * <pre>
+ * java -Djava.awt.headless=true -cp ... org.newdawn.spaceinvaders.replay.ReplayPlayer replay.sirp
+ * </pre>
+ */
+public final class ReplayPlayer {
+	/**
+	 * How a played back stage ended
+	 */
+	public static final class Result implements WorldListener {
+		private Replay.Outcome outcome = Replay.Outcome.QUIT;
+		private int finalScore;
+		private int ticks;
+		private long nanos;
+
+		@Override
+		public void playerDied(GameWorld world) {
+			end(Replay.Outcome.DIED, world);
+		}
+
+		@Override
+		public void stageCleared(GameWorld world, boolean finalStage) {
+			end(Replay.Outcome.CLEARED, world);
+		}
+
+		private void end(Replay.Outcome outcome, GameWorld world) {
+			if (this.outcome == Replay.Outcome.QUIT) {
+				this.outcome = outcome;
+				this.finalScore = world.getScore();
+			}
+		}
+
+		public Replay.Outcome getOutcome() {
+			return outcome;
+		}
+
+		public int getFinalScore() {
+			return finalScore;
+		}
+
+		/** @return The number of ticks run */
+		public int getTicks() {
+			return ticks;
+		}
+
+		/** @return Real time the playback took (ns) */
+		public long getNanos() {
+			return nanos;
+		}
+
+		/**
+		 * @param replay The replay that was played
+		 * @return True if the playback ended the way the recording did
+		 */
+		public boolean matches(Replay replay) {
+			return outcome == replay.outcome && finalScore == replay.finalScore && ticks == replay.ticks;
+		}
+
+		@Override
+		public String toString() {
+			return outcome + " score=" + finalScore + " ticks=" + ticks + " in " + nanos / 1_000_000L + "ms";
+		}
+	}
+
+	private ReplayPlayer() {
+	}
+
+	/**
+	 * Re-run a recorded stage
+	 *
+	 * @param replay The recording
+	 * @return How the playback ended
+	 */
+	public static Result play(Replay replay) {
+		Result result = new Result();
+		GameWorld world = new GameWorld(result);
+		ItemManager items = new ItemManager(null);
+		items.setClock(world::getTime);
+		world.setItemManager(items);
+		if (replay.bruteForceCollisions) {
+			world.setCollisionDetector(new BruteForceCollisionDetector());
+		}
+
+		world.applyUpgrades(replay.attackLevel, replay.healthLevel, replay.speedLevel);
+		world.setSeed(replay.seed);
+		world.setScore(replay.startScore);
+		world.startStage(replay.stage, replay.twoPlayer);
+
+		// line up with the tick lengths the recording saw
+		FixedTimestep timestep = new FixedTimestep(replay.tickRate);
+		for (int i = 0; i < replay.tickPhase; i++) {
+			timestep.nextTickMillis();
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < replay.ticks && result.outcome == Replay.Outcome.QUIT; i++) {
+			Replay.apply(replay.inputs[i], world);
+			world.tick(timestep.nextTickMillis());
+			result.ticks++;
+		}
+		result.nanos = System.nanoTime() - start;
+		if (result.outcome == Replay.Outcome.QUIT) {
+			result.finalScore = world.getScore();
+		}
+		return result;
+	}
+
+	/**
+	 * Play replay files and report whether each ended as recorded
+	 *
+	 * @param argv The replay files
+	 */
+	public static void main(String[] argv) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+
+		boolean allMatch = true;
+		for (String name : argv) {
+			Replay replay;
+			try (InputStream in = new BufferedInputStream(new FileInputStream(name))) {
+				replay = Replay.read(in);
+			}
+			Result result = play(replay);
+			boolean match = result.matches(replay);
+			allMatch &= match;
+			System.out.println(name + ": stage " + replay.stage + ", " + result + (match ? "" : " - DIVERGED, recorded "
+					+ replay.outcome + " score=" + replay.finalScore + " ticks=" + replay.ticks));
+		}
+		if (!allMatch) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package org.newdawn.spaceinvaders.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.newdawn.spaceinvaders.engine.GameWorld;
+
+/**
+ * Records the input of one stage for later playback. Created on the game
+ * loop thread right after the stage started, fed once per tick, and
+ * written out when the stage ends.
+ */
+public class ReplayRecorder {
+	private final Replay replay = new Replay();
+	private final File file;
+	private boolean finished;
+
+	/**
+	 * @param world The world whose stage just started
+	 * @param tickRate The simulation tick rate in Hz
+	 * @param file Where the replay is written when it finishes
+	 */
+	public ReplayRecorder(GameWorld world, int tickRate, File file) {
+		this.file = file;
+		int[] upgrades = world.getUpgradeLevels();
+		replay.seed = world.getSeed();
+		replay.stage = world.getCurrentStage();
+		replay.attackLevel = upgrades[0];
+		replay.healthLevel = upgrades[1];
+		replay.speedLevel = upgrades[2];
+		replay.tickRate = tickRate;
+		replay.twoPlayer = world.isTwoPlayer();
+		replay.bruteForceCollisions = "bruteforce".equals(world.getCollisionDetector().getName());
+		replay.startScore = world.getScore();
+	}
+
+	/**
+	 * Record the input of a tick, before the tick is run
+	 *
+	 * @param mask The Replay input bits
+	 * @param tickIndex The index of the tick in the FixedTimestep sequence
+	 */
+	public synchronized void record(int mask, long tickIndex) {
+		if (finished) {
+			return;
+		}
+		if (replay.ticks == 0) {
+			replay.tickPhase = (int) (tickIndex % replay.tickRate);
+		}
+		replay.addTick(mask);
+	}
+
+	/**
+	 * Stop recording and write the file. Further calls do nothing.
+	 *
+	 * @param outcome How the stage ended
+	 * @param finalScore The score at the end
+	 */
+	public synchronized void finish(Replay.Outcome outcome, int finalScore) {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		replay.outcome = outcome;
+		replay.finalScore = finalScore;
+
+		File dir = file.getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+			System.err.println("Can't create replay directory: " + dir);
+			return;
+		}
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+			replay.write(out);
+		} catch (IOException e) {
+			System.err.println("Failed to write replay " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return The replay recorded so far
+	 */
+	public synchronized Replay getReplay() {
+		return replay;
+	}
+}
@@ -83,9 +83,7 @@ public class StoreDialog extends JDialog {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (firebaseManager.isLoggedIn()) {
-                    int current = firebaseManager.getUserPoints();
-                    int newPoints = current + 500;
-                    boolean ok = firebaseManager.updateUserPoints(newPoints);
+                    boolean ok = firebaseManager.addPoints(500);
                     if (ok) {
                         JOptionPane.showMessageDialog(StoreDialog.this, "+500 points added! (Test Mode)");
                         refreshPoints();
@@ -0,0 +1,40 @@
+package org.newdawn.spaceinvaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FixedTimestepTest {
+	private static final long MS = 1_000_000L;
+
+	@Test
+	public void spreadsTicksOverWholeMilliseconds() {
+		FixedTimestep timestep = new FixedTimestep(120);
+		long total = 0;
+		for (int i = 0; i < 120; i++) {
+			long tick = timestep.nextTickMillis();
+			assertTrue("tick=" + tick, tick == 8 || tick == 9);
+			total += tick;
+		}
+		assertEquals(1000, total);
+	}
+
+	@Test
+	public void keepsTheRemainderForInterpolation() {
+		FixedTimestep timestep = new FixedTimestep(100);
+		timestep.reset(0);
+		assertEquals(2, timestep.advance(25 * MS));
+		assertEquals(0.5, timestep.getAlpha(), 1e-9);
+		assertEquals(1, timestep.advance(30 * MS));
+		assertEquals(0.0, timestep.getAlpha(), 1e-9);
+	}
+
+	@Test
+	public void capsTicksPerFrame() {
+		FixedTimestep timestep = new FixedTimestep(100, 5);
+		timestep.reset(0);
+		assertEquals(5, timestep.advance(1000 * MS));
+		assertEquals(950, timestep.getDroppedMillis());
+	}
+}
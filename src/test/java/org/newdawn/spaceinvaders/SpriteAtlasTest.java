@@ -0,0 +1,82 @@
+package org.newdawn.spaceinvaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class SpriteAtlasTest {
+	private static final String[] REFS = {
+			"sprites/alien.gif", "sprites/alien2.gif", "sprites/alien3.gif",
+			"sprites/ship.gif", "sprites/shot.gif", "sprites/item_plusLife.png"
+	};
+
+	@Test
+	public void regionsDrawTheOriginalPixels() throws Exception {
+		SpriteAtlas atlas = SpriteAtlas.load(SpriteAtlas.MANIFEST);
+		assertNotNull(atlas);
+
+		for (String ref : REFS) {
+			BufferedImage original = ImageIO.read(getClass().getClassLoader().getResource(ref));
+			Sprite region = atlas.get(ref);
+			assertEquals(ref, original.getWidth(), region.getWidth());
+			assertEquals(ref, original.getHeight(), region.getHeight());
+
+			BufferedImage drawn = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = drawn.createGraphics();
+			region.draw(g, 0, 0);
+			g.dispose();
+			for (int y = 0; y < original.getHeight(); y++) {
+				for (int x = 0; x < original.getWidth(); x++) {
+					assertEquals(ref + " at " + x + "," + y, visible(original.getRGB(x, y)), visible(drawn.getRGB(x, y)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void addedSpritesFillTheFreeSpaceWithoutOverlapping() throws Exception {
+		SpriteAtlas atlas = SpriteAtlas.load(SpriteAtlas.MANIFEST);
+		List<Sprite> tiles = new ArrayList<>();
+		Sprite added;
+		while ((added = atlas.add("tile" + tiles.size(), solid(43, 29, tiles.size() + 1))) != null) {
+			tiles.add(added);
+		}
+		assertTrue("room for the tinted frames of every alien type", tiles.size() >= 12);
+
+		// every tile still shows its own colour, so none was drawn over another
+		for (int i = 0; i < tiles.size(); i++) {
+			BufferedImage drawn = new BufferedImage(43, 29, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = drawn.createGraphics();
+			tiles.get(i).draw(g, 0, 0);
+			g.dispose();
+			assertEquals(0xff000000 | (i + 1), drawn.getRGB(0, 0));
+			assertEquals(0xff000000 | (i + 1), drawn.getRGB(42, 28));
+		}
+		assertEquals(tiles.get(3), atlas.get("tile3"));
+		regionsDrawTheOriginalPixels();
+	}
+
+	/** The colour of a fully transparent pixel doesn't matter */
+	private static int visible(int argb) {
+		return (argb >>> 24) == 0 ? 0 : argb;
+	}
+
+	private static BufferedImage solid(int w, int h, int rgb) {
+		BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(new Color(rgb));
+		g.fillRect(0, 0, w, h);
+		g.dispose();
+		return image;
+	}
+}
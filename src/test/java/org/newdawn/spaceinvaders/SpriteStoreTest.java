@@ -0,0 +1,44 @@
+package org.newdawn.spaceinvaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+/**
+ * Runs headless like the rest of the tests, so the store hands out
+ * size-only sprites.
+ */
+public class SpriteStoreTest {
+	@Test
+	public void missingSpriteGetsAPlaceholderInsteadOfExiting() {
+		Sprite sprite = SpriteStore.get().getSprite("sprites/does_not_exist.gif");
+		assertEquals(32, sprite.getWidth());
+		assertSame(sprite, SpriteStore.get().getSprite("sprites/does_not_exist.gif"));
+	}
+
+	@Test
+	public void preloadCompletesAFuturePerManifestSprite() throws Exception {
+		Map<String, CompletableFuture<Sprite>> loaded = SpriteStore.get().preload(SpriteAtlas.MANIFEST);
+		assertEquals(SpriteAtlas.readManifest(SpriteAtlas.MANIFEST).size(), loaded.size());
+
+		Sprite alien = loaded.get("sprites/alien.gif").get();
+		assertEquals(43, alien.getWidth());
+		assertEquals(29, alien.getHeight());
+		assertSame(alien, SpriteStore.get().getSprite("sprites/alien.gif"));
+		assertTrue(loaded.get("sprites/shot.gif").isDone());
+	}
+
+	@Test
+	public void tintedSpritesAreSharedPerTint() {
+		Color tint = new Color(255, 50, 50, 180);
+		Sprite a = SpriteStore.get().getSprite("sprites/alien2.gif", tint);
+		assertSame(a, SpriteStore.get().getSprite("sprites/alien2.gif", new Color(255, 50, 50, 180)));
+		assertSame(SpriteStore.get().getSprite("sprites/alien2.gif"), SpriteStore.get().getSprite("sprites/alien2.gif", null));
+	}
+}
@@ -0,0 +1,39 @@
+package org.newdawn.spaceinvaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class SpriteSurfaceTest {
+	@Test
+	public void withoutADisplayTheSourceIsDrawnAndCounted() {
+		BufferedImage source = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+		SpriteSurface surface = new SpriteSurface(source);
+		long software = SpriteSurface.getSoftwareFrames();
+		long accelerated = SpriteSurface.getAcceleratedFrames();
+
+		surface.validate(null);
+		surface.validate(null);
+
+		assertSame(source, surface.getImage());
+		assertEquals(software + 2, SpriteSurface.getSoftwareFrames());
+		assertEquals(accelerated, SpriteSurface.getAcceleratedFrames());
+	}
+
+	@Test
+	public void editsGoToTheSourcePixels() {
+		SpriteSurface surface = new SpriteSurface(new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB));
+		Graphics2D g = surface.edit();
+		g.setColor(Color.RED);
+		g.fillRect(0, 0, 8, 8);
+		g.dispose();
+
+		surface.validate(null);
+		assertEquals(Color.RED.getRGB(), ((BufferedImage) surface.getImage()).getRGB(4, 4));
+	}
+}
@@ -0,0 +1,55 @@
+package org.newdawn.spaceinvaders.collision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SpatialHashGridTest {
+    @Test
+    public void findsTheSameOverlapsAsThePairScan() {
+        Random random = new Random(42);
+        int count = 500;
+        int[] x = new int[count];
+        int[] y = new int[count];
+        int[] w = new int[count];
+        int[] h = new int[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextInt(1300) - 100;
+            y[i] = random.nextInt(1000) - 100;
+            w[i] = 4 + random.nextInt(40);
+            h[i] = 4 + random.nextInt(40);
+        }
+
+        Set<Long> expected = new HashSet<>();
+        for (int p = 0; p < count; p++) {
+            for (int s = p + 1; s < count; s++) {
+                if (overlaps(x, y, w, h, p, s)) expected.add(((long) p << 32) | s);
+            }
+        }
+
+        SpatialHashGrid grid = new SpatialHashGrid(64);
+        grid.build(x, y, w, h, count);
+        int[] out = new int[count];
+        Set<Long> actual = new HashSet<>();
+        for (int p = 0; p < count; p++) {
+            int found = grid.candidatesFor(p, out);
+            for (int k = 0; k < found; k++) {
+                assertTrue("candidates must come after the item", out[k] > p);
+                if (k > 0) assertTrue("candidates must be sorted and unique", out[k] > out[k - 1]);
+                if (overlaps(x, y, w, h, p, out[k])) actual.add(((long) p << 32) | out[k]);
+            }
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    private static boolean overlaps(int[] x, int[] y, int[] w, int[] h, int a, int b) {
+        return new Rectangle(x[a], y[a], w[a], h[a]).intersects(new Rectangle(x[b], y[b], w[b], h[b]));
+    }
+}
@@ -0,0 +1,54 @@
+package org.newdawn.spaceinvaders.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BatchSimulatorTest {
+	@BeforeClass
+	public static void headless() {
+		System.setProperty("java.awt.headless", "true");
+	}
+
+	@Test
+	public void sameSeedSameResultAtAnyParallelism() {
+		BatchSimulator simulator = new BatchSimulator(3, TrackingBot::new);
+		simulator.setTimeLimitMillis(60_000);
+
+		simulator.setParallelism(1);
+		BatchResult serial = simulator.run(16, 7);
+		simulator.setParallelism(4);
+		BatchResult parallel = simulator.run(16, 7);
+
+		assertEquals(16, serial.getGames());
+		assertEquals(serial.getClears(), parallel.getClears());
+		assertEquals(serial.getAverageScore(), parallel.getAverageScore(), 0);
+		for (int i = 0; i < serial.getGames(); i++) {
+			assertEquals(serial.getRuns().get(i).getTimeMillis(), parallel.getRuns().get(i).getTimeMillis());
+		}
+	}
+
+	@Test
+	public void randomStagesReplayFromTheSeed() {
+		// stage 4 teleports, stage 5 draws its alien types
+		for (int stage = 4; stage <= 5; stage++) {
+			BatchSimulator simulator = new BatchSimulator(stage, TrackingBot::new);
+			for (long seed = 0; seed < 8; seed++) {
+				BatchResult.Run first = simulator.play(seed);
+				BatchResult.Run second = simulator.play(seed);
+				assertEquals(first.getTimeMillis(), second.getTimeMillis());
+				assertEquals(first.getScore(), second.getScore());
+				assertEquals(first.getKilledBy(), second.getKilledBy());
+			}
+		}
+	}
+
+	@Test
+	public void botClearsTheFirstStage() {
+		BatchResult result = new BatchSimulator(1, TrackingBot::new).run(8, 1);
+		assertEquals(8, result.getClears());
+		assertTrue(result.getAverageTimeToClear() > 0);
+	}
+}
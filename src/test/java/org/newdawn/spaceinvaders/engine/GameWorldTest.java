@@ -0,0 +1,196 @@
+package org.newdawn.spaceinvaders.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.entity.AlienEntity;
+import org.newdawn.spaceinvaders.entity.AlienEntity.AlienType;
+import org.newdawn.spaceinvaders.entity.Entity;
+import org.newdawn.spaceinvaders.entity.EntityStore;
+import org.newdawn.spaceinvaders.entity.ShotEntity;
+
+public class GameWorldTest {
+	private int deaths;
+	private int clears;
+
+	private final WorldListener listener = new WorldListener() {
+		@Override
+		public void playerDied(GameWorld world) {
+			deaths++;
+		}
+
+		@Override
+		public void stageCleared(GameWorld world, boolean finalStage) {
+			clears++;
+		}
+	};
+
+	@BeforeClass
+	public static void headless() {
+		System.setProperty("java.awt.headless", "true");
+	}
+
+	@Test
+	public void clearsFirstStageWithoutADisplay() {
+		GameWorld world = new GameWorld(listener);
+		world.startStage(1, false);
+		assertEquals(1, world.getAlienCount());
+
+		// just keep firing from the start position
+		world.setInput(0, false, false, true);
+		for (int i = 0; i < 60_000 && clears == 0 && deaths == 0; i++) {
+			world.tick(10);
+		}
+
+		assertEquals(1, clears);
+		assertEquals(0, deaths);
+		assertTrue(world.getScore() > 0);
+		assertEquals(world.getScore(), world.getFinalScore());
+	}
+
+	@Test
+	public void pausedWorldDoesNotMove() {
+		GameWorld world = new GameWorld(listener);
+		world.startStage(3, true);
+		int shipX = world.getShip().getX();
+		int entities = world.getEntities().size();
+
+		world.setPaused(true);
+		world.setInput(0, true, false, true);
+		for (int i = 0; i < 500; i++) {
+			world.tick(10);
+		}
+
+		assertEquals(shipX, world.getShip().getX());
+		assertEquals(entities, world.getEntities().size());
+		assertEquals(5000, world.getTime());
+	}
+
+	@Test
+	public void entityStorePlaysTheSame() {
+		GameWorld plain = new GameWorld(listener);
+		GameWorld stored = new GameWorld(listener);
+		stored.setEntityStore(new EntityStore());
+		for (GameWorld world : new GameWorld[] {plain, stored}) {
+			world.setSeed(7);
+			world.startStage(3, false);
+		}
+
+		// sweep left while firing, shots leave the top and enemy shots the bottom
+		for (int i = 0; i < 1500; i++) {
+			for (GameWorld world : new GameWorld[] {plain, stored}) {
+				world.setInput(0, i < 200, false, true);
+				world.tick(10);
+			}
+			List<Entity> expected = plain.getEntities();
+			List<Entity> actual = stored.getEntities();
+			assertEquals("tick " + i, expected.size(), actual.size());
+			for (int e = 0; e < expected.size(); e++) {
+				assertEquals("tick " + i, expected.get(e).getXDouble(), actual.get(e).getXDouble(), 1e-9);
+				assertEquals("tick " + i, expected.get(e).getYDouble(), actual.get(e).getYDouble(), 1e-9);
+			}
+		}
+		assertEquals(plain.getScore(), stored.getScore());
+		assertTrue(plain.getShotPool().getCreated() > 0);
+	}
+
+	@Test
+	public void steadyFireAllocatesNoShots() {
+		GameWorld world = new GameWorld(listener);
+		// no aliens, so every shot flies off the top and nothing ends the stage
+		world.setStageLayout(1, new StageLayout(0, 0, 100, 50, 40, 30, false));
+		world.startStage(1, false);
+		world.setInput(0, false, false, true);
+
+		for (int i = 0; i < 1000; i++) {
+			world.tick(10);
+		}
+		long warmedUp = world.getShotPool().getCreated();
+		assertTrue(warmedUp > 0);
+
+		for (int i = 0; i < 10_000; i++) {
+			world.tick(10);
+		}
+		assertEquals(warmedUp, world.getShotPool().getCreated());
+		assertTrue(world.getShotPool().getHitRate() > 0.9);
+		assertEquals(0, clears + deaths);
+	}
+
+	@Test
+	public void shotRemovedTwiceIsRetiredOnce() {
+		// find the tick the first shot hits the stacked pair
+		GameWorld dry = stackedPairAboveShip();
+		ShotEntity firstShot = fireOnce(dry);
+		int hitTick = 1;
+		while (!firstShot.isDead()) {
+			dry.tick(10);
+			hitTick++;
+			assertTrue("the shot never hit", hitTick < 500);
+		}
+
+		GameWorld world = stackedPairAboveShip();
+		ShotEntity shot = fireOnce(world);
+		for (int i = 1; i < hitTick - 1; i++) {
+			world.tick(10);
+		}
+		List<Entity> before = new ArrayList<>(world.getEntities());
+
+		// fire again on the hit tick, so the new shot joins the list in the same pass
+		world.setInput(0, false, false, true);
+		world.tick(10);
+
+		assertTrue(shot.isDead());
+		assertEquals(2, world.getAlienCount());
+		assertEquals(1, world.getShotPool().getSize());
+		List<Entity> expected = new ArrayList<>();
+		for (Entity entity : before) {
+			if (!entity.isDead()) {
+				expected.add(entity);
+			}
+		}
+		assertEquals(before.size() - 3, expected.size());
+		List<Entity> entities = world.getEntities();
+		assertEquals(expected, entities.subList(0, entities.size() - 1));
+		Entity newShot = entities.get(entities.size() - 1);
+		assertTrue(newShot instanceof ShotEntity);
+		assertTrue(newShot != shot);
+
+		// the new shot was not skipped: it keeps moving
+		double y = newShot.getYDouble();
+		world.setInput(0, false, false, false);
+		world.tick(10);
+		assertTrue(newShot.getYDouble() < y);
+	}
+
+	/**
+	 * Two aliens on top of each other in the line of fire, two more above
+	 * them, all standing still
+	 */
+	private GameWorld stackedPairAboveShip() {
+		GameWorld world = new GameWorld(listener);
+		world.setSeed(3);
+		world.setEnemyFiringInterval(1_000_000);
+		world.setStageLayout(1, new StageLayout(2, 2, 375, 150, 0, 150, false).withRowTypes(AlienType.BASIC));
+		world.startStage(1, false);
+		for (Entity entity : world.getEntities()) {
+			if (entity instanceof AlienEntity) {
+				entity.setHorizontalMovement(0);
+			}
+		}
+		return world;
+	}
+
+	/** @return The shot fired by the first tick */
+	private static ShotEntity fireOnce(GameWorld world) {
+		world.setInput(0, false, false, true);
+		world.tick(10);
+		world.setInput(0, false, false, false);
+		List<Entity> entities = world.getEntities();
+		return (ShotEntity) entities.get(entities.size() - 1);
+	}
+}
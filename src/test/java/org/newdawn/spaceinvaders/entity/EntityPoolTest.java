@@ -0,0 +1,41 @@
+package org.newdawn.spaceinvaders.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class EntityPoolTest {
+	@BeforeClass
+	public static void headless() {
+		System.setProperty("java.awt.headless", "true");
+	}
+
+	@Test
+	public void releasedTwiceIsPooledOnce() {
+		EntityPool<ShotEntity> pool = new EntityPool<>(() -> new ShotEntity(null, "sprites/shot.gif", 0, 0));
+		ShotEntity shot = pool.acquire();
+		pool.release(shot);
+		pool.release(shot);
+		assertEquals(1, pool.getSize());
+
+		// handed out once, the second acquire has to create a new shot
+		assertSame(shot, pool.acquire());
+		assertNotSame(shot, pool.acquire());
+		assertEquals(2, pool.getCreated());
+		assertEquals(0, pool.getSize());
+	}
+
+	@Test
+	public void keepsAtMostMaxIdle() {
+		EntityPool<ShotEntity> pool = new EntityPool<>(() -> new ShotEntity(null, "sprites/shot.gif", 0, 0), 1);
+		ShotEntity a = pool.acquire();
+		ShotEntity b = pool.acquire();
+		pool.release(a);
+		pool.release(b);
+		assertEquals(1, pool.getSize());
+		assertEquals(2, pool.getHighWaterMark());
+	}
+}
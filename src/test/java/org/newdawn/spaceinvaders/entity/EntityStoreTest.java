@@ -0,0 +1,41 @@
+package org.newdawn.spaceinvaders.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class EntityStoreTest {
+	@Test
+	public void integratesLiveSlots() {
+		EntityStore store = new EntityStore(2);
+		int a = store.allocate(10, 20, 100, -50);
+		int b = store.allocate(0, 0, 100, 100);
+		store.free(b);
+
+		store.storePreviousPositions();
+		store.integrateAll(10);
+
+		assertEquals(11.0, store.getX(a), 1e-9);
+		assertEquals(19.5, store.getY(a), 1e-9);
+		assertEquals(10.0, store.getPrevX(a), 1e-9);
+		assertEquals(0.0, store.getX(b), 1e-9);
+	}
+
+	@Test
+	public void reusesFreedHandles() {
+		EntityStore store = new EntityStore(1);
+		int a = store.allocate(1, 1, 0, 0);
+		int b = store.allocate(2, 2, 0, 0);
+		store.free(a);
+		store.free(a);
+		assertFalse(store.isLive(a));
+		assertEquals(1, store.size());
+
+		int c = store.allocate(3, 3, 0, 0);
+		assertEquals(a, c);
+		assertEquals(2, store.getBound());
+		assertEquals(2.0, store.getX(b), 1e-9);
+		assertEquals(3.0, store.getPrevX(c), 1e-9);
+	}
+}
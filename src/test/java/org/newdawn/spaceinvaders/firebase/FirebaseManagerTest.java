@@ -0,0 +1,48 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Runs logged out, so no call ever reaches the network.
+ */
+public class FirebaseManagerTest {
+	@Test
+	public void asyncCallsRunOffTheCallerInSubmissionOrder() throws Exception {
+		FirebaseManager firebase = FirebaseManager.getInstance();
+		List<Integer> order = new ArrayList<>();
+		List<CompletableFuture<String>> calls = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			int n = i;
+			calls.add(firebase.submit(() -> {
+				synchronized (order) {
+					order.add(n);
+				}
+				return Thread.currentThread().getName();
+			}));
+		}
+
+		for (CompletableFuture<String> call : calls) {
+			assertNotEquals(Thread.currentThread().getName(), call.get(5, TimeUnit.SECONDS));
+		}
+		for (int i = 0; i < 20; i++) {
+			assertEquals(Integer.valueOf(i), order.get(i));
+		}
+	}
+
+	@Test
+	public void loggedOutAsyncCallsCompleteWithDefaults() throws Exception {
+		FirebaseManager firebase = FirebaseManager.getInstance();
+		assertEquals(Integer.valueOf(0), firebase.getUserPointsAsync().get(5, TimeUnit.SECONDS));
+		assertFalse(firebase.addPointsAsync(100).get(5, TimeUnit.SECONDS));
+		assertEquals(Integer.valueOf(0), firebase.getMaxClearedStageAsync().get(5, TimeUnit.SECONDS));
+	}
+}
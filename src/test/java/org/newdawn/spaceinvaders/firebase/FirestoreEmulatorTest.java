@@ -0,0 +1,131 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FirestoreEmulatorTest {
+	private static final String USERS = "projects/demo/databases/(default)/documents/users/";
+
+	private FirestoreEmulator emulator;
+	private PooledHttpTransport transport;
+
+	@Before
+	public void startEmulator() throws IOException {
+		emulator = new FirestoreEmulator(42);
+		emulator.start();
+		transport = new PooledHttpTransport(1000, 5000);
+	}
+
+	@After
+	public void stopEmulator() {
+		FirebaseManager firebase = FirebaseManager.getInstance();
+		firebase.signOut();
+		firebase.resetConfig();
+		emulator.close();
+	}
+
+	@Test
+	public void clientRunsAgainstTheEmulator() {
+		FirebaseManager firebase = FirebaseManager.getInstance();
+		firebase.setConfig("test-key", "demo");
+		firebase.setEndpoints(emulator.getBaseUrl(), emulator.getBaseUrl());
+
+		assertTrue(firebase.signUpWithEmailPassword("pilot@example.com", "secret1"));
+		assertFalse(firebase.signUpWithEmailPassword("pilot@example.com", "secret1"));
+		assertTrue(firebase.addPoints(500));
+		assertEquals(500, firebase.getUserPoints());
+
+		assertTrue(firebase.purchaseUpgrade("attack", 200));
+		assertEquals(1, firebase.getUpgradeLevel("attack"));
+		assertFalse(firebase.purchaseItem("ammo", "Ammo", 400));
+		assertTrue(firebase.purchaseItem("ammo", "Ammo", 100));
+		assertEquals(200, firebase.getUserPoints());
+		assertEquals(1, firebase.getPurchasedItems().size());
+
+		assertTrue(firebase.updateHighestScore(1234));
+		assertTrue(firebase.updateHighestScore(99));
+		List<Map<String, Object>> top = firebase.getTopScores(10);
+		assertEquals(1, top.size());
+		assertEquals(1234, top.get(0).get("score"));
+
+		JSONObject stored = emulator.getFields(USERS + firebase.getUid());
+		assertEquals("200", stored.getJSONObject("points").getString("integerValue"));
+	}
+
+	@Test
+	public void spendsOnlyRetryContendedCommits() {
+		FirebaseManager firebase = FirebaseManager.getInstance();
+		firebase.setConfig("test-key", "demo");
+		firebase.setEndpoints(emulator.getBaseUrl(), emulator.getBaseUrl());
+		assertTrue(firebase.signUpWithEmailPassword("spender@example.com", "secret1"));
+		assertTrue(firebase.addPoints(100));
+		assertEquals(100, firebase.getUserPoints());
+
+		// the read goes through, the commit is throttled: no second read and commit
+		long before = emulator.getRequestCount();
+		emulator.setRateLimit(0.001, 1);
+		assertFalse(firebase.spendPoints(10));
+		assertEquals(before + 2, emulator.getRequestCount());
+		assertEquals(1, emulator.getRateLimitedCount());
+
+		emulator.setRateLimit(0, 1);
+		assertTrue(firebase.spendPoints(10));
+		assertEquals(90, firebase.getUserPoints());
+	}
+
+	@Test
+	public void commitsApplyAllWritesOrNone() throws IOException {
+		String commit = emulator.getBaseUrl() + "/projects/demo/databases/(default)/documents:commit";
+		String user = USERS + "u1";
+		JSONObject points = new JSONObject().put("points", new JSONObject().put("integerValue", "10"));
+		assertTrue(transport.send("POST", commit, null, FieldTransforms.commit(FieldTransforms.create(user, points))).isSuccess());
+
+		// the item would be fine on its own, but the user document precondition is stale
+		JSONObject item = FieldTransforms.create(user + "/items/i1", new JSONObject());
+		JSONObject spend = new FieldTransforms(user).increment("points", -5).toWrite("1970-01-01T00:00:00Z");
+		HttpTransport.Response res = transport.send("POST", commit, null, FieldTransforms.commit(item, spend));
+
+		assertEquals(400, res.getCode());
+		assertTrue(res.getErrorText().contains("FAILED_PRECONDITION"));
+		assertNull(emulator.getFields(user + "/items/i1"));
+		assertEquals("10", emulator.getFields(user).getJSONObject("points").getString("integerValue"));
+	}
+
+	@Test
+	public void faultsAreInjected() throws IOException {
+		String query = emulator.getBaseUrl() + "/projects/demo/databases/(default)/documents:runQuery";
+		JSONObject body = new JSONObject().put("structuredQuery", new JSONObject()
+				.put("from", new JSONArray().put(new JSONObject().put("collectionId", "users"))));
+
+		emulator.setLatency("POST documents:runQuery", FirestoreEmulator.fixed(100));
+		long start = System.nanoTime();
+		assertTrue(transport.send("POST", query, null, body).isSuccess());
+		assertTrue((System.nanoTime() - start) / 1_000_000 >= 100);
+		emulator.setLatency("POST documents:runQuery", FirestoreEmulator.fixed(0));
+
+		emulator.setErrorRate(1);
+		assertEquals(503, transport.send("POST", query, null, body).getCode());
+		emulator.setErrorRate(0);
+
+		emulator.setRateLimit(0.001, 2);
+		assertTrue(transport.send("POST", query, null, body).isSuccess());
+		assertTrue(transport.send("POST", query, null, body).isSuccess());
+		assertEquals(429, transport.send("POST", query, null, body).getCode());
+
+		assertEquals(1, emulator.getInjectedErrorCount());
+		assertEquals(1, emulator.getRateLimitedCount());
+		assertEquals(2, transport.getMetrics().getErrorCount());
+	}
+}
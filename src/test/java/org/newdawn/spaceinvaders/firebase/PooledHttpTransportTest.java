@@ -0,0 +1,134 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class PooledHttpTransportTest {
+	private HttpServer server;
+	private String base;
+	/** Remote port and method (with override) of every request the server saw */
+	private final List<String> seen = new CopyOnWriteArrayList<>();
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v1/projects/p/databases/(default)/documents/users/", ex -> {
+			String override = ex.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+			seen.add(ex.getRemoteAddress().getPort() + " " + (override != null ? override : ex.getRequestMethod())
+					+ " " + ex.getRequestHeaders().getFirst("Authorization"));
+			reply(ex, 200, "{\"fields\": {\"points\": {\"integerValue\": \"7\"}}}\n");
+		});
+		server.createContext("/v1/projects/p/databases/(default)/documents:runQuery", ex -> {
+			seen.add(ex.getRemoteAddress().getPort() + " " + ex.getRequestMethod());
+			reply(ex, 200, "[{\"document\": {}}, {\"readTime\": \"now\"}]");
+		});
+		server.createContext("/v1/accounts:signUp", ex -> reply(ex, 400, "{\"error\": {\"message\": \"EMAIL_EXISTS\"}}"));
+		server.createContext("/slow", ex -> {
+			try {
+				Thread.sleep(2000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			reply(ex, 200, "{}");
+		});
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	public void bodiesAreParsedAndConnectionsReused() throws IOException {
+		PooledHttpTransport transport = new PooledHttpTransport(1000, 1000);
+		String doc = base + "/v1/projects/p/databases/(default)/documents/users/abc?key=k";
+
+		HttpTransport.Response get = transport.send("GET", doc, "token", null);
+		assertEquals(7, get.getObject().getJSONObject("fields").getJSONObject("points").getInt("integerValue"));
+		HttpTransport.Response patch = transport.send("PATCH", doc, "token", new JSONObject().put("fields", new JSONObject()));
+		assertTrue(patch.isSuccess());
+		HttpTransport.Response query = transport.send("POST",
+				base + "/v1/projects/p/databases/(default)/documents:runQuery?key=k", null, new JSONObject());
+		assertNull(query.getObject());
+		assertEquals(2, query.getArray().length());
+
+		assertEquals(3, seen.size());
+		String port = seen.get(0).split(" ")[0];
+		assertEquals(port + " GET Bearer token", seen.get(0));
+		assertEquals(port + " PATCH Bearer token", seen.get(1));
+		assertEquals(port + " POST", seen.get(2));
+	}
+
+	@Test
+	public void errorsKeepTheirTextAndAreCounted() throws IOException {
+		PooledHttpTransport transport = new PooledHttpTransport(1000, 1000);
+		HttpTransport.Response res = transport.send("POST", base + "/v1/accounts:signUp?key=k", null, new JSONObject());
+
+		assertFalse(res.isSuccess());
+		assertEquals(400, res.getCode());
+		assertTrue(res.getErrorText().contains("EMAIL_EXISTS"));
+		HttpMetrics.Endpoint signUp = transport.getMetrics().getEndpoints().get("POST accounts:signUp");
+		assertEquals(1, signUp.getCount());
+		assertEquals(1, signUp.getErrors());
+		assertEquals(1, transport.getMetrics().getErrorCount());
+	}
+
+	@Test
+	public void slowResponsesTimeOut() {
+		PooledHttpTransport transport = new PooledHttpTransport(1000, 200);
+		try {
+			transport.send("GET", base + "/slow", null, null);
+			fail("expected a read timeout");
+		} catch (SocketTimeoutException e) {
+			// expected
+		} catch (IOException e) {
+			fail("expected a read timeout, got " + e);
+		}
+		assertEquals(1, transport.getMetrics().getErrorCount());
+	}
+
+	@Test
+	public void endpointsAreNamedWithoutIds() {
+		String docs = "https://firestore.googleapis.com/v1/projects/p/databases/(default)/documents";
+		assertEquals("GET users/{id}", HttpMetrics.endpointOf("GET", docs + "/users/abc?key=k"));
+		assertEquals("DELETE users/{id}/items/{id}", HttpMetrics.endpointOf("DELETE", docs + "/users/abc/items/x1"));
+		assertEquals("POST users/{id}/items", HttpMetrics.endpointOf("POST", docs + "/users/abc/items?key=k"));
+		assertEquals("POST documents:commit", HttpMetrics.endpointOf("POST", docs + ":commit?key=k"));
+		assertEquals("POST accounts:signInWithPassword",
+				HttpMetrics.endpointOf("POST", "https://identitytoolkit.googleapis.com/v1/accounts:signInWithPassword?key=k"));
+	}
+
+	private static void reply(HttpExchange ex, int code, String body) throws IOException {
+		// read the request to the end so the connection can be kept alive
+		while (ex.getRequestBody().read() != -1) {
+			// discard
+		}
+		byte[] out = body.getBytes(StandardCharsets.UTF_8);
+		ex.getResponseHeaders().set("Content-Type", "application/json");
+		ex.sendResponseHeaders(code, out.length);
+		try (OutputStream os = ex.getResponseBody()) {
+			os.write(out);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package org.newdawn.spaceinvaders.firebase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriteBehindQueueTest {
+	private File dir;
+	private File journal;
+
+	@Before
+	public void createJournalDir() throws IOException {
+		dir = Files.createTempDirectory("write-behind").toFile();
+		journal = new File(dir, "journal.json");
+	}
+
+	@After
+	public void deleteJournalDir() {
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void changesAreMergedIntoOneTransformCommit() {
+		FakeBackend backend = new FakeBackend(1000, 250, 1);
+		WriteBehindQueue queue = new WriteBehindQueue(backend, () -> "u1", Runnable::run, journal);
+		queue.addPoints(100);
+		queue.addPoints(50);
+		queue.offerHighestScore(300);
+		queue.offerHighestScore(200);
+		queue.offerMaxClearedStage(3);
+		queue.offerMaxClearedStage(2);
+
+		assertTrue(queue.flush());
+		assertEquals(1, backend.commits.size());
+		JSONObject write = backend.commits.get(0).getJSONArray("writes").getJSONObject(0);
+		assertEquals(3, write.getJSONObject("transform").getJSONArray("fieldTransforms").length());
+		assertFalse(write.has("update"));
+		assertEquals(1150, backend.get("points"));
+		assertEquals(300, backend.get("highest_score"));
+		assertEquals(3, backend.get("maxClearedStage"));
+		assertFalse(queue.hasPending());
+		assertFalse(journal.exists());
+	}
+
+	@Test
+	public void offlineChangesSurviveInTheJournal() {
+		FakeBackend offline = new FakeBackend(1000, 250, 1);
+		offline.online = false;
+		WriteBehindQueue queue = new WriteBehindQueue(offline, () -> "u1", Runnable::run, journal);
+		queue.addPoints(40);
+		queue.offerHighestScore(500);
+
+		assertFalse(queue.flush());
+		assertTrue(queue.hasPending());
+		assertTrue(journal.isFile());
+
+		// the next session picks them up and adds its own
+		FakeBackend online = new FakeBackend(1000, 250, 1);
+		WriteBehindQueue next = new WriteBehindQueue(online, () -> "u1", Runnable::run, journal);
+		next.addPoints(2);
+		assertTrue(next.flush());
+		assertEquals(1042, online.get("points"));
+		assertEquals(500, online.get("highest_score"));
+	}
+
+	@Test
+	public void journalSetLaterIsLoadedOnce() {
+		FakeBackend offline = new FakeBackend(1000, 250, 1);
+		offline.online = false;
+		WriteBehindQueue queue = new WriteBehindQueue(offline, () -> "u1", Runnable::run, journal);
+		queue.addPoints(40);
+		assertFalse(queue.flush());
+
+		// starts without a journal until one is set, setting it again changes nothing
+		FakeBackend online = new FakeBackend(1000, 250, 1);
+		WriteBehindQueue next = new WriteBehindQueue(online, () -> "u1", Runnable::run, null);
+		assertFalse(next.hasPending());
+		next.setJournal(journal);
+		next.setJournal(journal);
+		assertTrue(next.flush());
+		assertEquals(1040, online.get("points"));
+		assertFalse(journal.exists());
+	}
+
+	@Test
+	public void batchAppliedWithoutAReplyIsNotCountedTwice() {
+		FakeBackend backend = new FakeBackend(1000, 0, 0);
+		WriteBehindQueue queue = new WriteBehindQueue(backend, () -> "u1", Runnable::run, journal);
+		queue.addPoints(100);
+		backend.loseReply = true;
+		assertFalse(queue.flush());
+		assertEquals(1100, backend.get("points"));
+
+		// newer changes go in a batch of their own after the lost one
+		queue.addPoints(5);
+		backend.loseReply = false;
+		assertTrue(queue.flush());
+		assertEquals(1105, backend.get("points"));
+		assertEquals(3, backend.commits.size());
+		assertEquals(backend.commits.get(0).toString(), backend.commits.get(1).toString());
+		assertFalse(queue.hasPending());
+		assertFalse(journal.exists());
+	}
+
+	@Test
+	public void batchIdSurvivesInTheJournal() {
+		FakeBackend backend = new FakeBackend(1000, 0, 0);
+		WriteBehindQueue queue = new WriteBehindQueue(backend, () -> "u1", Runnable::run, journal);
+		queue.addPoints(100);
+		backend.loseReply = true;
+		assertFalse(queue.flush());
+
+		// the game was closed before the retry
+		backend.loseReply = false;
+		WriteBehindQueue next = new WriteBehindQueue(backend, () -> "u1", Runnable::run, journal);
+		assertTrue(next.hasPending());
+		assertTrue(next.flush());
+		assertEquals(1100, backend.get("points"));
+		assertFalse(next.hasPending());
+	}
+
+	@Test
+	public void higherStoredValuesAreKept() {
+		FakeBackend backend = new FakeBackend(1000, 900, 4);
+		WriteBehindQueue queue = new WriteBehindQueue(backend, () -> "u1", Runnable::run, null);
+		queue.offerHighestScore(300);
+		queue.offerMaxClearedStage(2);
+
+		assertTrue(queue.flush());
+		assertEquals(900, backend.get("highest_score"));
+		assertEquals(4, backend.get("maxClearedStage"));
+		assertEquals(1000, backend.get("points"));
+	}
+
+	@Test
+	public void pointsWrittenElsewhereMeanwhileAreNotLost() {
+		FakeBackend backend = new FakeBackend(1000, 0, 0);
+		WriteBehindQueue queue = new WriteBehindQueue(backend, () -> "u1", Runnable::run, null);
+		queue.addPoints(100);
+		// e.g. a store purchase on another machine
+		backend.set("points", 400);
+
+		assertTrue(queue.flush());
+		assertEquals(500, backend.get("points"));
+	}
+
+	@Test
+	public void changesWaitForTheirUser() {
+		FakeBackend backend = new FakeBackend(0, 0, 0);
+		String[] uid = {"u1"};
+		WriteBehindQueue queue = new WriteBehindQueue(backend, () -> uid[0], Runnable::run, journal);
+		queue.addPoints(10);
+
+		uid[0] = "u2";
+		assertTrue(queue.flush());
+		assertEquals(0, backend.commits.size());
+
+		uid[0] = "u1";
+		assertTrue(queue.flush());
+		assertEquals(1, backend.commits.size());
+	}
+
+	/**
+	 * Applies the field transforms it is sent, like the server would
+	 */
+	private static final class FakeBackend implements WriteBehindQueue.Backend {
+		private final JSONObject fields = new JSONObject();
+		private final List<JSONObject> commits = new ArrayList<>();
+		/** Names of the documents created by the commits */
+		private final Set<String> created = new HashSet<>();
+		private boolean online = true;
+		/** Apply commits, then fail as if the reply timed out */
+		private boolean loseReply;
+
+		FakeBackend(int points, int highestScore, int maxClearedStage) {
+			set("points", points);
+			set("highest_score", highestScore);
+			set("maxClearedStage", maxClearedStage);
+		}
+
+		long get(String field) {
+			return Long.parseLong(fields.getJSONObject(field).getString("integerValue"));
+		}
+
+		void set(String field, long value) {
+			fields.put(field, new JSONObject().put("integerValue", String.valueOf(value)));
+		}
+
+		@Override
+		public String documentName(String uid) {
+			return "projects/p/databases/(default)/documents/users/" + uid;
+		}
+
+		@Override
+		public WriteBehindQueue.CommitResult commit(JSONObject body) throws IOException {
+			if (!online) {
+				throw new IOException("offline");
+			}
+			commits.add(new JSONObject(body.toString()));
+			JSONArray writes = body.getJSONArray("writes");
+			// all or nothing: check the create preconditions first
+			for (int i = 0; i < writes.length(); i++) {
+				JSONObject update = writes.getJSONObject(i).optJSONObject("update");
+				if (update != null && created.contains(update.getString("name"))) {
+					return WriteBehindQueue.CommitResult.ALREADY_WRITTEN;
+				}
+			}
+			for (int i = 0; i < writes.length(); i++) {
+				JSONObject write = writes.getJSONObject(i);
+				if (write.has("update")) {
+					created.add(write.getJSONObject("update").getString("name"));
+					continue;
+				}
+				JSONArray transforms = write.getJSONObject("transform").getJSONArray("fieldTransforms");
+				for (int j = 0; j < transforms.length(); j++) {
+					JSONObject t = transforms.getJSONObject(j);
+					String field = t.getString("fieldPath");
+					long current = fields.has(field) ? get(field) : 0;
+					if (t.has("increment")) {
+						set(field, current + t.getJSONObject("increment").getLong("integerValue"));
+					} else {
+						set(field, Math.max(current, t.getJSONObject("maximum").getLong("integerValue")));
+					}
+				}
+			}
+			if (loseReply) {
+				throw new SocketTimeoutException("Read timed out");
+			}
+			return WriteBehindQueue.CommitResult.WRITTEN;
+		}
+	}
+}
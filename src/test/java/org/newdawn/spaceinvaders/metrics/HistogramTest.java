@@ -0,0 +1,58 @@
+package org.newdawn.spaceinvaders.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramTest {
+	@Test
+	public void bucketsAreContiguousAndCoverTheirValues() {
+		long previousHighest = -1;
+		for (int i = 0; i < 36 * 32; i++) {
+			long highest = Histogram.highestValueOf(i);
+			assertEquals(i, Histogram.indexOf(previousHighest + 1));
+			assertEquals(i, Histogram.indexOf(highest));
+			assertTrue(highest > previousHighest);
+			previousHighest = highest;
+		}
+	}
+
+	@Test
+	public void percentilesStayWithinTheBucketError() {
+		Histogram h = new Histogram();
+		for (long v = 1; v <= 100_000; v++) {
+			h.record(v * 1000);
+		}
+
+		assertEquals(100_000, h.getCount());
+		assertEquals(100_000_000, h.getMax());
+		assertWithin(50_000_000, h.getValueAtPercentile(50));
+		assertWithin(99_000_000, h.getValueAtPercentile(99));
+		assertWithin(99_900_000, h.getValueAtPercentile(99.9));
+		assertEquals(h.getMax(), h.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void addMergesCountsAndMax() {
+		Histogram a = new Histogram();
+		Histogram b = new Histogram();
+		a.record(10);
+		b.record(5_000_000);
+		b.record(-3);
+
+		a.add(b);
+		assertEquals(3, a.getCount());
+		assertEquals(5_000_000, a.getMax());
+		assertEquals(0, a.getValueAtPercentile(1));
+
+		a.reset();
+		assertEquals(0, a.getCount());
+		assertEquals(0, a.getValueAtPercentile(99));
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue("expected about " + expected + " but was " + actual,
+				Math.abs(actual - expected) <= expected / 32);
+	}
+}
@@ -0,0 +1,120 @@
+package org.newdawn.spaceinvaders.render;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.Sprite;
+
+/**
+ * Draws the same frame over and over and checks that, once the layers and
+ * glyph caches are warm, a frame allocates next to nothing. Catches a
+ * new Font(...) or new Color(...) sneaking back into a draw path.
+ * <p>
+ * The software loops behind a BufferedImage allocate a scratch buffer for
+ * every translucent fill, which the renderer cannot avoid for the dimmed
+ * overlays, so that cost is measured first and allowed per such fill.
+ */
+public class RenderAllocationTest {
+	private static final int WARMUP_FRAMES = 200;
+	private static final int MEASURED_FRAMES = 500;
+	/** Bytes a steady state frame may allocate on average, switching fonts costs a little inside Java2D */
+	private static final long BYTES_PER_FRAME = 1024;
+
+	@Test
+	public void steadyStatePlayFrameStaysUnderBudget() {
+		FrameSnapshot frame = playFrame();
+		assertUnderBudget(frame, 0);
+	}
+
+	@Test
+	public void steadyStateOverlaysStayUnderBudget() {
+		FrameSnapshot frame = playFrame();
+		frame.setStageSelect(2, 1);
+		frame.setOverlay(FrameSnapshot.Overlay.STAGE_SELECT, "", false, 0);
+		assertUnderBudget(frame, 1);
+
+		frame.setOverlay(FrameSnapshot.Overlay.PAUSE, "", false, 0);
+		assertUnderBudget(frame, 1);
+
+		frame.setOverlay(FrameSnapshot.Overlay.GAME_OVER, "Oh no! They got you, try again?", true, 1230);
+		assertUnderBudget(frame, 0);
+	}
+
+	private static FrameSnapshot playFrame() {
+		Sprite alien = new Sprite(new BufferedImage(43, 29, BufferedImage.TYPE_INT_ARGB));
+		Sprite shot = new Sprite(new BufferedImage(12, 23, BufferedImage.TYPE_INT_ARGB));
+
+		FrameSnapshot frame = new FrameSnapshot();
+		for (int i = 0; i < 40; i++) {
+			int slot = frame.addSprite(alien, 100 + i * 20, 50, 101 + i * 20, 50);
+			frame.setHealthBar(slot, i % 3 + 1, 3, i % 5 == 0);
+		}
+		for (int i = 0; i < 10; i++) {
+			frame.addSprite(shot, 300 + i * 30, 500, 300 + i * 30, 490);
+		}
+		frame.setHud(2, 1230);
+		frame.setPlayers(true, 2, 3, 3, 3);
+		frame.setItemCounts(new int[] {1, 0, 2}, true);
+		return frame;
+	}
+
+	/**
+	 * @param frame The frame to draw
+	 * @param translucentFills How many full screen translucent fills it has
+	 */
+	private static void assertUnderBudget(FrameSnapshot frame, int translucentFills) {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		Canvas canvas = new Canvas();
+		canvas.setSize(800, 600);
+		GameRenderer renderer = new GameRenderer(canvas, Collections.<Sprite>nCopies(3, null));
+		BufferedImage screen = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = screen.createGraphics();
+		g.setFont(RenderPalette.DEFAULT_FONT);
+		try {
+			long id = Thread.currentThread().getId();
+			long fillBytes = translucentFills == 0 ? 0 : measureTranslucentFill(threads, id, g);
+			for (int i = 0; i < WARMUP_FRAMES; i++) {
+				renderer.draw(g, frame, 0.5);
+			}
+
+			long before = threads.getThreadAllocatedBytes(id);
+			for (int i = 0; i < MEASURED_FRAMES; i++) {
+				renderer.draw(g, frame, 0.5);
+			}
+			long perFrame = (threads.getThreadAllocatedBytes(id) - before) / MEASURED_FRAMES;
+
+			long budget = BYTES_PER_FRAME + translucentFills * fillBytes;
+			assertTrue(frame.overlay + " frame allocated " + perFrame + " bytes, budget " + budget, perFrame <= budget);
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * @return What a full screen translucent fill allocates on this pipeline
+	 */
+	private static long measureTranslucentFill(com.sun.management.ThreadMXBean threads, long id, Graphics2D g) {
+		g.setColor(RenderPalette.PAUSE_DIM);
+		for (int i = 0; i < WARMUP_FRAMES; i++) {
+			g.fillRect(0, 0, 1200, 900);
+		}
+		long before = threads.getThreadAllocatedBytes(id);
+		for (int i = 0; i < MEASURED_FRAMES; i++) {
+			g.fillRect(0, 0, 1200, 900);
+		}
+		return (threads.getThreadAllocatedBytes(id) - before) / MEASURED_FRAMES;
+	}
+}
@@ -0,0 +1,65 @@
+package org.newdawn.spaceinvaders.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TripleBufferTest {
+	@Test
+	public void consumerSeesOnlyTheLatestPublishedValue() {
+		TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[1]);
+		assertFalse(buffer.update());
+
+		buffer.getWriteBuffer()[0] = 1;
+		buffer.publish();
+		buffer.getWriteBuffer()[0] = 2;
+		buffer.publish();
+
+		assertTrue(buffer.update());
+		assertEquals(2, buffer.getReadBuffer()[0]);
+		assertFalse(buffer.update());
+		assertEquals(2, buffer.getReadBuffer()[0]);
+	}
+
+	@Test
+	public void producerNeverWritesTheBufferBeingRead() {
+		TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[1]);
+		for (int i = 1; i <= 10; i++) {
+			buffer.getWriteBuffer()[0] = i;
+			buffer.publish();
+			if (i % 3 == 0) {
+				assertTrue(buffer.update());
+				assertEquals(i, buffer.getReadBuffer()[0]);
+			}
+			assertNotSame(buffer.getReadBuffer(), buffer.getWriteBuffer());
+		}
+	}
+
+	@Test
+	public void handsOverAcrossThreads() throws InterruptedException {
+		final TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[2]);
+		Thread producer = new Thread(() -> {
+			for (int i = 1; i <= 100000; i++) {
+				int[] value = buffer.getWriteBuffer();
+				value[0] = i;
+				value[1] = -i;
+				buffer.publish();
+			}
+		});
+		producer.start();
+
+		int last = 0;
+		while (last < 100000) {
+			if (buffer.update()) {
+				int[] value = buffer.getReadBuffer();
+				assertEquals(-value[0], value[1]);
+				assertTrue(value[0] > last);
+				last = value[0];
+			}
+		}
+		producer.join();
+	}
+}
@@ -0,0 +1,120 @@
+package org.newdawn.spaceinvaders.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.newdawn.spaceinvaders.FixedTimestep;
+import org.newdawn.spaceinvaders.engine.GameWorld;
+import org.newdawn.spaceinvaders.engine.WorldListener;
+import org.newdawn.spaceinvaders.items.ItemManager;
+
+public class ReplayTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ReplayRecorder recorder;
+	private GameWorld world;
+
+	@BeforeClass
+	public static void headless() {
+		System.setProperty("java.awt.headless", "true");
+	}
+
+	@Test
+	public void roundTripsRunsAndHeader() throws IOException {
+		Replay replay = new Replay();
+		replay.seed = -5;
+		replay.stage = 3;
+		replay.tickRate = 120;
+		replay.tickPhase = 17;
+		replay.twoPlayer = true;
+		replay.startScore = 1234;
+		for (int i = 0; i < 1000; i++) {
+			replay.addTick(i < 400 ? Replay.P1_FIRE : Replay.P1_LEFT | Replay.P2_FIRE);
+		}
+		replay.outcome = Replay.Outcome.CLEARED;
+		replay.finalScore = 4321;
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		replay.write(bytes);
+		Replay read = Replay.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+		assertEquals(-5, read.seed);
+		assertEquals(17, read.tickPhase);
+		assertTrue(read.twoPlayer);
+		assertEquals(1234, read.startScore);
+		assertEquals(1000, read.ticks);
+		assertEquals(Replay.P1_FIRE, read.inputs[399]);
+		assertEquals(Replay.P1_LEFT | Replay.P2_FIRE, read.inputs[400]);
+		assertEquals(Replay.Outcome.CLEARED, read.outcome);
+		assertEquals(4321, read.finalScore);
+		// two runs, so the body is only a handful of bytes
+		assertTrue(bytes.size() < 40);
+	}
+
+	@Test
+	public void playsBackARecordedStageExactly() throws IOException {
+		File file = folder.newFile("stage4.sirp");
+		world = new GameWorld(new WorldListener() {
+			@Override
+			public void playerDied(GameWorld world) {
+				recorder.finish(Replay.Outcome.DIED, world.getScore());
+			}
+
+			@Override
+			public void stageCleared(GameWorld world, boolean finalStage) {
+				recorder.finish(Replay.Outcome.CLEARED, world.getScore());
+			}
+		});
+		ItemManager items = new ItemManager(null);
+		items.setClock(world::getTime);
+		world.setItemManager(items);
+		world.applyUpgrades(1, 2, 0);
+		world.setSeed(99);
+		world.setScore(50);
+		world.startStage(4, false);
+		recorder = new ReplayRecorder(world, 120, file);
+
+		// start part way into the 8/8/9 ms tick pattern
+		FixedTimestep timestep = new FixedTimestep(120);
+		for (int i = 0; i < 7; i++) {
+			timestep.nextTickMillis();
+		}
+
+		for (int tick = 0; tick < 60_000 && recorder.getReplay().outcome == Replay.Outcome.QUIT; tick++) {
+			int mask = Replay.P1_FIRE | ((tick / 90) % 2 == 0 ? Replay.P1_LEFT : Replay.P1_RIGHT);
+			if (tick == 300) {
+				mask |= Replay.itemBit(ItemManager.ID_INVINCIBILITY);
+			}
+			recorder.record(mask, timestep.getTickCount());
+			Replay.apply(mask, world);
+			world.tick(timestep.nextTickMillis());
+		}
+		recorder.finish(Replay.Outcome.QUIT, world.getScore());
+
+		Replay replay;
+		try (InputStream in = new FileInputStream(file)) {
+			replay = Replay.read(in);
+		}
+		assertNotEquals(Replay.Outcome.QUIT, replay.getOutcome());
+		assertTrue(replay.getTicks() > 100);
+
+		ReplayPlayer.Result result = ReplayPlayer.play(replay);
+		assertEquals(replay.getOutcome(), result.getOutcome());
+		assertEquals(replay.getFinalScore(), result.getFinalScore());
+		assertEquals(replay.getTicks(), result.getTicks());
+		assertTrue(result.matches(replay));
+	}
+}